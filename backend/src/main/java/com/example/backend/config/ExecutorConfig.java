@@ -0,0 +1,24 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// バックグラウンド処理用のExecutor
+@Configuration
+public class ExecutorConfig {
+
+    // 商品画像の縮小版作成
+    // デコードはメモリとCPUを使うので固定数のスレッドで処理し、待ち行列にも上限を設ける（溢れたら投入を断る）
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor imageRenditionExecutor(@Value("${app.image.rendition.concurrency:2}") int concurrency,
+                                                     @Value("${app.image.rendition.queue-capacity:1000}") int queueCapacity) {
+        return new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-rendition-", 0).daemon().factory());
+    }
+}
@@ -2,7 +2,6 @@ package com.example.backend.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -16,13 +15,4 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // カレントディレクトリ（Spring Boot起動のディレクトリ）を取得
-        String currentDir = System.getProperty("user.dir");
-        // uploadsフォルダへのマッピング
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + currentDir + "/uploads/");
-    }
 }
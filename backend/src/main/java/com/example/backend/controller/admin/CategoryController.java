@@ -20,10 +20,7 @@ public class CategoryController {
     // 一覧取得
     @GetMapping
     public List<CategoryResponse> list() {
-        return categoryService.findAll()
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .toList();
+        return categoryService.findAll();
     }
 
     // 1件取得
@@ -1,13 +1,18 @@
 package com.example.backend.controller.admin;
 
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import com.example.backend.enums.ExportFormat;
 import com.example.backend.enums.OrderStatus;
 import com.example.backend.request.admin.order.OrderRequest;
+import com.example.backend.request.admin.order.OrderSearchRequest;
+import com.example.backend.response.common.CursorPageResponse;
+import com.example.backend.service.order.OrderExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.backend.entity.OrderEntity;
 import com.example.backend.response.admin.order.OrderResponse;
@@ -20,16 +25,26 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
-    // 一覧取得
+    // 一覧取得（ステータス・期間・ユーザー・金額で絞り込み、カーソル方式でページング）
     @GetMapping
-    public List<OrderResponse> getOrders() {
-
-        List<OrderEntity> orders = orderService.findAll();
+    public CursorPageResponse<OrderResponse> getOrders(OrderSearchRequest request) {
+        return orderService.findPage(request);
+    }
 
-        return orders.stream()
-                .map(OrderResponse::fromEntity)
-                .collect(Collectors.toList());
+    // 一覧と同じ条件で全件を書き出す（cursor・size は無視する）
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(OrderSearchRequest request,
+                                                        @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        StreamingResponseBody body = orderExportService.export(request, format);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("orders." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
     }
 
     // 1件取得
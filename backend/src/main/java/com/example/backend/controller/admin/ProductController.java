@@ -3,6 +3,7 @@ package com.example.backend.controller.admin;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,14 +12,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import com.example.backend.entity.ProductEntity;
 import com.example.backend.request.admin.product.ProductRequest;
 import com.example.backend.response.admin.product.ProductDetailResponse;
 import com.example.backend.response.admin.product.ProductResponse;
+import com.example.backend.response.admin.product.UploadedImageResponse;
 import com.example.backend.service.ProductService;
+import com.example.backend.service.image.ProductImageUploadService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,14 +33,12 @@ import lombok.RequiredArgsConstructor;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImageUploadService productImageUploadService;
 
     // 一覧取得
     @GetMapping
     public List<ProductResponse> list() {
-        return productService.findAllForAdmin()
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .toList();
+        return productService.findAllForAdmin();
     }
 
     // 1件取得
@@ -51,6 +54,12 @@ public class ProductController {
         return ProductResponse.fromEntity(created);
     }
 
+    // 画像アップロード（multipart/form-data の files パート、登録・更新時は uploadId で参照する）
+    @PostMapping(value = "/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public List<UploadedImageResponse> uploadImages(@RequestParam("files") List<MultipartFile> files) {
+        return productImageUploadService.upload(files);
+    }
+
     // 更新
     @PutMapping("/{id}")
     public ProductResponse update(@PathVariable Integer id, @RequestBody @Validated ProductRequest request) {
@@ -0,0 +1,31 @@
+package com.example.backend.controller.admin;
+
+import com.example.backend.response.admin.stats.CatalogStatsResponse;
+import com.example.backend.response.admin.stats.CheckoutStatsResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import com.example.backend.service.order.CheckoutService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController("AdminStatsController")
+@RequestMapping("/api/admin/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final ProductCatalogService productCatalogService;
+    private final CheckoutService checkoutService;
+
+    // 商品カタログキャッシュのヒット率・再構築時間
+    @GetMapping("/catalog")
+    public CatalogStatsResponse catalog() {
+        return productCatalogService.stats();
+    }
+
+    // 決済のスループット・レイテンシ（グループコミットの有無で比べる）
+    @GetMapping("/checkout")
+    public CheckoutStatsResponse checkout() {
+        return checkoutService.stats();
+    }
+}
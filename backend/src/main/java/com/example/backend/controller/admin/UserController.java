@@ -22,9 +22,7 @@ public class UserController {
     // 一覧取得
     @GetMapping
     public List<UserResponse> list() {
-        return userService.findAll().stream()
-                .map(UserResponse::fromEntity)
-                .toList();
+        return userService.findAll();
     }
 
     // 1件取得
@@ -0,0 +1,182 @@
+package com.example.backend.controller.common;
+
+import com.example.backend.service.image.UploadedFileService;
+import com.example.backend.service.image.UploadedFileService.UploadedFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+// アップロード画像の配信
+// 強いETag・長期キャッシュ・304・Range・事前圧縮版に対応し、本文はsendfile（無ければtransferTo）で送る
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    // Tomcatのsendfile連携用のリクエスト属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+    // 旧形式のファイルは内容ハッシュを持たないため、毎回ETagで再検証させる
+    private static final String REVALIDATE = CacheControl.noCache()
+            .cachePublic()
+            .getHeaderValue();
+
+    // デコード済み・セミコロン以降（;jsessionid など）を除いたパスを取る
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final UploadedFileService uploadedFileService;
+
+    @GetMapping("/uploads/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // getRequestURI() は %2e%2e などがエンコードされたままで、ファイル名とも一致しない
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        UploadedFile file = uploadedFileService.resolve(path, request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                .orElse(null);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, file.immutable() ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (file.compressible()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (notModified(request, file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(file.contentType().toString());
+        if (file.encoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, file.encoding().token());
+        }
+
+        long start = 0;
+        long end = file.length() - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && rangeApplies(request, file)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // 複数範囲（multipart/byteranges）は扱わず全体を返す
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(file.length());
+                    end = range.getRangeEnd(file.length());
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length());
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.length());
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+        write(request, response, file, start, length);
+    }
+
+    private boolean notModified(HttpServletRequest request, UploadedFile file) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match は弱い比較（W/ を無視）
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*") || stripWeak(candidate).equals(file.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && file.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range が一致しなければ範囲指定を無視して全体を返す（If-Range は強い比較）
+    private boolean rangeApplies(HttpServletRequest request, UploadedFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(file.etag());
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && file.lastModified() / 1000 == date / 1000;
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, UploadedFile file,
+                       long start, long length) throws IOException {
+        // Tomcatが対応していればファイルの送出をコネクタに任せる（カーネルのsendfile）
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+            out.flush();
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -2,8 +2,8 @@
 
 package com.example.backend.controller.user;
 
-import com.example.backend.entity.CartEntity;
 import com.example.backend.request.user.cart.CartAddRequest;
+import com.example.backend.request.user.cart.CartBatchRequest;
 import com.example.backend.request.user.cart.CartUpdateRequest;
 import com.example.backend.response.user.cart.CartResponse;
 import com.example.backend.security.CustomUserDetails;
@@ -26,8 +26,7 @@ public class CartController {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        CartEntity cart = cartService.findByUserId(userId);
-        return CartResponse.fromEntity(cart);
+        return cartService.findByUserId(userId);
     }
 
     // カート内アイテムの数量取得
@@ -45,8 +44,7 @@ public class CartController {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        CartEntity updatedCart = cartService.addItemToCart(userId, request.productId(), request.quantity());
-        CartResponse response = CartResponse.fromEntity(updatedCart);
+        CartResponse response = cartService.addItemToCart(userId, request.productId(), request.quantity());
         return ResponseEntity.ok(response);  // HTTP 200 OK + JSON
     }
 
@@ -59,8 +57,17 @@ public class CartController {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        CartEntity updatedCart = cartService.updateItemQuantity(userId, productId, request.quantity());
-        CartResponse response = CartResponse.fromEntity(updatedCart);
+        CartResponse response = cartService.updateItemQuantity(userId, productId, request.quantity());
+        return ResponseEntity.ok(response); // HTTP 200 OK
+    }
+
+    // カートへの操作をまとめて適用（ログイン後の同期・再注文など）
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyBatch(@RequestBody CartBatchRequest request) {
+        CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Integer userId = loginUser.getId();
+
+        CartResponse response = cartService.applyBatch(userId, request);
         return ResponseEntity.ok(response); // HTTP 200 OK
     }
 
@@ -70,8 +77,7 @@ public class CartController {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        CartEntity updatedCart = cartService.removeItemFromCart(userId, productId);
-        CartResponse response = CartResponse.fromEntity(updatedCart);
+        CartResponse response = cartService.removeItemFromCart(userId, productId);
         return ResponseEntity.ok(response); // HTTP 200 OK
     }
 
@@ -2,35 +2,42 @@ package com.example.backend.controller.user;
 
 import com.example.backend.entity.OrderEntity;
 import com.example.backend.request.user.order.OrderCreateRequest;
+import com.example.backend.request.user.order.OrderListRequest;
+import com.example.backend.response.common.CursorPageResponse;
 import com.example.backend.response.user.order.OrderResponse;
+import com.example.backend.response.user.order.OrderSummaryResponse;
 import com.example.backend.security.CustomUserDetails;
 import com.example.backend.service.OrderService;
+import com.example.backend.service.order.CheckoutService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @RestController("UserOrderController")
 @RequestMapping("/api/user/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
+    private final CheckoutService checkoutService;
 
-    // 一覧取得
+    // 一覧取得（?cursor=&size=、新しい順のキーセット方式）
     @GetMapping
-    public List<OrderResponse> getMyOrders() {
+    public CursorPageResponse<OrderResponse> getMyOrders(OrderListRequest request) {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        List<OrderEntity> orders = orderService.findOrdersByUserId(userId);
+        return orderService.findOrderPageByUserId(userId, request);
+    }
+
+    // 注文数・累計金額などの集計（マイページ用）
+    @GetMapping("/summary")
+    public OrderSummaryResponse getMyOrderSummary() {
+        CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Integer userId = loginUser.getId();
 
-        return orders.stream()
-                .map(OrderResponse::fromEntity)
-                .collect(Collectors.toList());
+        return orderService.summarizeByUserId(userId);
     }
 
     @GetMapping("/{orderId}")
@@ -49,7 +56,7 @@ public class OrderController {
         CustomUserDetails loginUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Integer userId = loginUser.getId();
 
-        OrderResponse response = orderService.createOrderFromCart(userId, request);
+        OrderResponse response = checkoutService.checkout(userId, request);
         return ResponseEntity.ok(response);
     }
 }
@@ -1,15 +1,21 @@
 package com.example.backend.controller.user;
 
-import java.util.List;
-
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.backend.request.user.product.ProductFilterRequest;
+import com.example.backend.request.user.product.ProductListRequest;
+import com.example.backend.request.user.product.ProductSearchRequest;
+import com.example.backend.response.common.CursorPageResponse;
 import com.example.backend.response.user.product.ProductDetailResponse;
+import com.example.backend.response.user.product.ProductFilterResponse;
 import com.example.backend.response.user.product.ProductResponse;
-import com.example.backend.service.ProductService;
+import com.example.backend.response.user.product.ProductSearchResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import com.example.backend.service.facet.ProductFacetService;
+import com.example.backend.service.search.ProductSearchService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,21 +24,32 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ProductController {
 
-    private final ProductService productService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
 
-    // 一覧取得
+    // 一覧取得（?cursor=&size=&sort=NEWEST|PRICE_ASC|PRICE_DESC|NAME）
     @GetMapping
-    public List<ProductResponse> list() {
-        return productService.findAllForUser()
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .toList();
+    public CursorPageResponse<ProductResponse> list(ProductListRequest request) {
+        return productCatalogService.findPage(request);
+    }
+
+    // 全文検索（?q=&page=&size=）
+    @GetMapping("/search")
+    public ProductSearchResponse search(ProductSearchRequest request) {
+        return productSearchService.search(request);
+    }
+
+    // 絞り込み＋件数集計（?categoryIds=&match=ALL|ANY&inStock=&priceRanges=&sort=&page=&size=）
+    @GetMapping("/filter")
+    public ProductFilterResponse filter(ProductFilterRequest request) {
+        return productFacetService.filter(request);
     }
 
     // 1件取得
     @GetMapping("/{id}")
     public ProductDetailResponse get(@PathVariable Integer id) {
-        return ProductDetailResponse.fromEntity(productService.findByIdForUser(id));
+        return productCatalogService.findById(id);
     }
 
     // 登録（作成）
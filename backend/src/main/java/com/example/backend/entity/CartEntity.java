@@ -17,7 +17,8 @@ import java.util.List;
 public class CartEntity extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carts_id_seq")
+    @SequenceGenerator(name = "carts_id_seq", sequenceName = "carts_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
@@ -25,6 +26,10 @@ public class CartEntity extends BaseEntity {
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private UserEntity user;
 
+    // 明細の数量合計（cart_items のトリガーが更新する）
+    @Column(name = "total_quantity", nullable = false, insertable = false, updatable = false)
+    private Integer totalQuantity = 0;
+
     @OneToMany(mappedBy = "cart", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<CartItemEntity> cartItems = new ArrayList<>();
 
@@ -18,7 +18,8 @@ package com.example.backend.entity;
     public class OrderEntity extends BaseEntity {
 
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+        @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
         @Column(name = "id")
         private Integer id;
 
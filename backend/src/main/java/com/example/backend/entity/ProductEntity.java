@@ -18,7 +18,8 @@ import java.util.Set;
 public class ProductEntity extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_seq")
+    @SequenceGenerator(name = "products_id_seq", sequenceName = "products_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
@@ -34,7 +35,8 @@ public class ProductEntity extends BaseEntity {
     @Column(name = "price", nullable = false)
     private Integer price;
 
-    @Column(name = "stock", nullable = false)
+    // 登録後の在庫の増減は InventoryService を通す（エンティティの更新で販売中の在庫を上書きしない）
+    @Column(name = "stock", nullable = false, updatable = false)
     private Integer stock;
 
     @Column(name = "is_published", nullable = false)
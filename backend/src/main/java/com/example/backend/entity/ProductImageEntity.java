@@ -7,6 +7,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "product_images")
 @EntityListeners(AuditingEntityListener.class)
@@ -15,7 +17,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class ProductImageEntity extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_id_seq")
+    @SequenceGenerator(name = "product_images_id_seq", sequenceName = "product_images_id_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -28,4 +31,28 @@ public class ProductImageEntity extends BaseEntity {
 
     @Column(name = "sort_order", nullable = false)
     private Integer sortOrder;
+
+    // 画像内容のSHA-256（16進）。既存データは null
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // 以下は縮小版の作成後に設定される（作成前は null）
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "thumbnail_url", length = 255)
+    private String thumbnailUrl;
+
+    @Column(name = "card_url", length = 255)
+    private String cardUrl;
+
+    @Column(name = "detail_url", length = 255)
+    private String detailUrl;
+
+    // 縮小版を作れなかった日時（未対応の形式・大きすぎる画像・再試行の上限）。設定されたものは再投入しない
+    @Column(name = "rendition_failed_at")
+    private LocalDateTime renditionFailedAt;
 }
@@ -0,0 +1,7 @@
+package com.example.backend.enums;
+
+public enum CartOperationType {
+    ADD, // 数量を加算（明細が無ければ追加）
+    SET, // 数量を指定の値にする（明細が無ければ追加）
+    REMOVE // 明細を削除
+}
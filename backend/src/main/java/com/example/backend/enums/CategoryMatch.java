@@ -0,0 +1,6 @@
+package com.example.backend.enums;
+
+public enum CategoryMatch {
+    ALL, // 指定カテゴリすべてに属する
+    ANY // 指定カテゴリのいずれかに属する
+}
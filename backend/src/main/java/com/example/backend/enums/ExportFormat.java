@@ -0,0 +1,22 @@
+package com.example.backend.enums;
+
+public enum ExportFormat {
+    CSV("csv", "text/csv"), // 表計算ソフト向け
+    NDJSON("ndjson", "application/x-ndjson"); // 1行1注文のJSON
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
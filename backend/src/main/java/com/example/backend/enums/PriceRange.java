@@ -0,0 +1,34 @@
+package com.example.backend.enums;
+
+public enum PriceRange {
+    UNDER_1000(0, 1000), // 1,000円未満
+    FROM_1000_TO_3000(1000, 3000), // 1,000円〜2,999円
+    FROM_3000_TO_5000(3000, 5000), // 3,000円〜4,999円
+    FROM_5000_TO_10000(5000, 10000), // 5,000円〜9,999円
+    OVER_10000(10000, Integer.MAX_VALUE); // 10,000円以上
+
+    private final int min;
+    private final int max;
+
+    PriceRange(int min, int max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public static PriceRange of(int price) {
+        for (PriceRange range : values()) {
+            if (price >= range.min && price < range.max) {
+                return range;
+            }
+        }
+        return UNDER_1000;
+    }
+}
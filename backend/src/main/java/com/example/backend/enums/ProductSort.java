@@ -0,0 +1,24 @@
+package com.example.backend.enums;
+
+public enum ProductSort {
+    NEWEST("createdAt", false), // 新着順
+    PRICE_ASC("price", true), // 価格の安い順
+    PRICE_DESC("price", false), // 価格の高い順
+    NAME("name", true); // 名前順
+
+    private final String property;
+    private final boolean ascending;
+
+    ProductSort(String property, boolean ascending) {
+        this.property = property;
+        this.ascending = ascending;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
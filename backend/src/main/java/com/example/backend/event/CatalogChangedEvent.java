@@ -0,0 +1,16 @@
+package com.example.backend.event;
+
+import com.example.backend.response.user.product.ProductDetailResponse;
+
+import java.util.Collection;
+
+// カタログスナップショットの差分（検索・絞り込み用インデックスへ同じ順序で伝える）
+// reset = true の場合は upserted が全件で、既存の内容は破棄する
+// stockOnly = true の場合は upserted の在庫数だけが変わっている（名前・説明などは前回と同じ）
+public record CatalogChangedEvent(
+        Collection<ProductDetailResponse> upserted,
+        Collection<Integer> removedIds,
+        boolean reset,
+        boolean stockOnly
+) {
+}
@@ -0,0 +1,5 @@
+package com.example.backend.event;
+
+// カテゴリの更新・削除（コミット後に購読側へ通知する）
+public record CategoryChangedEvent(Integer categoryId) {
+}
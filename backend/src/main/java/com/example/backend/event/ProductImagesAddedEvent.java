@@ -0,0 +1,7 @@
+package com.example.backend.event;
+
+import java.util.List;
+
+// 商品画像の追加（コミット後に縮小版の作成を始める）
+public record ProductImagesAddedEvent(Integer productId, List<Integer> imageIds) {
+}
@@ -0,0 +1,7 @@
+package com.example.backend.event;
+
+import java.util.List;
+
+// 注文などによる在庫数の変動（コミット後に購読側へ通知する）
+public record ProductStockChangedEvent(List<Integer> productIds) {
+}
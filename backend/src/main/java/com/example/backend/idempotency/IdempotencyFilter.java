@@ -0,0 +1,205 @@
+package com.example.backend.idempotency;
+
+import com.example.backend.security.CustomUserDetails;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+// Idempotency-Key ヘッダ付きの更新系リクエストを1回だけ処理する
+// 同じキーの再送には保存したレスポンスを返し、カート・商品・注文には触れない
+// 認証済みのリクエストが対象なので、Spring Security のフィルタより後で動く（既定の順序）
+// キーは利用者ごとに分けて持つ（idempotency_keys.user_id は users を参照する）ので、/api/user/ 配下だけを対象にする
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HEADER) == null
+                || !MUTATING_METHODS.contains(request.getMethod())
+                // 管理者のIDは users のIDとは別の番号なので、同じ表に入れない
+                || !request.getRequestURI().startsWith("/api/user/")
+                // 画像アップロードなどのマルチパートは本文が大きいので対象外
+                || (request.getContentType() != null && request.getContentType().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Integer userId = currentUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Idempotency-Keyは1〜" + MAX_KEY_LENGTH + "文字で指定してください");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = hash(request, cachedRequest.body);
+
+        // 処理済みの再送はメモリ上の結果だけで返し、DBへの往復をしない
+        Optional<StoredResponse> recent = store.recent(userId, key);
+        if (recent.isPresent()) {
+            if (recent.get().requestHash().equals(requestHash)) {
+                replay(response, recent.get());
+            } else {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Keyが別のリクエストで使われています");
+            }
+            return;
+        }
+
+        if (!store.claim(userId, key, requestHash)) {
+            Optional<StoredResponse> stored = store.find(userId, key);
+            if (stored.isEmpty()) {
+                // 直前に失敗して解放された
+                reject(response, HttpStatus.CONFLICT, "同じIdempotency-Keyのリクエストを処理中です");
+            } else if (!stored.get().requestHash().equals(requestHash)) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Keyが別のリクエストで使われています");
+            } else if (stored.get().inProgress()) {
+                reject(response, HttpStatus.CONFLICT, "同じIdempotency-Keyのリクエストを処理中です");
+            } else {
+                replay(response, stored.get());
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(cachedRequest, cachedResponse);
+            int status = cachedResponse.getStatus();
+            if (status >= 200 && status < 300) {
+                store.complete(userId, key, new StoredResponse(requestHash, status,
+                        cachedResponse.getContentType(), cachedResponse.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(userId, key);
+            }
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+
+    private Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.statusCode());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    // 同じキーで中身の違うリクエストを見分けるため、メソッド・パス・本文から作る
+    private static String hash(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 本文を先に読み切り、後続（コントローラ）にも同じ内容を渡す
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Idempotency-Key の保存先
+// 処理済みのレスポンスは直近の分だけメモリにも持ち、再送はDBを引かずに返す
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    // 処理中の行が無ければ作る。処理中のまま lock-timeout を過ぎた行（処理中に落ちた等）は引き継ぐ
+    private static final String CLAIM = """
+            INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash)
+            VALUES (?, ?, ?)
+            ON CONFLICT (user_id, idempotency_key) DO UPDATE
+                SET request_hash = EXCLUDED.request_hash, created_at = CURRENT_TIMESTAMP
+                WHERE idempotency_keys.status_code IS NULL
+                    AND idempotency_keys.created_at < CURRENT_TIMESTAMP - make_interval(secs => ?)
+            """;
+    private static final String FIND = """
+            SELECT request_hash, status_code, content_type, response_body
+            FROM idempotency_keys
+            WHERE user_id = ? AND idempotency_key = ?
+            """;
+    private static final String COMPLETE = """
+            UPDATE idempotency_keys
+            SET status_code = ?, content_type = ?, response_body = ?
+            WHERE user_id = ? AND idempotency_key = ?
+            """;
+    private static final String RELEASE =
+            "DELETE FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ? AND status_code IS NULL";
+    private static final String PURGE = "DELETE FROM idempotency_keys WHERE created_at < CURRENT_TIMESTAMP - make_interval(secs => ?)";
+
+    private record CacheKey(Integer userId, String key) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final Duration lockTimeout;
+    private final Map<CacheKey, StoredResponse> recent;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${app.idempotency.retention:PT24H}") Duration retention,
+                            @Value("${app.idempotency.lock-timeout:PT1M}") Duration lockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.lockTimeout = lockTimeout;
+        // アクセス順のLRU（上限を超えたら最も古いものから捨てる）
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // メモリ上の処理済みレスポンスだけを見る（DBは引かない）
+    public Optional<StoredResponse> recent(Integer userId, String key) {
+        synchronized (recent) {
+            return Optional.ofNullable(recent.get(new CacheKey(userId, key)));
+        }
+    }
+
+    public Optional<StoredResponse> find(Integer userId, String key) {
+        Optional<StoredResponse> cached = recent(userId, key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        List<StoredResponse> rows = jdbcTemplate.query(FIND, (rs, rowNum) -> new StoredResponse(
+                rs.getString("request_hash"),
+                (Integer) rs.getObject("status_code"),
+                rs.getString("content_type"),
+                rs.getBytes("response_body")), userId, key);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        StoredResponse stored = rows.get(0);
+        if (!stored.inProgress()) {
+            remember(userId, key, stored);
+        }
+        return Optional.of(stored);
+    }
+
+    // このリクエストで処理する権利を取る（自動コミットで即座に確定させ、同じキーの同時リクエストを弾く）
+    public boolean claim(Integer userId, String key, String requestHash) {
+        return jdbcTemplate.update(CLAIM, userId, key, requestHash, lockTimeout.toSeconds()) > 0;
+    }
+
+    public void complete(Integer userId, String key, StoredResponse response) {
+        jdbcTemplate.update(COMPLETE, response.statusCode(), response.contentType(), response.body(), userId, key);
+        remember(userId, key, response);
+    }
+
+    // 失敗したリクエストは結果を残さず、同じキーでやり直せるようにする
+    public void release(Integer userId, String key) {
+        jdbcTemplate.update(RELEASE, userId, key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT1H}")
+    public void purge() {
+        int purged = jdbcTemplate.update(PURGE, retention.toSeconds());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private void remember(Integer userId, String key, StoredResponse response) {
+        synchronized (recent) {
+            recent.put(new CacheKey(userId, key), response);
+        }
+    }
+}
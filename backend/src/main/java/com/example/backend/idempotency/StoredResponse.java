@@ -0,0 +1,9 @@
+package com.example.backend.idempotency;
+
+// Idempotency-Key ごとに保存したレスポンス（statusCode が null なら処理中）
+public record StoredResponse(String requestHash, Integer statusCode, String contentType, byte[] body) {
+
+    public boolean inProgress() {
+        return statusCode == null;
+    }
+}
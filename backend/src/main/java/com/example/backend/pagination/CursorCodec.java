@@ -0,0 +1,34 @@
+package com.example.backend.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// キーセットページング用カーソルのエンコード/デコード
+// 値を改行区切りで連結し、URLセーフなBase64にしてクライアントからは不透明に見せる
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "\n";
+
+    private CursorCodec() {
+    }
+
+    // 最後の値のみ区切り文字を含んでもよい（商品名など）
+    public static String encode(String... values) {
+        String joined = String.join(SEPARATOR, values);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = joined.split(SEPARATOR, expectedParts);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException("不正なカーソルです");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不正なカーソルです", e);
+        }
+    }
+}
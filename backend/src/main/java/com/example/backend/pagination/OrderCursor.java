@@ -0,0 +1,26 @@
+package com.example.backend.pagination;
+
+import java.time.LocalDateTime;
+
+// 注文一覧のカーソル（作成日時の新しい順、同時刻はIDの大きい順）
+public record OrderCursor(
+        LocalDateTime createdAt,
+        Integer id
+) {
+    public String encode() {
+        return CursorCodec.encode(createdAt.toString(), String.valueOf(id));
+    }
+
+    // 空のカーソルは先頭ページを表すので null を返す
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = CursorCodec.decode(cursor, 2);
+        try {
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Integer.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("不正なカーソルです", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.pagination;
+
+import com.example.backend.enums.ProductSort;
+
+import java.time.LocalDateTime;
+
+// 商品一覧のカーソル（並び順・ソートキー・ID）
+public record ProductCursor(
+        ProductSort sort,
+        Integer id,
+        Comparable<?> key
+) {
+    public static ProductCursor of(ProductSort sort, Integer id, LocalDateTime createdAt, Integer price, String name) {
+        Comparable<?> key = switch (sort) {
+            case NEWEST -> createdAt;
+            case PRICE_ASC, PRICE_DESC -> price;
+            case NAME -> name;
+        };
+        return new ProductCursor(sort, id, key);
+    }
+
+    public String encode() {
+        return CursorCodec.encode(sort.name(), String.valueOf(id), key.toString());
+    }
+
+    // 空のカーソルは先頭ページを表すので null を返す
+    public static ProductCursor decode(String cursor, ProductSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = CursorCodec.decode(cursor, 3);
+        if (!sort.name().equals(parts[0])) {
+            throw new IllegalArgumentException("カーソルと並び順が一致しません");
+        }
+        try {
+            Integer id = Integer.valueOf(parts[1]);
+            Comparable<?> key = switch (sort) {
+                case NEWEST -> LocalDateTime.parse(parts[2]);
+                case PRICE_ASC, PRICE_DESC -> Integer.valueOf(parts[2]);
+                case NAME -> parts[2];
+            };
+            return new ProductCursor(sort, id, key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("不正なカーソルです", e);
+        }
+    }
+}
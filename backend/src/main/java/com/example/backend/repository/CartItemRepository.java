@@ -2,8 +2,12 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.CartItemEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.CartLineRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +17,79 @@ public interface CartItemRepository extends BaseRepository<CartItemEntity, Integ
 
     List<CartItemEntity> findByCartId(Integer id);
 
+    List<CartItemEntity> findByCartIdAndProductIdIn(Integer cartId, Collection<Integer> productIds);
+
+    // 以下の1文での更新は、一括操作（CartRepository.findForUpdateByUserId）と同じくカートの行をロックしてから明細に触れる
+    // ロックを取らないと、一括操作が読んだ後の加算が上書きされたり、同じ商品の追加が一意制約違反になったりする
+
+    // カートへの追加を1文で行う：明細が無ければ作り、あれば数量を加算する（在庫を超える場合は何もしない）
+    // 追加・加算できたときはカートIDを返す
+    @Query(value = """
+            WITH c AS (
+                SELECT id FROM carts WHERE user_id = :userId AND is_deleted = false FOR UPDATE
+            )
+            INSERT INTO cart_items (cart_id, product_id, quantity)
+            SELECT c.id, p.id, :quantity
+            FROM c
+            JOIN products p ON p.id = :productId AND p.is_deleted = false AND p.stock >= :quantity
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+                SET quantity = cart_items.quantity + EXCLUDED.quantity,
+                    updated_at = CURRENT_TIMESTAMP
+                WHERE cart_items.quantity + EXCLUDED.quantity
+                      <= (SELECT stock FROM products WHERE id = EXCLUDED.product_id)
+            RETURNING cart_id
+            """, nativeQuery = true)
+    Optional<Integer> upsertQuantity(@Param("userId") Integer userId,
+                                     @Param("productId") Integer productId,
+                                     @Param("quantity") Integer quantity);
+
+    // 数量の変更を1文で行う（明細が無い・在庫を超える場合は何もしない）
+    @Query(value = """
+            WITH c AS (
+                SELECT id FROM carts WHERE user_id = :userId AND is_deleted = false FOR UPDATE
+            )
+            UPDATE cart_items ci
+            SET quantity = :quantity, updated_at = CURRENT_TIMESTAMP
+            FROM c, products p
+            WHERE c.id = ci.cart_id
+              AND ci.product_id = :productId
+              AND p.id = ci.product_id AND p.stock >= :quantity
+            RETURNING ci.cart_id
+            """, nativeQuery = true)
+    Optional<Integer> updateQuantity(@Param("userId") Integer userId,
+                                     @Param("productId") Integer productId,
+                                     @Param("quantity") Integer quantity);
+
+    // 明細の物理削除を1文で行う
+    @Query(value = """
+            WITH c AS (
+                SELECT id FROM carts WHERE user_id = :userId AND is_deleted = false FOR UPDATE
+            )
+            DELETE FROM cart_items ci
+            USING c
+            WHERE c.id = ci.cart_id
+              AND ci.product_id = :productId
+            RETURNING ci.cart_id
+            """, nativeQuery = true)
+    Optional<Integer> deleteByUserIdAndProductId(@Param("userId") Integer userId,
+                                                 @Param("productId") Integer productId);
+
+    // カート明細（表示用プロジェクション）：商品と先頭画像をカート1件につき1クエリで結合する
+    @Query("""
+            SELECT new com.example.backend.repository.projection.CartLineRow(
+                ci.id, ci.quantity, p.id, p.sku, p.name, p.price, p.stock, img.thumbnailUrl, img.imageUrl)
+            FROM CartItemEntity ci
+            JOIN ci.product p
+            LEFT JOIN LATERAL (
+                SELECT i.thumbnailUrl AS thumbnailUrl, i.imageUrl AS imageUrl
+                FROM ProductImageEntity i
+                WHERE i.product.id = p.id AND i.isDeleted = false
+                ORDER BY i.sortOrder, i.id
+                LIMIT 1
+            ) img
+            WHERE ci.cart.id = :cartId
+            ORDER BY ci.id
+            """)
+    List<CartLineRow> findLinesByCartId(@Param("cartId") Integer cartId);
+
 }
@@ -2,6 +2,10 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.CartEntity;
 import com.example.backend.repository.base.BaseRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +16,13 @@ public interface CartRepository extends BaseRepository<CartEntity, Integer> {
 
     Optional<CartEntity> findByUserId(Integer userId);
 
+    // 同じカートへの他の更新と重ならないよう、行ロックを取って読む
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CartEntity c WHERE c.user.id = :userId")
+    Optional<CartEntity> findForUpdateByUserId(@Param("userId") Integer userId);
+
+    // 明細の数量合計（user_id の一意インデックスで1行だけ読む）
+    @Query("SELECT c.totalQuantity FROM CartEntity c WHERE c.user.id = :userId AND c.isDeleted = false")
+    Optional<Integer> findTotalQuantityByUserId(@Param("userId") Integer userId);
+
 }
@@ -2,8 +2,21 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.CategoryEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.response.admin.category.CategoryResponse;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends BaseRepository<CategoryEntity, Integer> {
+
+    // 一覧用プロジェクション（レスポンスへ直接詰める）
+    @Query("""
+            SELECT new com.example.backend.response.admin.category.CategoryResponse(c.id, c.name)
+            FROM CategoryEntity c
+            WHERE c.isDeleted = false
+            ORDER BY c.id
+            """)
+    List<CategoryResponse> findResponsesByIsDeletedFalse();
 }
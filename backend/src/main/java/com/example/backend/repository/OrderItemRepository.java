@@ -2,8 +2,23 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.OrderItemEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.OrderItemRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends BaseRepository<OrderItemEntity, Integer> {
+
+    // 指定した注文の明細をまとめて取得（注文一覧・注文履歴の1ページ分を1回で読む）
+    @Query("""
+            SELECT new com.example.backend.repository.projection.OrderItemRow(oi.order.id, oi.id, oi.quantity, oi.price, oi.product.id)
+            FROM OrderItemEntity oi
+            WHERE oi.order.id IN :orderIds AND oi.isDeleted = false
+            ORDER BY oi.order.id, oi.id
+            """)
+    List<OrderItemRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
 }
@@ -4,16 +4,56 @@ import com.example.backend.entity.OrderEntity;
 import com.example.backend.entity.UserEntity;
 import com.example.backend.enums.OrderStatus;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.OrderSummaryRow;
+import com.example.backend.repository.projection.UserOrderRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends BaseRepository<OrderEntity, Integer> {
-    List<OrderEntity> findByUserOrderByCreatedAtDesc(UserEntity user);
-
+public interface OrderRepository extends BaseRepository<OrderEntity, Integer>, OrderRepositoryCustom {
     Optional<OrderEntity> findByIdAndUser(Integer orderId, UserEntity user);
 
     int countByStatus(OrderStatus status);
+
+    // 注文履歴の先頭ページ（(user_id, created_at DESC, id DESC) のインデックスを先頭から読む）
+    @Query("""
+            SELECT new com.example.backend.repository.projection.UserOrderRow(
+                o.id, o.user.id, o.totalAmount, o.status, o.shippingAddress, o.createdAt)
+            FROM OrderEntity o
+            WHERE o.user.id = :userId
+            ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<UserOrderRow> findPageRowsByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    // カーソルより後ろのページ
+    // createdAt <= :createdAt を重ねて、インデックスの走査をカーソル位置から始めさせる
+    @Query("""
+            SELECT new com.example.backend.repository.projection.UserOrderRow(
+                o.id, o.user.id, o.totalAmount, o.status, o.shippingAddress, o.createdAt)
+            FROM OrderEntity o
+            WHERE o.user.id = :userId
+              AND o.createdAt <= :createdAt
+              AND (o.createdAt < :createdAt OR o.id < :id)
+            ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<UserOrderRow> findPageRowsByUserIdAfter(@Param("userId") Integer userId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Integer id,
+                                                 Pageable pageable);
+
+    @Query("""
+            SELECT new com.example.backend.repository.projection.OrderSummaryRow(
+                COUNT(o),
+                COALESCE(SUM(o.totalAmount), 0),
+                COALESCE(SUM(CASE WHEN o.status = com.example.backend.enums.OrderStatus.DELIVERED THEN 1 ELSE 0 END), 0))
+            FROM OrderEntity o
+            WHERE o.user.id = :userId
+            """)
+    OrderSummaryRow summarizeByUserId(@Param("userId") Integer userId);
 }
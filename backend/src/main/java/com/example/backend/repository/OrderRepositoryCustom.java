@@ -0,0 +1,17 @@
+package com.example.backend.repository;
+
+import com.example.backend.pagination.OrderCursor;
+import com.example.backend.repository.projection.OrderRow;
+import com.example.backend.request.admin.order.OrderSearchRequest;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+
+    // 条件に合う注文のキーセットページング（after が null の場合は先頭ページ）。作成日時の新しい順
+    List<OrderRow> findPageRows(OrderSearchRequest filter, OrderCursor after, int limit);
+
+    // 条件に合う注文をサーバー側カーソルで流す（エクスポート用。トランザクション内で読み切り、閉じること）
+    Stream<OrderRow> streamRows(OrderSearchRequest filter);
+}
@@ -0,0 +1,98 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.OrderEntity;
+import com.example.backend.entity.UserEntity;
+import com.example.backend.pagination.OrderCursor;
+import com.example.backend.repository.projection.OrderRow;
+import com.example.backend.request.admin.order.OrderSearchRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<OrderRow> findPageRows(OrderSearchRequest filter, OrderCursor after, int limit) {
+        return em.createQuery(buildQuery(filter, after))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<OrderRow> streamRows(OrderSearchRequest filter) {
+        // 結果はプロジェクションなので永続化コンテキストには何も載らず、件数が増えてもメモリは増えない
+        return em.createQuery(buildQuery(filter, null))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private CriteriaQuery<OrderRow> buildQuery(OrderSearchRequest filter, OrderCursor after) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderRow> cq = cb.createQuery(OrderRow.class);
+        Root<OrderEntity> root = cq.from(OrderEntity.class);
+        Join<OrderEntity, UserEntity> user = root.join("user");
+
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Integer> id = root.get("id");
+        Path<Integer> totalAmount = root.get("totalAmount");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.status() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.status()));
+        }
+        if (filter.userId() != null) {
+            predicates.add(cb.equal(root.get("user").get("id"), filter.userId()));
+        }
+        // 期間は [from 0:00, to 翌日 0:00)
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.from().atStartOfDay()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.to().plusDays(1).atStartOfDay()));
+        }
+        if (filter.minAmount() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(totalAmount, filter.minAmount()));
+        }
+        if (filter.maxAmount() != null) {
+            predicates.add(cb.lessThanOrEqualTo(totalAmount, filter.maxAmount()));
+        }
+
+        // (createdAt, id) がカーソルより古い行のみ。createdAt <= を重ねてインデックスの走査開始位置を決めさせる
+        if (after != null) {
+            predicates.add(cb.lessThanOrEqualTo(createdAt, after.createdAt()));
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, after.createdAt()),
+                    cb.lessThan(id, after.id())));
+        }
+
+        cq.select(cb.construct(OrderRow.class,
+                        id,
+                        user.get("id"),
+                        user.get("name"),
+                        totalAmount,
+                        root.get("status"),
+                        root.get("shippingAddress"),
+                        user.get("phone"),
+                        createdAt))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+        return cq;
+    }
+}
@@ -3,9 +3,35 @@ package com.example.backend.repository;
 import com.example.backend.entity.ProductCategoryEntity;
 import com.example.backend.entity.id.ProductCategoryId;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.ProductCategoryRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ProductCategoryRepository extends BaseRepository<ProductCategoryEntity, ProductCategoryId> {
 
+    @Query("SELECT pc.id.productId FROM ProductCategoryEntity pc WHERE pc.id.categoryId = :categoryId")
+    List<Integer> findProductIdsByCategoryId(@Param("categoryId") Integer categoryId);
+
+    // 未削除商品のカテゴリ（一覧用プロジェクション）
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductCategoryRow(pc.id.productId, pc.id.categoryId, c.name)
+            FROM ProductCategoryEntity pc JOIN pc.category c
+            WHERE c.isDeleted = false AND pc.product.isDeleted = false
+            ORDER BY pc.id.productId, pc.id.categoryId
+            """)
+    List<ProductCategoryRow> findRowsOfActiveProducts();
+
+    // 指定した商品のカテゴリ
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductCategoryRow(pc.id.productId, pc.id.categoryId, c.name)
+            FROM ProductCategoryEntity pc JOIN pc.category c
+            WHERE c.isDeleted = false AND pc.id.productId IN :productIds
+            ORDER BY pc.id.productId, pc.id.categoryId
+            """)
+    List<ProductCategoryRow> findRowsByProductIdIn(@Param("productIds") Collection<Integer> productIds);
 }
@@ -2,8 +2,81 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.ProductImageEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.ProductImageRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ProductImageRepository extends BaseRepository<ProductImageEntity, Integer> {
+
+    // 未削除商品の画像（一覧用プロジェクション）
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductImageRow(
+                i.product.id, i.id, i.imageUrl, i.sortOrder, i.width, i.height, i.thumbnailUrl, i.cardUrl, i.detailUrl)
+            FROM ProductImageEntity i
+            WHERE i.isDeleted = false AND i.product.isDeleted = false
+            ORDER BY i.product.id, i.sortOrder
+            """)
+    List<ProductImageRow> findRowsOfActiveProducts();
+
+    // 指定した商品の画像
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductImageRow(
+                i.product.id, i.id, i.imageUrl, i.sortOrder, i.width, i.height, i.thumbnailUrl, i.cardUrl, i.detailUrl)
+            FROM ProductImageEntity i
+            WHERE i.isDeleted = false AND i.product.id IN :productIds
+            ORDER BY i.product.id, i.sortOrder
+            """)
+    List<ProductImageRow> findRowsByProductIdIn(@Param("productIds") Collection<Integer> productIds);
+
+    // ファイルの参照数（内容アドレス方式では同じファイルを複数の行が共有する。削除済みの行は数えない）
+    long countByImageUrlAndIsDeletedFalse(String imageUrl);
+
+    // 同じファイルで縮小版が作成済みの画像
+    Optional<ProductImageEntity> findFirstByImageUrlAndThumbnailUrlIsNotNull(String imageUrl);
+
+    // 内容アドレス方式（/uploads/images/products/ab/cd/<hash>.ext）に移行していない画像
+    @Query("SELECT i.id FROM ProductImageEntity i WHERE i.imageUrl NOT LIKE '/uploads/images/products/__/__/%' ORDER BY i.id")
+    List<Integer> findIdsWithLegacyUrl();
+
+    // 参照中のファイルURL（元画像と縮小版）をバイト順で流す（孤立ファイル回収用）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = """
+            SELECT url FROM (
+                SELECT image_url AS url FROM product_images WHERE is_deleted = false
+                UNION SELECT thumbnail_url FROM product_images WHERE is_deleted = false
+                UNION SELECT card_url FROM product_images WHERE is_deleted = false
+                UNION SELECT detail_url FROM product_images WHERE is_deleted = false
+            ) referenced
+            WHERE url IS NOT NULL
+            ORDER BY url COLLATE "C"
+            """, nativeQuery = true)
+    Stream<String> streamReferencedUrls();
+
+    // 指定URLのうち参照中のもの（削除直前の再確認用）
+    @Query(value = """
+            SELECT image_url FROM product_images WHERE is_deleted = false AND image_url IN (:urls)
+            UNION SELECT thumbnail_url FROM product_images WHERE is_deleted = false AND thumbnail_url IN (:urls)
+            UNION SELECT card_url FROM product_images WHERE is_deleted = false AND card_url IN (:urls)
+            UNION SELECT detail_url FROM product_images WHERE is_deleted = false AND detail_url IN (:urls)
+            """, nativeQuery = true)
+    List<String> findReferencedUrls(@Param("urls") Collection<String> urls);
+
+    // 縮小版が未作成の画像（作成に失敗したものは除く）
+    @Query("""
+            SELECT i.id FROM ProductImageEntity i
+            WHERE i.isDeleted = false AND i.thumbnailUrl IS NULL AND i.renditionFailedAt IS NULL
+            ORDER BY i.id
+            """)
+    List<Integer> findIdsWithoutRenditions(Limit limit);
 }
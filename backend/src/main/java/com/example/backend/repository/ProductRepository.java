@@ -2,14 +2,20 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.ProductEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.repository.projection.ProductRow;
+import com.example.backend.repository.projection.ProductStockRow;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends BaseRepository<ProductEntity, Integer> {
+public interface ProductRepository extends BaseRepository<ProductEntity, Integer>, ProductRepositoryCustom {
     List<ProductEntity> findAllByIsDeletedFalse(Sort sort);
 
     Optional<ProductEntity> findByIdAndIsDeletedFalse(Integer id);
@@ -18,4 +24,44 @@ public interface ProductRepository extends BaseRepository<ProductEntity, Integer
 
     Optional<ProductEntity> findByIdAndIsDeletedFalseAndIsPublishedTrue(Integer id);
 
+    // 以下はレスポンス変換で辿る関連（画像・カテゴリ）をまとめて取得するフェッチプラン
+    // 一覧・詳細とも件数に関わらず1回のSQLで済む
+
+    @EntityGraph(attributePaths = {"productImages", "productCategories", "productCategories.category"})
+    List<ProductEntity> findWithDetailsByIsDeletedFalseAndIsPublishedTrue(Sort sort);
+
+    @EntityGraph(attributePaths = {"productImages", "productCategories", "productCategories.category"})
+    Optional<ProductEntity> findWithDetailsByIdAndIsDeletedFalse(Integer id);
+
+    @EntityGraph(attributePaths = {"productImages", "productCategories", "productCategories.category"})
+    Optional<ProductEntity> findWithDetailsByIdAndIsDeletedFalseAndIsPublishedTrue(Integer id);
+
+    @EntityGraph(attributePaths = {"productImages", "productCategories", "productCategories.category"})
+    List<ProductEntity> findWithDetailsByIdIn(Collection<Integer> ids);
+
+    // 以下は一覧用の読み取り専用プロジェクション（エンティティ化・スナップショット・プロキシを経由しない）
+
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductRow(
+                p.id, p.sku, p.name, p.description, p.price, p.stock, p.isPublished, p.createdAt, p.updatedAt)
+            FROM ProductEntity p
+            WHERE p.isDeleted = false
+            ORDER BY p.id
+            """)
+    List<ProductRow> findRowsByIsDeletedFalse();
+
+    // 在庫数（カートの一括操作で対象商品をまとめて確かめる）
+    @Query("SELECT new com.example.backend.repository.projection.ProductStockRow(p.id, p.stock) FROM ProductEntity p WHERE p.id IN :ids AND p.isDeleted = false")
+    List<ProductStockRow> findStocksByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // 指定した商品（削除済みも含む。注文一覧の1ページ分の明細が参照する商品を読む）
+    @Query("""
+            SELECT new com.example.backend.repository.projection.ProductRow(
+                p.id, p.sku, p.name, p.description, p.price, p.stock, p.isPublished, p.createdAt, p.updatedAt)
+            FROM ProductEntity p
+            WHERE p.id IN :ids
+            ORDER BY p.id
+            """)
+    List<ProductRow> findRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
 }
@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+import com.example.backend.enums.ProductSort;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    // 公開商品のキーセットページング（afterKey/afterId が null の場合は先頭ページ）
+    // IDのみを返し、関連の取得は findWithDetailsByIdIn で行う（2段階取得）
+    List<Integer> findPublishedPageIds(ProductSort sort, Comparable<?> afterKey, Integer afterId, int limit);
+}
@@ -0,0 +1,72 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.ProductEntity;
+import com.example.backend.enums.ProductSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // 名前はDBの既定の照合順序ではなくコードポイント順で比べる（メモリ上のカタログの並びと揃える）
+    private static final String NAME_COLLATION = "\"C\"";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Integer> findPublishedPageIds(ProductSort sort, Comparable<?> afterKey, Integer afterId, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+        Root<ProductEntity> root = cq.from(ProductEntity.class);
+
+        Expression<Comparable> key = sort == ProductSort.NAME
+                ? (Expression) ((HibernateCriteriaBuilder) cb).collate(root.get(sort.getProperty()), NAME_COLLATION)
+                : root.get(sort.getProperty());
+        Path<Integer> id = root.get("id");
+
+        // WHERE isDeleted = false AND isPublished = true
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isFalse(root.get("isDeleted")));
+        predicates.add(cb.isTrue(root.get("isPublished")));
+
+        // (key, id) がカーソルより後ろの行のみ
+        // ORだけではインデックスの範囲の開始位置にならないので、key の境界を先頭にANDで付ける
+        if (afterKey != null && afterId != null) {
+            Comparable cursorKey = afterKey;
+            if (sort.isAscending()) {
+                predicates.add(cb.greaterThanOrEqualTo(key, cursorKey));
+                predicates.add(cb.or(
+                        cb.greaterThan(key, cursorKey),
+                        cb.and(cb.equal(key, cursorKey), cb.greaterThan(id, afterId))));
+            } else {
+                predicates.add(cb.lessThanOrEqualTo(key, cursorKey));
+                predicates.add(cb.or(
+                        cb.lessThan(key, cursorKey),
+                        cb.and(cb.equal(key, cursorKey), cb.lessThan(id, afterId))));
+            }
+        }
+        cq.select(id).where(predicates.toArray(new Predicate[0]));
+
+        // ORDER BY key, id（複合インデックスと同じ並び）
+        if (sort.isAscending()) {
+            cq.orderBy(cb.asc(key), cb.asc(id));
+        } else {
+            cq.orderBy(cb.desc(key), cb.desc(id));
+        }
+
+        return em.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -2,8 +2,11 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.UserEntity;
 import com.example.backend.repository.base.BaseRepository;
+import com.example.backend.response.admin.user.UserResponse;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +16,14 @@ public interface UserRepository extends BaseRepository<UserEntity, Integer> {
     boolean existsByEmail(String email);
 
     boolean existsByEmailAndIsDeletedFalse(String email);
+
+    // 一覧用プロジェクション（レスポンスへ直接詰める）
+    @Query("""
+            SELECT new com.example.backend.response.admin.user.UserResponse(
+                u.id, u.name, u.email, u.phone, u.address, u.isDeleted, u.createdAt, u.updatedAt)
+            FROM UserEntity u
+            WHERE u.isDeleted = false
+            ORDER BY u.id
+            """)
+    List<UserResponse> findResponsesByIsDeletedFalse();
 }
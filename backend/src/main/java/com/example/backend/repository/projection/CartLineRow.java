@@ -0,0 +1,13 @@
+package com.example.backend.repository.projection;
+
+public record CartLineRow(
+        Integer id,
+        Integer quantity,
+        Integer productId,
+        String sku,
+        String name,
+        Integer price,
+        Integer stock,
+        String thumbnailUrl,
+        String imageUrl
+) {}
@@ -0,0 +1,9 @@
+package com.example.backend.repository.projection;
+
+public record OrderItemRow(
+        Integer orderId,
+        Integer id,
+        Integer quantity,
+        Integer price,
+        Integer productId
+) {}
@@ -0,0 +1,17 @@
+package com.example.backend.repository.projection;
+
+import com.example.backend.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+// 注文一覧用の読み取り専用行（ユーザー名・電話番号は結合して取得）
+public record OrderRow(
+        Integer id,
+        Integer userId,
+        String userName,
+        Integer totalAmount,
+        OrderStatus status,
+        String shippingAddress,
+        String phone,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,8 @@
+package com.example.backend.repository.projection;
+
+// ユーザーごとの注文の集計
+public record OrderSummaryRow(
+        Long orderCount,
+        Long totalSpent,
+        Long deliveredCount
+) {}
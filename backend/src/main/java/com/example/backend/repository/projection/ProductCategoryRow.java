@@ -0,0 +1,7 @@
+package com.example.backend.repository.projection;
+
+public record ProductCategoryRow(
+        Integer productId,
+        Integer categoryId,
+        String name
+) {}
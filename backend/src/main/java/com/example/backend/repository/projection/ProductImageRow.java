@@ -0,0 +1,13 @@
+package com.example.backend.repository.projection;
+
+public record ProductImageRow(
+        Integer productId,
+        Integer id,
+        String imageUrl,
+        Integer sortOrder,
+        Integer width,
+        Integer height,
+        String thumbnailUrl,
+        String cardUrl,
+        String detailUrl
+) {}
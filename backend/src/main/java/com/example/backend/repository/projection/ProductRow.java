@@ -0,0 +1,16 @@
+package com.example.backend.repository.projection;
+
+import java.time.LocalDateTime;
+
+// 商品一覧用の読み取り専用行（エンティティを経由せずJPQLのコンストラクタ式で直接作る）
+public record ProductRow(
+        Integer id,
+        String sku,
+        String name,
+        String description,
+        Integer price,
+        Integer stock,
+        boolean published,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {}
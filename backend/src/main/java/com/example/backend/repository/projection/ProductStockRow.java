@@ -0,0 +1,6 @@
+package com.example.backend.repository.projection;
+
+public record ProductStockRow(
+        Integer id,
+        Integer stock
+) {}
@@ -0,0 +1,15 @@
+package com.example.backend.repository.projection;
+
+import com.example.backend.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+// 注文履歴（User向け）の読み取り専用行（本人の注文なのでユーザー情報は持たない）
+public record UserOrderRow(
+        Integer id,
+        Integer userId,
+        Integer totalAmount,
+        OrderStatus status,
+        String shippingAddress,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,37 @@
+package com.example.backend.request.admin.order;
+
+import com.example.backend.enums.OrderStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// 管理画面の注文検索条件（未指定の条件は絞り込まない。期間は注文日の両端を含む）
+public record OrderSearchRequest(
+        String cursor,
+        Integer size,
+        OrderStatus status,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        Integer userId,
+        Integer minAmount,
+        Integer maxAmount
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    public int resolvedSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public void validate() {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("期間の開始日が終了日より後になっています");
+        }
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new IllegalArgumentException("金額の下限が上限を超えています");
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.backend.request.admin.product;
 
+// 既存画像は id、事前アップロード済みの画像は uploadId、それ以外は base64 を指定する
 public record ProductImageRequest(
+        Integer id,
+        String uploadId,
         String base64,
         Integer sortOrder
 ) {
@@ -0,0 +1,17 @@
+package com.example.backend.request.user.cart;
+
+import com.example.backend.enums.CartOperationType;
+
+import java.util.List;
+
+// カートへの操作をまとめて適用する（上から順に当て、最後の状態を1トランザクションで保存する）
+public record CartBatchRequest(List<Operation> operations) {
+
+    // REMOVE のとき quantity は不要
+    public record Operation(
+            CartOperationType type,
+            Integer productId,
+            Integer quantity
+    ) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.backend.request.user.order;
+
+public record OrderListRequest(
+        String cursor,
+        Integer size
+) {
+    public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SIZE = 50;
+
+    // 未指定・範囲外のページサイズは丸める
+    public int resolvedSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.request.user.product;
+
+import com.example.backend.enums.CategoryMatch;
+import com.example.backend.enums.PriceRange;
+import com.example.backend.enums.ProductSort;
+
+import java.util.List;
+
+public record ProductFilterRequest(
+        List<Integer> categoryIds,
+        CategoryMatch match,
+        Boolean inStock,
+        List<PriceRange> priceRanges,
+        ProductSort sort,
+        Integer page,
+        Integer size
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    public List<Integer> resolvedCategoryIds() {
+        return categoryIds != null ? categoryIds : List.of();
+    }
+
+    public CategoryMatch resolvedMatch() {
+        return match != null ? match : CategoryMatch.ALL;
+    }
+
+    public List<PriceRange> resolvedPriceRanges() {
+        return priceRanges != null ? priceRanges : List.of();
+    }
+
+    public ProductSort resolvedSort() {
+        return sort != null ? sort : ProductSort.NEWEST;
+    }
+
+    public int resolvedPage() {
+        return page == null || page < 0 ? 0 : page;
+    }
+
+    public int resolvedSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
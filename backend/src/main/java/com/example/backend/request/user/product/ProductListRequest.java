@@ -0,0 +1,24 @@
+package com.example.backend.request.user.product;
+
+import com.example.backend.enums.ProductSort;
+
+public record ProductListRequest(
+        String cursor,
+        Integer size,
+        ProductSort sort
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    // 未指定・範囲外のページサイズは丸める
+    public int resolvedSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public ProductSort resolvedSort() {
+        return sort != null ? sort : ProductSort.NEWEST;
+    }
+}
@@ -1,4 +1,21 @@
 package com.example.backend.request.user.product;
 
-public record ProductSearchRequest() {
+public record ProductSearchRequest(
+        String q,
+        Integer page,
+        Integer size
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    public int resolvedPage() {
+        return page == null || page < 0 ? 0 : page;
+    }
+
+    public int resolvedSize() {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
 }
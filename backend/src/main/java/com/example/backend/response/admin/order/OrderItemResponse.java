@@ -1,6 +1,7 @@
 package com.example.backend.response.admin.order;
 
 import com.example.backend.entity.OrderItemEntity;
+import com.example.backend.repository.projection.OrderItemRow;
 import com.example.backend.response.admin.product.ProductResponse;
 
 public record OrderItemResponse(
@@ -15,4 +16,12 @@ public record OrderItemResponse(
                 entity.getPrice(),
                 ProductResponse.fromEntity(entity.getProduct()));
     }
+
+    public static OrderItemResponse fromRow(OrderItemRow row, ProductResponse product) {
+        return new OrderItemResponse(
+                row.id(),
+                row.quantity(),
+                row.price(),
+                product);
+    }
 }
\ No newline at end of file
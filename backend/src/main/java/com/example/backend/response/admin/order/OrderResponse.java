@@ -3,10 +3,14 @@ package com.example.backend.response.admin.order;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.example.backend.entity.OrderEntity;
 import com.example.backend.entity.OrderItemEntity;
+import com.example.backend.repository.projection.OrderItemRow;
+import com.example.backend.repository.projection.OrderRow;
+import com.example.backend.response.admin.product.ProductResponse;
 
 public record OrderResponse(
         Integer id,
@@ -36,4 +40,27 @@ public record OrderResponse(
                 order.getCreatedAt(),
                 items);
     }
+
+    // プロジェクション行から組み立てる（明細は注文ID→明細ID順、商品は商品IDで引けるもの）
+    public static List<OrderResponse> fromRows(List<OrderRow> rows,
+                                               List<OrderItemRow> itemRows,
+                                               Map<Integer, ProductResponse> products) {
+        Map<Integer, List<OrderItemResponse>> itemsByOrder = itemRows.stream()
+                .collect(Collectors.groupingBy(OrderItemRow::orderId,
+                        Collectors.mapping(item -> OrderItemResponse.fromRow(item, products.get(item.productId())),
+                                Collectors.toList())));
+
+        return rows.stream()
+                .map(row -> new OrderResponse(
+                        row.id(),
+                        row.userId(),
+                        row.userName(),
+                        row.totalAmount(),
+                        row.status().name(),
+                        row.shippingAddress(),
+                        row.phone(),
+                        row.createdAt(),
+                        itemsByOrder.getOrDefault(row.id(), List.of())))
+                .toList();
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.backend.response.admin.product;
 
 import com.example.backend.entity.ProductCategoryEntity;
+import com.example.backend.repository.projection.ProductCategoryRow;
 
 public record ProductCategoryResponse(
         Integer id,
@@ -12,4 +13,11 @@ public record ProductCategoryResponse(
                 category.getCategory().getName()
         );
     }
+
+    public static ProductCategoryResponse fromRow(ProductCategoryRow row) {
+        return new ProductCategoryResponse(
+                row.categoryId(),
+                row.name()
+        );
+    }
 }
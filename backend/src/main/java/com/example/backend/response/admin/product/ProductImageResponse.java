@@ -1,18 +1,42 @@
 package com.example.backend.response.admin.product;
 
 import com.example.backend.entity.ProductImageEntity;
+import com.example.backend.repository.projection.ProductImageRow;
 import java.time.LocalDateTime;
 
 public record ProductImageResponse(
         Integer id,
         String imageUrl,
-        Integer sortOrder
+        Integer sortOrder,
+        Integer width,
+        Integer height,
+        String thumbnailUrl,
+        String cardUrl,
+        String detailUrl
 ) {
     public static ProductImageResponse fromEntity(ProductImageEntity image) {
         return new ProductImageResponse(
                 image.getId(),
                 image.getImageUrl(),
-                image.getSortOrder()
+                image.getSortOrder(),
+                image.getWidth(),
+                image.getHeight(),
+                image.getThumbnailUrl(),
+                image.getCardUrl(),
+                image.getDetailUrl()
+        );
+    }
+
+    public static ProductImageResponse fromRow(ProductImageRow row) {
+        return new ProductImageResponse(
+                row.id(),
+                row.imageUrl(),
+                row.sortOrder(),
+                row.width(),
+                row.height(),
+                row.thumbnailUrl(),
+                row.cardUrl(),
+                row.detailUrl()
         );
     }
 }
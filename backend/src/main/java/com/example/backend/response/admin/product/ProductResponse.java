@@ -2,9 +2,13 @@
 package com.example.backend.response.admin.product;
 
 import com.example.backend.entity.ProductEntity;
+import com.example.backend.repository.projection.ProductCategoryRow;
+import com.example.backend.repository.projection.ProductImageRow;
+import com.example.backend.repository.projection.ProductRow;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public record ProductResponse(
@@ -41,4 +45,31 @@ public record ProductResponse(
                         .map(ProductCategoryResponse::fromEntity)
                         .toList());
     }
+
+    // プロジェクション行から組み立てる（画像・カテゴリは商品ID→並び順で取得済みのもの）
+    public static List<ProductResponse> fromRows(List<ProductRow> rows,
+                                                 List<ProductImageRow> images,
+                                                 List<ProductCategoryRow> categories) {
+        Map<Integer, List<ProductImageResponse>> imagesByProduct = images.stream()
+                .collect(Collectors.groupingBy(ProductImageRow::productId,
+                        Collectors.mapping(ProductImageResponse::fromRow, Collectors.toList())));
+        Map<Integer, List<ProductCategoryResponse>> categoriesByProduct = categories.stream()
+                .collect(Collectors.groupingBy(ProductCategoryRow::productId,
+                        Collectors.mapping(ProductCategoryResponse::fromRow, Collectors.toList())));
+
+        return rows.stream()
+                .map(row -> new ProductResponse(
+                        row.id(),
+                        row.sku(),
+                        row.name(),
+                        row.description(),
+                        row.price(),
+                        row.stock(),
+                        row.published(),
+                        row.createdAt(),
+                        row.updatedAt(),
+                        imagesByProduct.getOrDefault(row.id(), List.of()),
+                        categoriesByProduct.getOrDefault(row.id(), List.of())))
+                .toList();
+    }
 }
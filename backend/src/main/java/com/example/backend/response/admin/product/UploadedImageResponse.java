@@ -0,0 +1,18 @@
+package com.example.backend.response.admin.product;
+
+import com.example.backend.service.image.ProductImageStorage;
+
+public record UploadedImageResponse(
+        String uploadId,
+        String imageUrl,
+        String contentHash
+) {
+    public static UploadedImageResponse fromStoredImage(ProductImageStorage.StoredImage image) {
+        String imageUrl = image.imageUrl();
+        return new UploadedImageResponse(
+                imageUrl.substring(imageUrl.lastIndexOf('/') + 1),
+                imageUrl,
+                image.contentHash()
+        );
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.backend.response.admin.stats;
+
+public record CatalogStatsResponse(
+        long version,
+        int productCount,
+        long hits,
+        long misses,
+        long rebuilds,
+        long lastRebuildMillis,
+        long averageRebuildMillis
+) {
+}
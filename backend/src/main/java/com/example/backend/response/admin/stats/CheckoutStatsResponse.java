@@ -0,0 +1,15 @@
+package com.example.backend.response.admin.stats;
+
+// 決済の処理件数とレイテンシ（mode：direct は注文ごとのトランザクション、group-commit はまとめてコミット）
+public record CheckoutStatsResponse(
+        String mode,
+        long orders,
+        long failures,
+        long averageLatencyMicros,
+        long maxLatencyMicros,
+        double ordersPerSecond,
+        long batches,
+        double averageBatchSize,
+        int queueDepth
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.backend.response.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageResponse<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasNext
+) {
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream()
+                .<R>map(mapper)
+                .toList();
+        return new CursorPageResponse<>(mapped, nextCursor, hasNext);
+    }
+}
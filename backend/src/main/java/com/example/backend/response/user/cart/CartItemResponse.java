@@ -1,20 +1,29 @@
 package com.example.backend.response.user.cart;
 
-import com.example.backend.entity.CartItemEntity;
-import com.example.backend.response.admin.product.ProductResponse;
+import com.example.backend.repository.projection.CartLineRow;
 
+// カート明細（カート表示に必要な商品情報だけを持つ）
 public record CartItemResponse(
         Integer id,
         Integer quantity,
-        ProductResponse product
-
+        Integer productId,
+        String sku,
+        String name,
+        Integer price,
+        Integer stock,
+        String imageUrl
 ) {
-    public static CartItemResponse fromEntity(CartItemEntity entity) {
+    public static CartItemResponse fromRow(CartLineRow row) {
         return new CartItemResponse(
-                entity.getId(),
-                entity.getQuantity(),
-                ProductResponse.fromEntity(entity.getProduct())
+                row.id(),
+                row.quantity(),
+                row.productId(),
+                row.sku(),
+                row.name(),
+                row.price(),
+                row.stock(),
+                // 縮小版が未作成なら元画像
+                row.thumbnailUrl() != null ? row.thumbnailUrl() : row.imageUrl()
         );
     }
 }
-
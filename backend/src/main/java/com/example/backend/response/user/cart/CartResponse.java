@@ -1,8 +1,7 @@
 package com.example.backend.response.user.cart;
 
-import com.example.backend.entity.CartEntity;
+import com.example.backend.repository.projection.CartLineRow;
 
-import java.util.Comparator;
 import java.util.List;
 
 public record CartResponse(
@@ -11,11 +10,12 @@ public record CartResponse(
         Integer totalQuantity,
         Integer totalPrice,
         List<CartItemResponse> cartItems) {
-    public static CartResponse fromEntity(CartEntity cart) {
 
-        List<CartItemResponse> cartItems = cart.getCartItems().stream()
-                .sorted(Comparator.comparing(item -> item.getId()))
-                .map(CartItemResponse::fromEntity)
+    // 明細はID順に並んでいる前提
+    public static CartResponse fromRows(Integer cartId, Integer userId, List<CartLineRow> rows) {
+
+        List<CartItemResponse> cartItems = rows.stream()
+                .map(CartItemResponse::fromRow)
                 .toList();
 
         int totalQuantity = cartItems.stream()
@@ -23,12 +23,12 @@ public record CartResponse(
                 .sum();
 
         int totalPrice = cartItems.stream()
-                .mapToInt(item -> item.product().price().intValue() * item.quantity())
+                .mapToInt(item -> item.price() * item.quantity())
                 .sum();
 
         return new CartResponse(
-                cart.getId(),
-                cart.getUser().getId(),
+                cartId,
+                userId,
                 totalQuantity,
                 totalPrice,
                 cartItems);
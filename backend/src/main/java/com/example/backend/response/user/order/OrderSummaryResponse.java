@@ -0,0 +1,13 @@
+package com.example.backend.response.user.order;
+
+import com.example.backend.repository.projection.OrderSummaryRow;
+
+// マイページ用の注文集計（注文数・累計金額・配達完了数）
+public record OrderSummaryResponse(
+        long orderCount,
+        long totalSpent,
+        long deliveredCount) {
+    public static OrderSummaryResponse fromRow(OrderSummaryRow row) {
+        return new OrderSummaryResponse(row.orderCount(), row.totalSpent(), row.deliveredCount());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend.response.user.product;
+
+import java.util.List;
+
+// 絞り込み条件ごとの該当件数
+public record ProductFacetResponse(
+        List<CategoryCount> categories,
+        List<PriceRangeCount> priceRanges,
+        int inStock
+) {
+    public record CategoryCount(Integer id, String name, int count) {
+    }
+
+    public record PriceRangeCount(String range, int count) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.backend.response.user.product;
+
+import java.util.List;
+
+public record ProductFilterResponse(
+        List<ProductResponse> items,
+        int total,
+        int page,
+        int size,
+        boolean hasNext,
+        ProductFacetResponse facets
+) {
+}
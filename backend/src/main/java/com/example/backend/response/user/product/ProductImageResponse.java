@@ -5,13 +5,23 @@ import com.example.backend.entity.ProductImageEntity;
 public record ProductImageResponse(
         Integer id,
         String imageUrl,
-        Integer sortOrder
+        Integer sortOrder,
+        Integer width,
+        Integer height,
+        String thumbnailUrl,
+        String cardUrl,
+        String detailUrl
 ) {
     public static ProductImageResponse fromEntity(ProductImageEntity image) {
         return new ProductImageResponse(
                 image.getId(),
                 image.getImageUrl(),
-                image.getSortOrder()
+                image.getSortOrder(),
+                image.getWidth(),
+                image.getHeight(),
+                image.getThumbnailUrl(),
+                image.getCardUrl(),
+                image.getDetailUrl()
         );
     }
 }
@@ -0,0 +1,12 @@
+package com.example.backend.response.user.product;
+
+import java.util.List;
+
+public record ProductSearchResponse(
+        List<ProductResponse> items,
+        int total,
+        int page,
+        int size,
+        boolean hasNext
+) {
+}
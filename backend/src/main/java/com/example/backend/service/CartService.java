@@ -1,131 +1,80 @@
 package com.example.backend.service;
 
-import com.example.backend.entity.CartEntity;
-import com.example.backend.entity.CartItemEntity;
-import com.example.backend.entity.ProductEntity;
-import com.example.backend.entity.UserEntity;
-import com.example.backend.repository.CartItemRepository;
-import com.example.backend.repository.CartRepository;
-import com.example.backend.repository.ProductRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.request.user.cart.CartBatchRequest;
+import com.example.backend.response.user.cart.CartResponse;
+import com.example.backend.response.user.cart.CartItemResponse;
+import com.example.backend.service.cart.CartStore;
+import com.example.backend.service.inventory.InventoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
-import java.util.Optional;
 
+// カート操作の窓口
+// 読み書き先は app.cart.storage で切り替える（database：DBへ直接、memory：メモリ上で処理してまとめてDBへ反映）
+// 在庫の仮押さえが有効なら、カートの数量に合わせて仮押さえも動かす
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final InventoryService inventoryService;
 
     // ID取得（isDeleted = false のみ）
-    public CartEntity findByUserId(Integer userId) {
-        return cartRepository.findByUserIdAndIsDeletedFalse(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
+    public CartResponse findByUserId(Integer userId) {
+        return cartStore.findByUserId(userId);
     }
 
     // カートアイテム数量を取得
     public int sumCartItemQuantitiesByUserId(Integer userId) {
-        CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
-
-        List<CartItemEntity> items = cartItemRepository.findByCartId(cart.getId());
-
-        return items.stream()
-                .mapToInt(CartItemEntity::getQuantity)
-                .sum();
+        return cartStore.sumCartItemQuantitiesByUserId(userId);
     }
 
-
     // カートアイテム追加
-    public CartEntity addItemToCart(Integer userId, Integer productId, Integer quantity) {
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        CartEntity cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    CartEntity newCart = new CartEntity();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
-
-        ProductEntity product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        // 既に同じ商品がカートにある場合は数量を加算
-        Optional<CartItemEntity> existingItemOpt = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
-        int currentQuantity = existingItemOpt.map(CartItemEntity::getQuantity).orElse(0);
-        int newTotalQuantity = currentQuantity + quantity;
-
-        // 在庫より多い場合はエラー
-        if (newTotalQuantity > product.getStock()) {
-            throw new IllegalArgumentException("指定された数量が在庫を超えています。現在の在庫: " + product.getStock());
-        }
-
-        if (existingItemOpt.isPresent()) {
-            CartItemEntity item = existingItemOpt.get();
-            item.setQuantity(newTotalQuantity);
-            cartItemRepository.save(item);
-        } else {
-            CartItemEntity item = new CartItemEntity();
-            item.setCart(cart);
-            item.setProduct(product);
-            item.setQuantity(quantity);
-            cartItemRepository.save(item);
+    public CartResponse addItemToCart(Integer userId, Integer productId, Integer quantity) {
+        int previous = inventoryService.holdAdded(userId, productId, quantity);
+        try {
+            return cartStore.addItemToCart(userId, productId, quantity);
+        } catch (RuntimeException e) {
+            inventoryService.holdSet(userId, productId, previous);
+            throw e;
         }
-
-        // カートを再取得して返す（最新状態）
-        return cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found after update"));
     }
 
-
     // カートアイテムの数量を更新する
-    public CartEntity updateItemQuantity(Integer userId, Integer productId, Integer newQuantity) {
-        if (newQuantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be greater than 0");
+    public CartResponse updateItemQuantity(Integer userId, Integer productId, Integer newQuantity) {
+        int previous = inventoryService.holdSet(userId, productId, newQuantity);
+        try {
+            return cartStore.updateItemQuantity(userId, productId, newQuantity);
+        } catch (RuntimeException e) {
+            inventoryService.holdSet(userId, productId, previous);
+            throw e;
         }
-
-        CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        CartItemEntity item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-
-        ProductEntity product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        // 在庫チェック
-        if (newQuantity > product.getStock()) {
-            throw new IllegalArgumentException("指定された数量が在庫を超えています。現在の在庫: " + product.getStock());
-        }
-
-        item.setQuantity(newQuantity);
-        cartItemRepository.save(item);
-
-        return cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found after update"));
     }
 
     // カートアイテムの物理削除
-    public CartEntity removeItemFromCart(Integer userId, Integer productId) {
-        CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        CartItemEntity item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-
-        cartItemRepository.delete(item);
-
-        return cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found after item deletion"));
+    public CartResponse removeItemFromCart(Integer userId, Integer productId) {
+        CartResponse response = cartStore.removeItemFromCart(userId, productId);
+        inventoryService.release(userId, productId);
+        return response;
     }
 
+    // カートへの操作をまとめて適用する
+    public CartResponse applyBatch(Integer userId, CartBatchRequest request) {
+        CartResponse response = cartStore.applyBatch(userId, request);
+        // 一括操作は結果の数量に仮押さえを合わせるだけにする（押さえきれなければ決済時に引き当てる）
+        request.operations().stream()
+                .map(CartBatchRequest.Operation::productId)
+                .distinct()
+                .forEach(productId -> {
+                    int quantity = response.cartItems().stream()
+                            .filter(item -> item.productId().equals(productId))
+                            .mapToInt(CartItemResponse::quantity)
+                            .sum();
+                    try {
+                        inventoryService.holdSet(userId, productId, quantity);
+                    } catch (IllegalArgumentException e) {
+                        inventoryService.release(userId, productId);
+                    }
+                });
+        return response;
+    }
 }
@@ -1,9 +1,11 @@
 package com.example.backend.service;
 
 import com.example.backend.entity.CategoryEntity;
+import com.example.backend.event.CategoryChangedEvent;
 import com.example.backend.repository.CategoryRepository;
+import com.example.backend.response.admin.category.CategoryResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,10 +17,12 @@ import java.util.List;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    // 全取得（isDeleted = false のみ）
-    public List<CategoryEntity> findAll() {
-        return categoryRepository.findAllByIsDeletedFalse(Sort.by("id"));
+    // 全取得（isDeleted = false のみ、レスポンスへ直接射影する）
+    @Transactional(readOnly = true)
+    public List<CategoryResponse> findAll() {
+        return categoryRepository.findResponsesByIsDeletedFalse();
     }
 
     // ID取得（isDeleted = false のみ）
@@ -38,7 +42,9 @@ public class CategoryService {
             throw new RuntimeException("Category not found with id: " + id);
         }
         category.setId(id);  // id をセットして更新対象を明示
-        return categoryRepository.save(category);
+        CategoryEntity saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return saved;
     }
 
     // 論理削除
@@ -47,6 +53,7 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
         category.setIsDeleted(true);
         categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
 }
@@ -1,11 +1,24 @@
 package com.example.backend.service;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.example.backend.pagination.OrderCursor;
+import com.example.backend.repository.projection.OrderItemRow;
+import com.example.backend.repository.projection.OrderRow;
+import com.example.backend.repository.projection.UserOrderRow;
 import com.example.backend.request.user.order.OrderCreateRequest;
-import org.springframework.data.domain.Sort;
+import com.example.backend.request.user.order.OrderListRequest;
+import com.example.backend.response.common.CursorPageResponse;
+import com.example.backend.response.user.order.OrderSummaryResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,10 +31,18 @@ import com.example.backend.entity.UserEntity;
 import com.example.backend.enums.OrderStatus;
 import com.example.backend.repository.CartItemRepository;
 import com.example.backend.repository.CartRepository;
+import com.example.backend.repository.OrderItemRepository;
 import com.example.backend.repository.OrderRepository;
+import com.example.backend.repository.ProductCategoryRepository;
+import com.example.backend.repository.ProductImageRepository;
+import com.example.backend.repository.ProductRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.request.admin.order.OrderRequest;
+import com.example.backend.request.admin.order.OrderSearchRequest;
+import com.example.backend.response.admin.product.ProductResponse;
 import com.example.backend.response.user.order.OrderResponse;
+import com.example.backend.service.cart.CartStore;
+import com.example.backend.service.inventory.InventoryService;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -34,18 +55,104 @@ public class OrderService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final CartStore cartStore;
+    private final InventoryService inventoryService;
+    private final ProductCatalogService productCatalogService;
 
-    // 全件取得
-    public List<OrderEntity> findAll() {
-        return orderRepository.findAll(Sort.by("createdAt").descending());
+    // 注文一覧（Admin用、条件付きキーセット方式）
+    // 注文・明細・商品（画像・カテゴリ）をそれぞれプロジェクションで読み、エンティティを作らずに組み立てる
+    // 明細と商品はそのページの注文が参照する分だけを読む
+    @Transactional(readOnly = true)
+    public CursorPageResponse<com.example.backend.response.admin.order.OrderResponse> findPage(OrderSearchRequest request) {
+        request.validate();
+        int size = request.resolvedSize();
+
+        List<OrderRow> rows = orderRepository.findPageRows(request, OrderCursor.decode(request.cursor()), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<OrderRow> pageRows = hasNext ? rows.subList(0, size) : rows;
+        if (pageRows.isEmpty()) {
+            return new CursorPageResponse<>(List.of(), null, false);
+        }
+
+        List<OrderItemRow> itemRows = orderItemRepository.findRowsByOrderIdIn(
+                pageRows.stream().map(OrderRow::id).toList());
+        Set<Integer> productIds = itemRows.stream()
+                .map(OrderItemRow::productId)
+                .collect(Collectors.toSet());
+        Map<Integer, ProductResponse> products = productIds.isEmpty()
+                ? Map.of()
+                : ProductResponse.fromRows(
+                                productRepository.findRowsByIdIn(productIds),
+                                productImageRepository.findRowsByProductIdIn(productIds),
+                                productCategoryRepository.findRowsByProductIdIn(productIds))
+                        .stream()
+                        .collect(Collectors.toMap(ProductResponse::id, Function.identity()));
+
+        String nextCursor = null;
+        if (hasNext) {
+            OrderRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new OrderCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPageResponse<>(
+                com.example.backend.response.admin.order.OrderResponse.fromRows(pageRows, itemRows, products),
+                nextCursor,
+                hasNext);
     }
 
-    // ユーザーごと注文一覧
-    public List<OrderEntity> findOrdersByUserId(Integer userId) {
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return orderRepository.findByUserOrderByCreatedAtDesc(user);
+    // ユーザーごと注文一覧（キーセット方式）
+    // 注文1ページ分と、その明細をそれぞれ1回のクエリで読む。商品はカタログスナップショットから引き、
+    // 非公開・削除済みで載っていない商品だけをDBから補う
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderResponse> findOrderPageByUserId(Integer userId, OrderListRequest request) {
+        int size = request.resolvedSize();
+        OrderCursor after = OrderCursor.decode(request.cursor());
+
+        // 1件多く取得して次ページの有無を判定する
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<UserOrderRow> rows = after == null
+                ? orderRepository.findPageRowsByUserId(userId, limit)
+                : orderRepository.findPageRowsByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        boolean hasNext = rows.size() > size;
+        List<UserOrderRow> pageRows = hasNext ? rows.subList(0, size) : rows;
+        if (pageRows.isEmpty()) {
+            return new CursorPageResponse<>(List.of(), null, false);
+        }
+
+        List<OrderItemRow> itemRows = orderItemRepository.findRowsByOrderIdIn(
+                pageRows.stream().map(UserOrderRow::id).toList());
+        Map<Integer, com.example.backend.response.user.product.ProductResponse> products = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (OrderItemRow item : itemRows) {
+            com.example.backend.response.user.product.ProductResponse product =
+                    productCatalogService.findSummary(item.productId());
+            if (product != null) {
+                products.put(item.productId(), product);
+            } else {
+                missing.add(item.productId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            productRepository.findWithDetailsByIdIn(missing).forEach(product ->
+                    products.put(product.getId(), com.example.backend.response.user.product.ProductResponse.fromEntity(product)));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            UserOrderRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new OrderCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPageResponse<>(OrderResponse.fromRows(pageRows, itemRows, products), nextCursor, hasNext);
+    }
+
+    // マイページ用の注文集計
+    @Transactional(readOnly = true)
+    public OrderSummaryResponse summarizeByUserId(Integer userId) {
+        return OrderSummaryResponse.fromRow(orderRepository.summarizeByUserId(userId));
     }
 
     // 注文詳細（User用）
@@ -66,7 +173,8 @@ public class OrderService {
 
     // 決済
     public OrderResponse createOrderFromCart(Integer userId, OrderCreateRequest request) {
-        // 1. カート取得
+        // 1. カート取得（メモリ上のカートを使う場合は先にDBへ書き出す）
+        cartStore.flush(userId);
         CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
 
@@ -115,11 +223,17 @@ public class OrderService {
         }
         order.setOrderItems(orderItems);
 
+        // 在庫の引き当て（上のチェックは読み取り時点の値なので、ここで条件付きUPDATEにより確定させる）
+        inventoryService.decrement(userId, cartItems.stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemEntity::getQuantity, Integer::sum)));
+
         // 7. Order保存（cascadeでOrderItemも保存される）
         orderRepository.save(order);
 
         // 8. カート内アイテム削除（物理削除）
         cartItemRepository.deleteAll(cartItems);
+        cartStore.cleared(userId, cartItems.stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemEntity::getQuantity, Integer::sum)));
 
         // 9. OrderResponse作成して返す
         return OrderResponse.fromEntity(order);
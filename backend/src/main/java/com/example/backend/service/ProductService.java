@@ -1,14 +1,13 @@
 package com.example.backend.service;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.apache.tomcat.util.codec.binary.Base64;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,9 +15,20 @@ import com.example.backend.entity.CategoryEntity;
 import com.example.backend.entity.ProductCategoryEntity;
 import com.example.backend.entity.ProductEntity;
 import com.example.backend.entity.ProductImageEntity;
+import com.example.backend.enums.ProductSort;
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.event.ProductImagesAddedEvent;
+import com.example.backend.pagination.ProductCursor;
+import com.example.backend.repository.ProductCategoryRepository;
+import com.example.backend.repository.ProductImageRepository;
 import com.example.backend.repository.ProductRepository;
 import com.example.backend.request.admin.product.ProductImageRequest;
 import com.example.backend.request.admin.product.ProductRequest;
+import com.example.backend.request.user.product.ProductListRequest;
+import com.example.backend.response.admin.product.ProductResponse;
+import com.example.backend.response.common.CursorPageResponse;
+import com.example.backend.service.image.ProductImageStorage;
+import com.example.backend.service.inventory.InventoryService;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
@@ -29,33 +39,66 @@ import lombok.RequiredArgsConstructor;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductCategoryRepository productCategoryRepository;
     private final EntityManager entityManager;
-
-    private final String uploadDir = "uploads/images/products";
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductImageStorage productImageStorage;
+    private final InventoryService inventoryService;
 
     // 全取得
     // Admin向け：削除済みは表示しない（isDeleted = false のみ）
-    public List<ProductEntity> findAllForAdmin() {
-        return productRepository.findAllByIsDeletedFalse(Sort.by("id"));
+    // 商品・画像・カテゴリを別々のプロジェクションで読み、エンティティを作らずにレスポンスを組み立てる
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findAllForAdmin() {
+        return ProductResponse.fromRows(
+                productRepository.findRowsByIsDeletedFalse(),
+                productImageRepository.findRowsOfActiveProducts(),
+                productCategoryRepository.findRowsOfActiveProducts());
     }
 
-    // 全取得
+    // ページ取得（キーセット方式）
     // User向け：削除済みと下書きは表示しない（isDeleted = false かつ isPublished = true）
-    public List<ProductEntity> findAllForUser() {
-        return productRepository.findAllByIsDeletedFalseAndIsPublishedTrue(Sort.by("id"));
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductEntity> findPageForUser(ProductListRequest request) {
+        ProductSort sort = request.resolvedSort();
+        int size = request.resolvedSize();
+
+        ProductCursor after = ProductCursor.decode(request.cursor(), sort);
+        Comparable<?> afterKey = after != null ? after.key() : null;
+        Integer afterId = after != null ? after.id() : null;
+
+        // 1件多く取得して次ページの有無を判定する
+        List<Integer> ids = productRepository.findPublishedPageIds(sort, afterKey, afterId, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Integer> pageIds = hasNext ? ids.subList(0, size) : ids;
+
+        // ページ分のIDで関連ごと取得し、キーセットの並びに戻す
+        Map<Integer, ProductEntity> productsById = productRepository.findWithDetailsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+        List<ProductEntity> items = pageIds.stream()
+                .map(productsById::get)
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductEntity last = items.get(items.size() - 1);
+            nextCursor = ProductCursor.of(sort, last.getId(), last.getCreatedAt(), last.getPrice(), last.getName()).encode();
+        }
+        return new CursorPageResponse<>(items, nextCursor, hasNext);
     }
 
     // ID取得
     // Admin向け：削除済みは表示しない（isDeleted = false のみ）
     public ProductEntity findByIdForAdmin(Integer id) {
-        return productRepository.findByIdAndIsDeletedFalse(id)
+        return productRepository.findWithDetailsByIdAndIsDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
     // ID取得
     // User向け：削除済みと下書きは表示しない（isDeleted = false かつ isPublished = true）
     public ProductEntity findByIdForUser(Integer id) {
-        return productRepository.findByIdAndIsDeletedFalseAndIsPublishedTrue(id)
+        return productRepository.findWithDetailsByIdAndIsDeletedFalseAndIsPublishedTrue(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
@@ -70,145 +113,90 @@ public class ProductService {
         product.setPublished(request.isPublished());
 
         // カテゴリとの中間テーブルの設定
-        Set<ProductCategoryEntity> productCategories = request.categoryIds().stream()
-                .map(categoryId -> {
-                    CategoryEntity category = entityManager.getReference(CategoryEntity.class, categoryId);
-                    ProductCategoryEntity pc = new ProductCategoryEntity();
-                    pc.setProduct(product);
-                    pc.setCategory(category);
-                    return pc;
-                })
-                .collect(Collectors.toSet());
-        product.setProductCategories(productCategories);
+        request.categoryIds().forEach(categoryId -> product.getProductCategories().add(newProductCategory(product, categoryId)));
 
         // 画像の設定
-        try {
-            File uploadFolder = new File(uploadDir);
-            if (!uploadFolder.exists()) {
-                uploadFolder.mkdirs();
+        for (ProductImageRequest imageData : request.images()) {
+            ProductImageStorage.StoredImage stored = storeImage(imageData);
+            if (stored != null) {
+                product.getProductImages().add(newProductImage(product, stored, imageData.sortOrder()));
             }
-
-            Set<ProductImageEntity> productImages = new HashSet<>();
-            int index = 0;
-
-            for (ProductImageRequest imageData : request.images()) {
-                String base64Data = imageData.base64();
-                String[] parts = base64Data.split(",");
-                String base64Image = parts.length > 1 ? parts[1] : parts[0];
-
-                byte[] imageBytes = Base64.decodeBase64(base64Image);
-                String extension = getExtensionFromBase64(parts[0]);
-                String fileName = System.currentTimeMillis() + "_" + (index + 1) + extension;
-
-                File file = new File(uploadFolder, fileName);
-                try (FileOutputStream fos = new FileOutputStream(file)) {
-                    fos.write(imageBytes);
-                }
-
-                String imageUrl = "/uploads/images/products/" + fileName;
-
-                ProductImageEntity pi = new ProductImageEntity();
-                pi.setProduct(product);
-                pi.setImageUrl(imageUrl);
-                pi.setSortOrder(imageData.sortOrder());
-                productImages.add(pi);
-
-                index++;
-            }
-
-            product.setProductImages(productImages);
-
-            return productRepository.save(product);
-
-        } catch (Exception e) {
-            throw new RuntimeException("画像保存中にエラーが発生しました", e);
         }
 
+        ProductEntity saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        publishImagesAdded(saved, Set.of());
+        return saved;
     }
 
     // 更新
+    // カテゴリ・画像は差分だけを反映する（変更のない行とファイルには触れない）
     public ProductEntity update(Integer id, ProductRequest request) {
-        ProductEntity product = productRepository.findByIdAndIsDeletedFalse(id)
+        ProductEntity product = productRepository.findWithDetailsByIdAndIsDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         product.setSku(request.sku());
         product.setName(request.name());
         product.setPrice(request.price());
         product.setDescription(request.description());
-        product.setStock(request.stock());
         product.setPublished(request.isPublished());
-
-        // --- 1. 古い画像ファイルを削除 ---
-        for (ProductImageEntity image : product.getProductImages()) {
-            String imageUrl = image.getImageUrl();
-            if (imageUrl != null && !imageUrl.isBlank()) {
-                String relativePath = imageUrl.startsWith("/") ? imageUrl.substring(1) : imageUrl;
-                File file = new File(relativePath);
-                if (file.exists()) {
-                    file.delete();
-                }
-            }
+        if (!product.getStock().equals(request.stock())) {
+            product.setStock(inventoryService.adjust(id, request.stock() - product.getStock()));
         }
 
-        // --- 2. 古い関連データの削除と即時flush ---
-        product.getProductCategories().clear();
-        product.getProductImages().clear();
-        entityManager.flush();
-
-        // --- 3. カテゴリ再設定 ---
-        Set<ProductCategoryEntity> productCategories = request.categoryIds().stream()
-                .map(categoryId -> {
-                    CategoryEntity category = entityManager.getReference(CategoryEntity.class, categoryId);
-                    ProductCategoryEntity pc = new ProductCategoryEntity();
-                    pc.setProduct(product);
-                    pc.setCategory(category);
-                    return pc;
-                })
-                .collect(Collectors.toSet());
-        product.getProductCategories().addAll(productCategories);
+        // --- 1. カテゴリ：外されたものを削除し、足りないものだけ追加 ---
+        Set<Integer> categoryIds = new HashSet<>(request.categoryIds());
+        product.getProductCategories().removeIf(pc -> !categoryIds.contains(pc.getId().getCategoryId()));
+        product.getProductCategories().forEach(pc -> categoryIds.remove(pc.getId().getCategoryId()));
+        categoryIds.forEach(categoryId -> product.getProductCategories().add(newProductCategory(product, categoryId)));
 
-        // --- 4. 新しい画像を保存 ---
-        File uploadFolder = new File(uploadDir);
-        if (!uploadFolder.exists()) {
-            uploadFolder.mkdirs();
-        }
-
-        Set<ProductImageEntity> productImages = request.images().stream()
-                .filter(image -> image.base64() != null && !image.base64().isBlank())
-                .map(image -> {
-                    ProductImageEntity pi = new ProductImageEntity();
-                    pi.setProduct(product);
-                    pi.setSortOrder(image.sortOrder());
-
-                    try {
-                        String[] parts = image.base64().split(",");
-                        String base64Image = parts.length > 1 ? parts[1] : parts[0];
-                        byte[] imageBytes = Base64.decodeBase64(base64Image);
-
-                        String extension = getExtensionFromBase64(parts[0]);
-                        String fileName = System.currentTimeMillis() + "_" + image.sortOrder() + extension;
-                        File file = new File(uploadFolder, fileName);
-                        try (FileOutputStream fos = new FileOutputStream(file)) {
-                            fos.write(imageBytes);
-                        }
-                        String imageUrl = "/" + uploadDir + "/" + fileName;
-                        pi.setImageUrl(imageUrl);
-                    } catch (Exception e) {
-                        throw new RuntimeException("画像の保存に失敗しました", e);
-                    }
-
-                    return pi;
-                })
+        // --- 2. 画像：IDまたは内容のハッシュで既存画像と対応づける ---
+        Set<Integer> existingImageIds = product.getProductImages().stream()
+                .map(ProductImageEntity::getId)
                 .collect(Collectors.toSet());
+        Map<Integer, ProductImageEntity> unmatched = product.getProductImages().stream()
+                .filter(image -> !image.getIsDeleted())
+                .collect(Collectors.toMap(ProductImageEntity::getId, Function.identity()));
+
+        for (ProductImageRequest imageData : request.images()) {
+            ProductImageEntity existing = imageData.id() != null ? unmatched.remove(imageData.id()) : null;
+            if (existing == null) {
+                ProductImageStorage.StoredImage stored = storeImage(imageData);
+                if (stored == null) {
+                    continue;
+                }
+                existing = unmatched.values().stream()
+                        .filter(image -> stored.contentHash().equals(image.getContentHash()))
+                        .findFirst()
+                        .orElse(null);
+                if (existing == null) {
+                    product.getProductImages().add(newProductImage(product, stored, imageData.sortOrder()));
+                    continue;
+                }
+                // 既存画像と同じ内容なら、保存したファイルは使わない
+                productImageStorage.discard(stored);
+                unmatched.remove(existing.getId());
+            }
+            if (existing != null && !existing.getSortOrder().equals(imageData.sortOrder())) {
+                existing.setSortOrder(imageData.sortOrder());
+            }
+        }
 
-        product.getProductImages().addAll(productImages);
+        // --- 3. 対応づかなかった既存画像を削除（ファイルはコミット後、どこからも参照されていなければ縮小版ごと消す） ---
+        product.getProductImages().removeAll(unmatched.values());
+        productImageStorage.releaseAfterCommit(unmatched.values().stream()
+                .map(ProductImageEntity::getImageUrl)
+                .toList());
 
-        return productRepository.save(product);
+        ProductEntity saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        publishImagesAdded(saved, existingImageIds);
+        return saved;
     }
 
     // 論理削除
     public void delete(Integer id) {
-        ProductEntity product = productRepository.findByIdAndIsDeletedFalse(id)
+        ProductEntity product = productRepository.findWithDetailsByIdAndIsDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         // Product自体の論理削除
@@ -219,26 +207,53 @@ public class ProductService {
 
         // 必要ならProductImageも論理削除（isDeletedフィールドがある場合）
         product.getProductImages().forEach(pi -> pi.setIsDeleted(true));
+        // 画像ファイルはコミット後、ほかの商品から参照されていなければ縮小版ごと消す
+        productImageStorage.releaseAfterCommit(product.getProductImages().stream()
+                .map(ProductImageEntity::getImageUrl)
+                .toList());
 
         // 変更内容をDBに保存（トランザクション内なので必須ではないが明示的に）
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+    }
+
+    private ProductCategoryEntity newProductCategory(ProductEntity product, Integer categoryId) {
+        ProductCategoryEntity pc = new ProductCategoryEntity();
+        pc.setProduct(product);
+        pc.setCategory(entityManager.getReference(CategoryEntity.class, categoryId));
+        return pc;
+    }
+
+    // 追加された画像の縮小版作成を依頼する（作成はコミット後にバックグラウンドで行う）
+    private void publishImagesAdded(ProductEntity product, Set<Integer> existingImageIds) {
+        List<Integer> imageIds = product.getProductImages().stream()
+                .map(ProductImageEntity::getId)
+                .filter(imageId -> !existingImageIds.contains(imageId))
+                .toList();
+        if (!imageIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductImagesAddedEvent(product.getId(), imageIds));
+        }
+    }
+
+    // 事前アップロード済みなら参照し、Base64ならストリームでデコードして保存する
+    private ProductImageStorage.StoredImage storeImage(ProductImageRequest imageData) {
+        if (imageData.uploadId() != null && !imageData.uploadId().isBlank()) {
+            return productImageStorage.resolveUpload(imageData.uploadId());
+        }
+        if (imageData.base64() != null && !imageData.base64().isBlank()) {
+            return productImageStorage.storeBase64(imageData.base64());
+        }
+        return null;
     }
 
-    // Base64から拡張子を取得するヘルパーメソッド
-    private String getExtensionFromBase64(String header) {
-        if (header == null)
-            return ".png"; // デフォルト
-
-        if (header.contains("image/jpeg"))
-            return ".jpg";
-        else if (header.contains("image/png"))
-            return ".png";
-        else if (header.contains("image/gif"))
-            return ".gif";
-        else if (header.contains("image/webp"))
-            return ".webp";
-        else
-            return ".png"; // その他はpngにするなど適宜対応
+    private ProductImageEntity newProductImage(ProductEntity product, ProductImageStorage.StoredImage image,
+                                               Integer sortOrder) {
+        ProductImageEntity pi = new ProductImageEntity();
+        pi.setProduct(product);
+        pi.setImageUrl(image.imageUrl());
+        pi.setContentHash(image.contentHash());
+        pi.setSortOrder(sortOrder);
+        return pi;
     }
 
 }
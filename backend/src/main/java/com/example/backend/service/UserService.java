@@ -3,9 +3,9 @@ package com.example.backend.service;
 import com.example.backend.entity.AdminEntity;
 import com.example.backend.entity.UserEntity;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.response.admin.user.UserResponse;
 import com.example.backend.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,9 +19,10 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    // 全取得（isDeleted = false のみ）
-    public List<UserEntity> findAll() {
-        return userRepository.findAllByIsDeletedFalse(Sort.by("id"));
+    // 全取得（isDeleted = false のみ、レスポンスへ直接射影する）
+    @Transactional(readOnly = true)
+    public List<UserResponse> findAll() {
+        return userRepository.findResponsesByIsDeletedFalse();
     }
 
     // ID取得（isDeleted = false のみ）
@@ -0,0 +1,70 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.enums.CartOperationType;
+import com.example.backend.request.user.cart.CartBatchRequest;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// カート一括操作の検証と、操作を順に当てた結果の計算（保存先によらず共通）
+final class CartBatch {
+
+    private CartBatch() {
+    }
+
+    // 操作の形式を確かめ、対象の商品IDを返す
+    static Set<Integer> validate(CartBatchRequest request) {
+        if (request == null || request.operations() == null || request.operations().isEmpty()) {
+            throw new IllegalArgumentException("カートへの操作を指定してください");
+        }
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (CartBatchRequest.Operation operation : request.operations()) {
+            if (operation.type() == null || operation.productId() == null) {
+                throw new IllegalArgumentException("操作の種類と商品IDを指定してください");
+            }
+            if (operation.type() != CartOperationType.REMOVE
+                    && (operation.quantity() == null || operation.quantity() <= 0)) {
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            }
+            productIds.add(operation.productId());
+        }
+        return productIds;
+    }
+
+    // 現在の数量に操作を順に当てた、商品ごとの最終的な数量（0は削除）
+    static Map<Integer, Integer> apply(Map<Integer, Integer> current, List<CartBatchRequest.Operation> operations) {
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            Integer productId = operation.productId();
+            int quantity = result.containsKey(productId)
+                    ? result.get(productId)
+                    : current.getOrDefault(productId, 0);
+            result.put(productId, switch (operation.type()) {
+                case ADD -> quantity + operation.quantity();
+                case SET -> operation.quantity();
+                case REMOVE -> 0;
+            });
+        }
+        return result;
+    }
+
+    // 在庫を超える商品があれば、最初の1件でエラーにする（在庫が null の商品は存在しない）
+    static void checkStock(Map<Integer, Integer> result, Map<Integer, Integer> stocks) {
+        result.forEach((productId, quantity) -> {
+            if (quantity == 0) {
+                return;
+            }
+            Integer stock = stocks.get(productId);
+            if (stock == null) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
+            if (quantity > stock) {
+                throw new IllegalArgumentException("指定された数量が在庫を超えています。商品ID: " + productId
+                        + " 現在の在庫: " + stock);
+            }
+        });
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.backend.service.cart;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// メモリ上のカートの変更を記録する追記専用ジャーナル（セグメント単位のファイル）
+// 記録は変更後の数量（絶対値）なので、同じ記録を何度当て直しても結果は変わらない
+//   S <userId> <productId> <quantity>  明細の数量を設定
+//   D <userId> <productId>             明細を削除
+// フラッシュ開始時に新しいセグメントへ切り替え、DBへの反映が済んだら古いセグメントを消す
+// 書き込みは専用のスレッド1本で行い、その時点で溜まっている記録をまとめて書いて同期は1回で済ませる
+@Slf4j
+final class CartJournal implements AutoCloseable {
+
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d{16})\\.log");
+
+    sealed interface Record permits SetQuantity, RemoveItem {
+        Integer userId();
+    }
+
+    record SetQuantity(Integer userId, Integer productId, int quantity) implements Record {
+    }
+
+    record RemoveItem(Integer userId, Integer productId) implements Record {
+    }
+
+    // 書き込み待ちの記録（done はディスクへの同期が済んだら完了する）
+    private record Pending(byte[] bytes, CompletableFuture<Void> done) {
+    }
+
+    private static final Pending STOP = new Pending(new byte[0], null);
+
+    private final Path directory;
+    // セグメントの切り替えと書き込みを排他する
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private long sequence;
+    private FileChannel channel;
+
+    CartJournal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Long> existing = sequences();
+        this.sequence = existing.isEmpty() ? 0 : existing.get(existing.size() - 1);
+        this.writer = Thread.ofPlatform().name("cart-journal-writer").daemon().start(this::run);
+    }
+
+    // 起動時に残っていたセグメントの記録（古い順）
+    List<Record> readAll() {
+        List<Record> records = new ArrayList<>();
+        for (long seq : sequences()) {
+            Path segment = segment(seq);
+            try {
+                for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                    Record record = parse(line);
+                    if (record != null) {
+                        records.add(record);
+                    } else if (!line.isBlank()) {
+                        // 書き込み途中で止まった末尾の行
+                        log.warn("Skipping malformed cart journal line in {}: {}", segment, line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return records;
+    }
+
+    // 記録を書き込み待ちに積む（I/Oはしない）。ディスクへの同期が済んだら返した Future が完了する
+    // 積んだ順に書くので、同じカートの記録は呼び出し元で排他して積めばその順に残る
+    CompletableFuture<Void> append(List<Record> records) {
+        StringBuilder lines = new StringBuilder();
+        records.forEach(record -> lines.append(format(record)).append('\n'));
+        Pending pending = new Pending(lines.toString().getBytes(StandardCharsets.UTF_8), new CompletableFuture<>());
+        if (closed) {
+            pending.done().completeExceptionally(new IllegalStateException("Cart journal is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.done();
+    }
+
+    // 同期が済むまで待つ
+    static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // 新しいセグメントに切り替え、その番号を返す（これより前のセグメントには以後書き込まない）
+    long rotate() {
+        lock.lock();
+        try {
+            closeChannel();
+            open(sequence + 1);
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 指定番号より前のセグメントを消す
+    void deleteBefore(long seq) {
+        for (long existing : sequences()) {
+            if (existing >= seq) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segment(existing));
+            } catch (IOException e) {
+                log.warn("Failed to delete cart journal segment {}", existing, e);
+            }
+        }
+    }
+
+    // 積まれている記録を書き終えてから閉じる
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            closeChannel();
+        } catch (IOException e) {
+            log.warn("Failed to close cart journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            int stop = batch.indexOf(STOP);
+            if (stop >= 0) {
+                stopping = true;
+                batch.subList(stop, batch.size()).clear();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        // 閉じる直前に積まれたものは書かない
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.stream().filter(pending -> pending != STOP).forEach(pending ->
+                pending.done().completeExceptionally(new IllegalStateException("Cart journal is closed")));
+    }
+
+    private void write(List<Pending> batch) {
+        lock.lock();
+        try {
+            if (channel == null) {
+                open(sequence + 1);
+            }
+            for (Pending pending : batch) {
+                ByteBuffer buffer = ByteBuffer.wrap(pending.bytes());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(false);
+            batch.forEach(pending -> pending.done().complete(null));
+        } catch (IOException e) {
+            log.error("Failed to write {} cart journal entries", batch.size(), e);
+            batch.forEach(pending -> pending.done().completeExceptionally(new UncheckedIOException(e)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open(long seq) throws IOException {
+        channel = FileChannel.open(segment(seq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sequence = seq;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private Path segment(long seq) {
+        return directory.resolve("journal-%016d.log".formatted(seq));
+    }
+
+    private List<Long> sequences() {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    sequences.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private static String format(Record record) {
+        return switch (record) {
+            case SetQuantity set -> "S " + set.userId() + " " + set.productId() + " " + set.quantity();
+            case RemoveItem delete -> "D " + delete.userId() + " " + delete.productId();
+        };
+    }
+
+    private static Record parse(String line) {
+        String[] parts = line.trim().split(" ");
+        try {
+            return switch (parts[0]) {
+                case "S" -> parts.length == 4
+                        ? new SetQuantity(Integer.valueOf(parts[1]), Integer.valueOf(parts[2]), Integer.parseInt(parts[3]))
+                        : null;
+                case "D" -> parts.length == 3 ? new RemoveItem(Integer.valueOf(parts[1]), Integer.valueOf(parts[2])) : null;
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
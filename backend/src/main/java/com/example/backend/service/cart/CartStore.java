@@ -0,0 +1,30 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.request.user.cart.CartBatchRequest;
+import com.example.backend.response.user.cart.CartResponse;
+
+import java.util.Map;
+
+// カートの読み書き先（app.cart.storage=database|memory）
+public interface CartStore {
+
+    CartResponse findByUserId(Integer userId);
+
+    int sumCartItemQuantitiesByUserId(Integer userId);
+
+    CartResponse addItemToCart(Integer userId, Integer productId, Integer quantity);
+
+    CartResponse updateItemQuantity(Integer userId, Integer productId, Integer newQuantity);
+
+    CartResponse removeItemFromCart(Integer userId, Integer productId);
+
+    CartResponse applyBatch(Integer userId, CartBatchRequest request);
+
+    // 注文確定の前に、このユーザーのカートをDBへ反映する
+    default void flush(Integer userId) {
+    }
+
+    // 注文確定のトランザクションでDBのカート明細を消したことを伝える（checkedOut：注文した明細の商品ID→数量）
+    default void cleared(Integer userId, Map<Integer, Integer> checkedOut) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.entity.CartEntity;
+import com.example.backend.entity.CartItemEntity;
+import com.example.backend.entity.ProductEntity;
+import com.example.backend.entity.UserEntity;
+import com.example.backend.repository.CartItemRepository;
+import com.example.backend.repository.CartRepository;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.projection.ProductStockRow;
+import com.example.backend.request.user.cart.CartBatchRequest;
+import com.example.backend.response.user.cart.CartResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// カートをDBに直接読み書きする（既定）
+@Component
+@Transactional
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cart.storage", havingValue = "database", matchIfMissing = true)
+public class DatabaseCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+
+    // ID取得（isDeleted = false のみ）
+    @Override
+    @Transactional(readOnly = true)
+    public CartResponse findByUserId(Integer userId) {
+        CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
+        return toResponse(cart.getId(), userId);
+    }
+
+    // カートアイテム数量を取得
+    @Override
+    @Transactional(readOnly = true)
+    public int sumCartItemQuantitiesByUserId(Integer userId) {
+        // 明細を読まず、トリガーで更新している合計列だけを読む
+        return cartRepository.findTotalQuantityByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
+    }
+
+
+    // カートアイテム追加
+    // 既に同じ商品がカートにある場合は数量を加算する（在庫チェックも同じ文で行い、同時追加でも明細は重複しない）
+    @Override
+    public CartResponse addItemToCart(Integer userId, Integer productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+
+        Optional<Integer> cartId = cartItemRepository.upsertQuantity(userId, productId, quantity);
+        if (cartId.isEmpty() && cartRepository.findByUserId(userId).isEmpty()) {
+            // カートが無ければ作ってから入れ直す
+            createCart(userId);
+            cartId = cartItemRepository.upsertQuantity(userId, productId, quantity);
+        }
+        if (cartId.isEmpty()) {
+            throw rejected(productId);
+        }
+
+        return toResponse(cartId.get(), userId);
+    }
+
+
+    // カートアイテムの数量を更新する
+    @Override
+    public CartResponse updateItemQuantity(Integer userId, Integer productId, Integer newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+
+        Optional<Integer> cartId = cartItemRepository.updateQuantity(userId, productId, newQuantity);
+        if (cartId.isEmpty()) {
+            CartEntity cart = cartRepository.findByUserIdAndIsDeletedFalse(userId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
+            cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+                    .orElseThrow(() -> new RuntimeException("Cart item not found"));
+            throw rejected(productId);
+        }
+
+        return toResponse(cartId.get(), userId);
+    }
+
+    // カートアイテムの物理削除
+    @Override
+    public CartResponse removeItemFromCart(Integer userId, Integer productId) {
+        Optional<Integer> cartId = cartItemRepository.deleteByUserIdAndProductId(userId, productId);
+        if (cartId.isEmpty()) {
+            cartRepository.findByUserIdAndIsDeletedFalse(userId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
+            throw new RuntimeException("Cart item not found");
+        }
+
+        return toResponse(cartId.get(), userId);
+    }
+
+    // カートへの操作をまとめて適用する
+    // 在庫は対象商品を1回のIN句で確かめ、明細の追加・更新・削除はJDBCバッチでまとめて書く
+    @Override
+    public CartResponse applyBatch(Integer userId, CartBatchRequest request) {
+        Set<Integer> productIds = CartBatch.validate(request);
+
+        // 同じカートへの他の更新と重ならないよう、カートの行をロックしてから現在の明細を読む
+        // 1件ずつの追加・変更・削除（CartItemRepository）も同じ行ロックを取るので、読んだ明細はコミットまで変わらない
+        CartEntity cart = cartRepository.findForUpdateByUserId(userId)
+                .orElseGet(() -> createCart(userId));
+        Map<Integer, CartItemEntity> items = cartItemRepository.findByCartIdAndProductIdIn(cart.getId(), productIds).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+        Map<Integer, Integer> current = items.values().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemEntity::getQuantity));
+
+        Map<Integer, Integer> result = CartBatch.apply(current, request.operations());
+        Map<Integer, Integer> stocks = productRepository.findStocksByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductStockRow::id, ProductStockRow::stock));
+        CartBatch.checkStock(result, stocks);
+
+        List<CartItemEntity> added = new ArrayList<>();
+        List<CartItemEntity> removed = new ArrayList<>();
+        result.forEach((productId, quantity) -> {
+            CartItemEntity item = items.get(productId);
+            if (quantity == 0) {
+                if (item != null) {
+                    removed.add(item);
+                }
+            } else if (item == null) {
+                CartItemEntity newItem = new CartItemEntity();
+                newItem.setCart(cart);
+                newItem.setProduct(productRepository.getReferenceById(productId));
+                newItem.setQuantity(quantity);
+                added.add(newItem);
+            } else if (!item.getQuantity().equals(quantity)) {
+                item.setQuantity(quantity);
+            }
+        });
+        cartItemRepository.saveAll(added);
+        cartItemRepository.deleteAll(removed);
+
+        return toResponse(cart.getId(), userId);
+    }
+
+    private CartEntity createCart(Integer userId) {
+        UserEntity user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        CartEntity newCart = new CartEntity();
+        newCart.setUser(user);
+        return cartRepository.saveAndFlush(newCart);
+    }
+
+    // 更新文が0件だったときの理由（商品が無いか在庫不足）
+    private RuntimeException rejected(Integer productId) {
+        ProductEntity product = productRepository.findById(productId)
+                .filter(p -> !p.getIsDeleted())
+                .orElse(null);
+        if (product == null) {
+            return new RuntimeException("Product not found");
+        }
+        return new IllegalArgumentException("指定された数量が在庫を超えています。現在の在庫: " + product.getStock());
+    }
+
+    // 明細は商品・先頭画像と結合したプロジェクション1クエリで読む
+    private CartResponse toResponse(Integer cartId, Integer userId) {
+        return CartResponse.fromRows(cartId, userId, cartItemRepository.findLinesByCartId(cartId));
+    }
+
+}
@@ -0,0 +1,548 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.entity.CartEntity;
+import com.example.backend.entity.UserEntity;
+import com.example.backend.repository.CartItemRepository;
+import com.example.backend.repository.CartRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.projection.CartLineRow;
+import com.example.backend.request.user.cart.CartBatchRequest;
+import com.example.backend.response.user.cart.CartResponse;
+import com.example.backend.response.user.product.ProductImageResponse;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// カートをメモリ上で読み書きし、変更されたカートをまとめてDBへ書き出す（app.cart.storage=memory）
+// ユーザーIDでシャードに振り分け、シャードごとのロックで排他する
+// 変更はジャーナルに積んでメモリに反映し、ディスクへの同期を待ってから応答するので、書き出し前に落ちても起動時に当て直せる
+// 商品名・価格・在庫はカタログのスナップショットから引く（在庫の最終確認は注文確定時に行う）
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.storage", havingValue = "memory")
+public class MemoryCartStore implements CartStore {
+
+    private static final String UPSERT_LINE = """
+            INSERT INTO cart_items (cart_id, product_id, quantity)
+            VALUES (?, ?, ?)
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+                SET quantity = EXCLUDED.quantity, updated_at = CURRENT_TIMESTAMP
+                WHERE cart_items.quantity <> EXCLUDED.quantity
+            """;
+    private static final String DELETE_OTHER_LINES = "DELETE FROM cart_items WHERE cart_id = ? AND product_id <> ALL (?)";
+
+    // ジャーナルの当て直しはユーザーIDから対象のカートを引く
+    private static final String REPLAY_SET = """
+            INSERT INTO cart_items (cart_id, product_id, quantity)
+            SELECT id, ?, ? FROM carts WHERE user_id = ?
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+                SET quantity = EXCLUDED.quantity, updated_at = CURRENT_TIMESTAMP
+            """;
+    private static final String REPLAY_REMOVE =
+            "DELETE FROM cart_items WHERE product_id = ? AND cart_id IN (SELECT id FROM carts WHERE user_id = ?)";
+
+    // メモリ上のカート（明細は商品ID→数量、追加順）
+    private static final class Cart {
+
+        final Integer cartId;
+        final Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        // 明細ごとの最後に表示した内容（明細ID、カタログから外れた商品の表示と在庫確認に使う）
+        final Map<Integer, CartLineRow> lastSeen = new HashMap<>();
+        // 数量合計（ヘッダーのバッジ用、明細の変更ごとに増減する）
+        int totalQuantity;
+        long lastAccessMillis = System.currentTimeMillis();
+        // 最後に積んだジャーナル記録の同期（これが済むまで内容を応答に出さない）
+        CompletableFuture<Void> journaled = CompletableFuture.completedFuture(null);
+
+        Cart(Integer cartId) {
+            this.cartId = cartId;
+        }
+    }
+
+    private static final class Shard {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Integer, Cart> carts = new HashMap<>();
+        // DBへの書き出しが済んでいないカート（ユーザーID）
+        final Set<Integer> dirty = new HashSet<>();
+    }
+
+    // DBへ書き出すカートの内容
+    private record Snapshot(Integer userId, Integer cartId, Map<Integer, Integer> quantities) {
+    }
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final ProductCatalogService productCatalogService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Shard[] shards;
+    private final CartJournal journal;
+    private final Duration idleTimeout;
+    // 書き出しは1つずつ行う（古い内容で新しい内容を上書きしない）
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public MemoryCartStore(CartRepository cartRepository,
+                           CartItemRepository cartItemRepository,
+                           UserRepository userRepository,
+                           ProductCatalogService productCatalogService,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.cart.memory.shards:64}") int shardCount,
+                           @Value("${app.cart.memory.journal-dir:data/cart-journal}") String journalDir,
+                           @Value("${app.cart.memory.idle-timeout:PT30M}") Duration idleTimeout) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.productCatalogService = productCatalogService;
+        this.jdbcTemplate = jdbcTemplate;
+        // 注文確定のトランザクション中から書き出すこともあるため、常に別トランザクションで行う
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        this.idleTimeout = idleTimeout;
+        this.journal = new CartJournal(Path.of(journalDir));
+        replay();
+    }
+
+    @Override
+    public CartResponse findByUserId(Integer userId) {
+        return withCart(userId, false, cart -> toResponse(userId, cart));
+    }
+
+    // メモリ上にあればその合計、無ければDBの合計列を読む（カートは読み込まない）
+    // メモリに無いカートは書き出し済みなので、DBの値と一致している
+    @Override
+    public int sumCartItemQuantitiesByUserId(Integer userId) {
+        Shard shard = shard(userId);
+        shard.lock.lock();
+        try {
+            Cart cart = shard.carts.get(userId);
+            if (cart != null) {
+                return cart.totalQuantity;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        return cartRepository.findTotalQuantityByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
+    }
+
+    @Override
+    public CartResponse addItemToCart(Integer userId, Integer productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+
+        return withCart(userId, true, cart -> {
+            int stock = stock(cart, productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            int newTotalQuantity = cart.quantities.getOrDefault(productId, 0) + quantity;
+            if (newTotalQuantity > stock) {
+                throw new IllegalArgumentException("指定された数量が在庫を超えています。現在の在庫: " + stock);
+            }
+            record(userId, cart, List.of(new CartJournal.SetQuantity(userId, productId, newTotalQuantity)));
+            return toResponse(userId, cart);
+        });
+    }
+
+    @Override
+    public CartResponse updateItemQuantity(Integer userId, Integer productId, Integer newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+
+        return withCart(userId, false, cart -> {
+            if (!cart.quantities.containsKey(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            int stock = stock(cart, productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            if (newQuantity > stock) {
+                throw new IllegalArgumentException("指定された数量が在庫を超えています。現在の在庫: " + stock);
+            }
+            record(userId, cart, List.of(new CartJournal.SetQuantity(userId, productId, newQuantity)));
+            return toResponse(userId, cart);
+        });
+    }
+
+    // 操作を順に当てた結果を在庫と照らし、変わる明細だけを1回のジャーナル書き込みで反映する
+    @Override
+    public CartResponse applyBatch(Integer userId, CartBatchRequest request) {
+        CartBatch.validate(request);
+
+        return withCart(userId, true, cart -> {
+            Map<Integer, Integer> result = CartBatch.apply(cart.quantities, request.operations());
+            Map<Integer, Integer> stocks = new HashMap<>();
+            result.keySet().forEach(productId ->
+                    stock(cart, productId).ifPresent(stock -> stocks.put(productId, stock)));
+            CartBatch.checkStock(result, stocks);
+
+            List<CartJournal.Record> records = new ArrayList<>();
+            result.forEach((productId, quantity) -> {
+                if (quantity > 0 && !quantity.equals(cart.quantities.get(productId))) {
+                    records.add(new CartJournal.SetQuantity(userId, productId, quantity));
+                } else if (quantity == 0 && cart.quantities.containsKey(productId)) {
+                    records.add(new CartJournal.RemoveItem(userId, productId));
+                }
+            });
+            if (!records.isEmpty()) {
+                record(userId, cart, records);
+            }
+            return toResponse(userId, cart);
+        });
+    }
+
+    @Override
+    public CartResponse removeItemFromCart(Integer userId, Integer productId) {
+        return withCart(userId, false, cart -> {
+            if (!cart.quantities.containsKey(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            record(userId, cart, List.of(new CartJournal.RemoveItem(userId, productId)));
+            return toResponse(userId, cart);
+        });
+    }
+
+    // 注文確定の前に、このユーザーのカートだけを先に書き出す
+    @Override
+    public void flush(Integer userId) {
+        flushLock.lock();
+        try {
+            Snapshot snapshot = null;
+            Shard shard = shard(userId);
+            shard.lock.lock();
+            try {
+                Cart cart = shard.carts.get(userId);
+                if (cart != null && shard.dirty.remove(userId)) {
+                    snapshot = snapshot(userId, cart);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            if (snapshot != null) {
+                write(List.of(snapshot));
+            }
+        } catch (RuntimeException e) {
+            markDirty(userId);
+            throw e;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 注文確定でDBの明細が消えたら、注文した明細だけをメモリ上のカートからも外す
+    // 記録はコミットの後に書く（ロールバックされたら何もしない）。注文中に追加・変更された明細は残してDBへ書き直す
+    @Override
+    public void cleared(Integer userId, Map<Integer, Integer> checkedOut) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeCheckedOut(userId, checkedOut);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                removeCheckedOut(userId, checkedOut);
+            }
+        });
+    }
+
+    // 変更されたカートをまとめてDBへ書き出す
+    // 開始時にジャーナルを新しいセグメントへ切り替え、書き出しが済んだら古いセグメントを消す
+    @Scheduled(initialDelayString = "${app.cart.memory.flush-interval:PT2S}",
+            fixedDelayString = "${app.cart.memory.flush-interval:PT2S}")
+    public void flushDirty() {
+        flushLock.lock();
+        try {
+            long segment = journal.rotate();
+            long idleBefore = System.currentTimeMillis() - idleTimeout.toMillis();
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (Shard shard : shards) {
+                shard.lock.lock();
+                try {
+                    // しばらく使われていないカートはメモリから外す（書き出し済みのもののみ）
+                    shard.carts.entrySet().removeIf(entry -> !shard.dirty.contains(entry.getKey())
+                            && entry.getValue().lastAccessMillis < idleBefore);
+                    for (Integer userId : shard.dirty) {
+                        Cart cart = shard.carts.get(userId);
+                        if (cart != null) {
+                            snapshots.add(snapshot(userId, cart));
+                        }
+                    }
+                    shard.dirty.clear();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+
+            if (!snapshots.isEmpty()) {
+                try {
+                    write(snapshots);
+                } catch (RuntimeException e) {
+                    // 次回に書き出し直す（ジャーナルは残しておく）
+                    snapshots.forEach(snapshot -> markDirty(snapshot.userId()));
+                    log.warn("Failed to flush {} carts", snapshots.size(), e);
+                    return;
+                }
+            }
+            journal.deleteBefore(segment);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 停止時に残りを書き出す
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+        journal.close();
+    }
+
+    // 起動時に、前回の停止までにDBへ書き出せなかった変更を当て直す
+    private void replay() {
+        List<CartJournal.Record> records = journal.readAll();
+        if (!records.isEmpty()) {
+            transaction.executeWithoutResult(status -> records.forEach(this::apply));
+            log.info("Replayed {} cart journal records", records.size());
+        }
+        journal.deleteBefore(journal.rotate());
+    }
+
+    private void apply(CartJournal.Record record) {
+        switch (record) {
+            case CartJournal.SetQuantity set ->
+                    jdbcTemplate.update(REPLAY_SET, set.productId(), set.quantity(), set.userId());
+            case CartJournal.RemoveItem remove ->
+                    jdbcTemplate.update(REPLAY_REMOVE, remove.productId(), remove.userId());
+        }
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        List<Object[]> deletes = snapshots.stream()
+                .map(snapshot -> new Object[]{snapshot.cartId(), snapshot.quantities().keySet().toArray(Integer[]::new)})
+                .toList();
+        List<Object[]> upserts = snapshots.stream()
+                .flatMap(snapshot -> snapshot.quantities().entrySet().stream()
+                        .map(line -> new Object[]{snapshot.cartId(), line.getKey(), line.getValue()}))
+                .toList();
+
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DELETE_OTHER_LINES, deletes);
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_LINE, upserts);
+            }
+        });
+    }
+
+    // シャードのロックを取ってカートを操作する（メモリに無ければDBから読み込む）
+    // ジャーナルの同期はロックを放してから待つ（待つ間も同じシャードの他のカートは操作できる）
+    private <T> T withCart(Integer userId, boolean create, Function<Cart, T> action) {
+        Shard shard = shard(userId);
+        while (true) {
+            Cart cart = load(userId)
+                    .or(() -> create ? createCart(userId) : Optional.empty())
+                    .orElseThrow(() -> new RuntimeException("Cart not found with userId: " + userId));
+            T result;
+            CompletableFuture<Void> journaled;
+            shard.lock.lock();
+            try {
+                // 読み込んでからロックを取るまでに外されていたら読み直す
+                if (shard.carts.get(userId) != cart) {
+                    continue;
+                }
+                cart.lastAccessMillis = System.currentTimeMillis();
+                result = action.apply(cart);
+                journaled = cart.journaled;
+            } finally {
+                shard.lock.unlock();
+            }
+            CartJournal.await(journaled);
+            return result;
+        }
+    }
+
+    private Optional<Cart> load(Integer userId) {
+        Shard shard = shard(userId);
+        shard.lock.lock();
+        try {
+            Cart cart = shard.carts.get(userId);
+            if (cart != null) {
+                return Optional.of(cart);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+
+        // DBの読み込みはロックの外で行う
+        Optional<Cart> loaded = transaction.execute(status -> cartRepository.findByUserIdAndIsDeletedFalse(userId)
+                .map(entity -> {
+                    Cart cart = new Cart(entity.getId());
+                    for (CartLineRow row : cartItemRepository.findLinesByCartId(entity.getId())) {
+                        cart.quantities.put(row.productId(), row.quantity());
+                        cart.totalQuantity += row.quantity();
+                        cart.lastSeen.put(row.productId(), row);
+                    }
+                    return cart;
+                }));
+        if (loaded == null || loaded.isEmpty()) {
+            return Optional.empty();
+        }
+
+        shard.lock.lock();
+        try {
+            return Optional.of(shard.carts.computeIfAbsent(userId, id -> loaded.get()));
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // カートが無ければ作る（既定の保存先と同じ）
+    private Optional<Cart> createCart(Integer userId) {
+        transaction.executeWithoutResult(status -> {
+            if (cartRepository.findByUserId(userId).isPresent()) {
+                return;
+            }
+            UserEntity user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            CartEntity newCart = new CartEntity();
+            newCart.setUser(user);
+            cartRepository.save(newCart);
+        });
+        return load(userId);
+    }
+
+    // 変更をジャーナルに積んでメモリへ反映する（シャードのロックを保持して呼ぶ）
+    // 同期に失敗しても変更はメモリに残り、次の書き出しでDBへ反映される
+    private void record(Integer userId, Cart cart, List<CartJournal.Record> records) {
+        cart.journaled = journal.append(records);
+        for (CartJournal.Record record : records) {
+            switch (record) {
+                case CartJournal.SetQuantity set -> {
+                    Integer previous = cart.quantities.put(set.productId(), set.quantity());
+                    cart.totalQuantity += set.quantity() - (previous != null ? previous : 0);
+                }
+                case CartJournal.RemoveItem remove -> {
+                    Integer previous = cart.quantities.remove(remove.productId());
+                    cart.totalQuantity -= previous != null ? previous : 0;
+                    cart.lastSeen.remove(remove.productId());
+                }
+            }
+        }
+        shard(userId).dirty.add(userId);
+    }
+
+    // 在庫数（カタログに無ければ最後に表示したときの値）
+    private Optional<Integer> stock(Cart cart, Integer productId) {
+        ProductResponse product = productCatalogService.findSummary(productId);
+        if (product != null) {
+            return Optional.of(product.stock());
+        }
+        return Optional.ofNullable(cart.lastSeen.get(productId)).map(CartLineRow::stock);
+    }
+
+    // シャードのロックを保持して呼ぶ
+    private CartResponse toResponse(Integer userId, Cart cart) {
+        List<CartLineRow> rows = new ArrayList<>(cart.quantities.size());
+        cart.quantities.forEach((productId, quantity) -> {
+            CartLineRow previous = cart.lastSeen.get(productId);
+            ProductResponse product = productCatalogService.findSummary(productId);
+            CartLineRow row;
+            if (product != null) {
+                ProductImageResponse image = product.productImages().isEmpty() ? null : product.productImages().get(0);
+                row = new CartLineRow(previous != null ? previous.id() : null, quantity, productId,
+                        product.sku(), product.name(), product.price(), product.stock(),
+                        image != null ? image.thumbnailUrl() : null, image != null ? image.imageUrl() : null);
+                cart.lastSeen.put(productId, row);
+            } else if (previous != null) {
+                // 非公開になった商品は最後に表示した内容のまま出す
+                row = new CartLineRow(previous.id(), quantity, productId, previous.sku(), previous.name(),
+                        previous.price(), previous.stock(), previous.thumbnailUrl(), previous.imageUrl());
+            } else {
+                return;
+            }
+            rows.add(row);
+        });
+        return CartResponse.fromRows(cart.cartId, userId, rows);
+    }
+
+    private Snapshot snapshot(Integer userId, Cart cart) {
+        return new Snapshot(userId, cart.cartId, Map.copyOf(cart.quantities));
+    }
+
+    private void markDirty(Integer userId) {
+        Shard shard = shard(userId);
+        shard.lock.lock();
+        try {
+            if (shard.carts.containsKey(userId)) {
+                shard.dirty.add(userId);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // 注文した数量のままの明細を外す。メモリに無いカートもジャーナルの古い記録で明細が戻らないよう記録だけ書く
+    private void removeCheckedOut(Integer userId, Map<Integer, Integer> checkedOut) {
+        Shard shard = shard(userId);
+        CompletableFuture<Void> journaled;
+        shard.lock.lock();
+        try {
+            Cart cart = shard.carts.get(userId);
+            if (cart == null) {
+                journaled = journal.append(checkedOut.keySet().stream()
+                        .<CartJournal.Record>map(productId -> new CartJournal.RemoveItem(userId, productId))
+                        .toList());
+            } else {
+                List<CartJournal.Record> records = checkedOut.entrySet().stream()
+                        .filter(line -> line.getValue().equals(cart.quantities.get(line.getKey())))
+                        .<CartJournal.Record>map(line -> new CartJournal.RemoveItem(userId, line.getKey()))
+                        .toList();
+                if (!records.isEmpty()) {
+                    record(userId, cart, records);
+                }
+                // DBの明細はすべて消えているので、残った明細は書き直す
+                if (!cart.quantities.isEmpty()) {
+                    shard.dirty.add(userId);
+                }
+                journaled = cart.journaled;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        CartJournal.await(journaled);
+    }
+
+    private Shard shard(Integer userId) {
+        return shards[Math.floorMod(userId, shards.length)];
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.backend.service.catalog;
+
+import com.example.backend.enums.ProductSort;
+import com.example.backend.response.user.product.ProductDetailResponse;
+import com.example.backend.response.user.product.ProductResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 公開商品カタログの不変スナップショット
+// 更新時は既存スナップショットをコピーして差分を当てた新しいインスタンスを作る（コピーオンライト）
+public record CatalogSnapshot(
+        long version,
+        Map<Integer, ProductResponse> summaries,
+        Map<Integer, ProductDetailResponse> details,
+        Map<ProductSort, List<ProductResponse>> sorted) {
+
+    // 商品1件分のレスポンス（一覧用と詳細用）
+    public record Entry(ProductResponse summary, ProductDetailResponse detail) {
+
+        public Entry withStock(int stock) {
+            return new Entry(CatalogSnapshot.withStock(summary, stock), CatalogSnapshot.withStock(detail, stock));
+        }
+    }
+
+    public static CatalogSnapshot build(long version, Collection<Entry> entries) {
+        Map<Integer, ProductResponse> summaries = new HashMap<>();
+        Map<Integer, ProductDetailResponse> details = new HashMap<>();
+        for (Entry entry : entries) {
+            summaries.put(entry.summary().id(), entry.summary());
+            details.put(entry.detail().id(), entry.detail());
+        }
+
+        Map<ProductSort, List<ProductResponse>> sorted = new EnumMap<>(ProductSort.class);
+        for (ProductSort sort : ProductSort.values()) {
+            List<ProductResponse> list = new ArrayList<>(summaries.values());
+            list.sort(comparator(sort));
+            sorted.put(sort, Collections.unmodifiableList(list));
+        }
+
+        return new CatalogSnapshot(version, Map.copyOf(summaries), Map.copyOf(details), Collections.unmodifiableMap(sorted));
+    }
+
+    // 差分適用：upserts を追加・置換し、removedIds を取り除いた新しいスナップショットを返す
+    public CatalogSnapshot apply(long newVersion, Collection<Entry> upserts, Collection<Integer> removedIds) {
+        Set<Integer> touched = new HashSet<>(removedIds);
+        upserts.forEach(entry -> touched.add(entry.summary().id()));
+
+        Map<Integer, ProductResponse> newSummaries = new HashMap<>(summaries);
+        Map<Integer, ProductDetailResponse> newDetails = new HashMap<>(details);
+        touched.forEach(id -> {
+            newSummaries.remove(id);
+            newDetails.remove(id);
+        });
+        for (Entry entry : upserts) {
+            newSummaries.put(entry.summary().id(), entry.summary());
+            newDetails.put(entry.detail().id(), entry.detail());
+        }
+
+        // 並び順ごとのリストは変更分だけ取り除き、二分探索で挿入する（全件ソートはしない）
+        Map<ProductSort, List<ProductResponse>> newSorted = new EnumMap<>(ProductSort.class);
+        for (ProductSort sort : ProductSort.values()) {
+            Comparator<ProductResponse> comparator = comparator(sort);
+            List<ProductResponse> list = new ArrayList<>(sorted.get(sort).size() + upserts.size());
+            for (ProductResponse product : sorted.get(sort)) {
+                if (!touched.contains(product.id())) {
+                    list.add(product);
+                }
+            }
+            for (Entry entry : upserts) {
+                int index = Collections.binarySearch(list, entry.summary(), comparator);
+                list.add(index >= 0 ? index : -(index + 1), entry.summary());
+            }
+            newSorted.put(sort, Collections.unmodifiableList(list));
+        }
+
+        return new CatalogSnapshot(newVersion, Map.copyOf(newSummaries), Map.copyOf(newDetails),
+                Collections.unmodifiableMap(newSorted));
+    }
+
+    // 在庫数だけの変更：並び順のキーは変わらないので、各リストの同じ位置を置き換える（並べ直さない）
+    // 変わった商品が無ければ自身を返す
+    public CatalogSnapshot withStocks(long newVersion, Map<Integer, Integer> stocks) {
+        Map<Integer, ProductResponse> newSummaries = null;
+        Map<Integer, ProductDetailResponse> newDetails = null;
+        List<ProductResponse> previous = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> stock : stocks.entrySet()) {
+            ProductResponse summary = summaries.get(stock.getKey());
+            ProductDetailResponse detail = details.get(stock.getKey());
+            if (summary == null || detail == null || stock.getValue().equals(summary.stock())) {
+                continue;
+            }
+            if (newSummaries == null) {
+                newSummaries = new HashMap<>(summaries);
+                newDetails = new HashMap<>(details);
+            }
+            previous.add(summary);
+            newSummaries.put(summary.id(), withStock(summary, stock.getValue()));
+            newDetails.put(detail.id(), withStock(detail, stock.getValue()));
+        }
+        if (newSummaries == null) {
+            return this;
+        }
+
+        Map<ProductSort, List<ProductResponse>> newSorted = new EnumMap<>(ProductSort.class);
+        for (ProductSort sort : ProductSort.values()) {
+            Comparator<ProductResponse> comparator = comparator(sort);
+            List<ProductResponse> list = new ArrayList<>(sorted.get(sort));
+            for (ProductResponse summary : previous) {
+                list.set(Collections.binarySearch(list, summary, comparator), newSummaries.get(summary.id()));
+            }
+            newSorted.put(sort, Collections.unmodifiableList(list));
+        }
+
+        return new CatalogSnapshot(newVersion, Collections.unmodifiableMap(newSummaries),
+                Collections.unmodifiableMap(newDetails), Collections.unmodifiableMap(newSorted));
+    }
+
+    private static ProductResponse withStock(ProductResponse product, int stock) {
+        return new ProductResponse(product.id(), product.sku(), product.name(), product.description(), product.price(),
+                stock, product.published(), product.createdAt(), product.updatedAt(), product.productImages(),
+                product.productCategories());
+    }
+
+    private static ProductDetailResponse withStock(ProductDetailResponse product, int stock) {
+        return new ProductDetailResponse(product.id(), product.sku(), product.name(), product.description(),
+                product.price(), stock, product.published(), product.createdAt(), product.updatedAt(),
+                product.productImages(), product.productCategories());
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    // DBのキーセットページングと同じ (ソートキー, id) の並び
+    public static Comparator<ProductResponse> comparator(ProductSort sort) {
+        return switch (sort) {
+            case NEWEST -> Comparator.comparing(ProductResponse::createdAt)
+                    .thenComparing(ProductResponse::id)
+                    .reversed();
+            case PRICE_ASC -> Comparator.comparing(ProductResponse::price)
+                    .thenComparing(ProductResponse::id);
+            case PRICE_DESC -> Comparator.comparing(ProductResponse::price)
+                    .thenComparing(ProductResponse::id)
+                    .reversed();
+            case NAME -> Comparator.comparing(ProductResponse::name, CatalogSnapshot::compareCodePoints)
+                    .thenComparing(ProductResponse::id);
+        };
+    }
+
+    // DBの COLLATE "C"（UTF-8のバイト順）と同じ、コードポイント順の比較
+    // String.compareTo は UTF-16 の単位で比べるため、サロゲートペアの文字で順序が変わる
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
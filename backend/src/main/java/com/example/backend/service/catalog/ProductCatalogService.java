@@ -0,0 +1,381 @@
+package com.example.backend.service.catalog;
+
+import com.example.backend.entity.ProductEntity;
+import com.example.backend.enums.ProductSort;
+import com.example.backend.event.CatalogChangedEvent;
+import com.example.backend.event.CategoryChangedEvent;
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.event.ProductStockChangedEvent;
+import com.example.backend.pagination.ProductCursor;
+import com.example.backend.repository.ProductCategoryRepository;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.repository.projection.ProductStockRow;
+import com.example.backend.request.user.product.ProductListRequest;
+import com.example.backend.response.admin.stats.CatalogStatsResponse;
+import com.example.backend.response.common.CursorPageResponse;
+import com.example.backend.response.user.product.ProductDetailResponse;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// 公開商品カタログのインメモリスナップショット
+// ストアフロントの一覧・詳細はここから返し、Postgresには問い合わせない
+// 商品・カテゴリの変更はコミット後に差分で反映する
+// 注文などによる在庫数の変動は専用のスレッドでまとめて読み、在庫数だけを差し替える（決済のスレッドを待たせない）
+// DBの読み込みはロックの外で行い、読み始めの順番（読み取り番号）が後の結果を先に反映していたら古い結果は捨てる
+@Slf4j
+@Service
+public class ProductCatalogService {
+
+    private final ProductRepository productRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final Set<Integer> pendingProductIds = new HashSet<>();
+
+    // 商品ごとに反映済みの読み取り番号（商品全体・在庫数のみ）。this で保護する
+    private record Applied(long full, long stock) {
+    }
+
+    private final AtomicLong readSequence = new AtomicLong();
+    private final Map<Integer, Applied> applied = new HashMap<>();
+    // 全件ロードの読み取り番号（applied に無い商品はこの番号まで反映済み）
+    private long loadedSequence;
+
+    // 在庫数の変動を待つ商品と、それをまとめて反映するスレッド
+    private final BlockingQueue<Integer> staleStocks = new LinkedBlockingQueue<>();
+    private final Duration stockRefreshDelay;
+    private final Thread stockRefresher;
+    private volatile boolean running = true;
+
+    // メトリクス
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong totalRebuildMillis = new AtomicLong();
+
+    public ProductCatalogService(ProductRepository productRepository,
+                                 ProductCategoryRepository productCategoryRepository,
+                                 ProductService productService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.catalog.stock-refresh-delay:PT0.1S}") Duration stockRefreshDelay) {
+        this.productRepository = productRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.productService = productService;
+        this.eventPublisher = eventPublisher;
+        // コミット後のリスナーから呼ばれるため、常に新しい読み取り専用トランザクションで読む
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stockRefreshDelay = stockRefreshDelay;
+        this.stockRefresher = Thread.ofPlatform().name("catalog-stock-refresher").daemon()
+                .unstarted(this::drainStockChanges);
+    }
+
+    @PostConstruct
+    public void start() {
+        stockRefresher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        stockRefresher.interrupt();
+        stockRefresher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // 一覧取得（キーセット方式）
+    public CursorPageResponse<ProductResponse> findPage(ProductListRequest request) {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            // 初回ロード前はDBから返す
+            misses.increment();
+            return productService.findPageForUser(request).map(ProductResponse::fromEntity);
+        }
+        hits.increment();
+
+        ProductSort sort = request.resolvedSort();
+        int size = request.resolvedSize();
+        List<ProductResponse> list = current.sorted().get(sort);
+
+        // カーソル位置を二分探索で求める
+        int start = 0;
+        ProductCursor after = ProductCursor.decode(request.cursor(), sort);
+        if (after != null) {
+            int index = Collections.binarySearch(list, toProbe(after), CatalogSnapshot.comparator(sort));
+            start = index >= 0 ? index + 1 : -(index + 1);
+        }
+
+        int end = Math.min(start + size, list.size());
+        List<ProductResponse> items = List.copyOf(list.subList(start, end));
+        boolean hasNext = end < list.size();
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductResponse last = items.get(items.size() - 1);
+            nextCursor = ProductCursor.of(sort, last.id(), last.createdAt(), last.price(), last.name()).encode();
+        }
+        return new CursorPageResponse<>(items, nextCursor, hasNext);
+    }
+
+    // 1件取得
+    public ProductDetailResponse findById(Integer id) {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            misses.increment();
+            return ProductDetailResponse.fromEntity(productService.findByIdForUser(id));
+        }
+
+        ProductDetailResponse detail = current.details().get(id);
+        if (detail == null) {
+            // スナップショットは公開商品をすべて保持しているので、無ければ存在しない
+            misses.increment();
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        hits.increment();
+        return detail;
+    }
+
+    // 並び順ごとの全件リスト（絞り込みなど他のインデックスから使う）
+    public List<ProductResponse> findSorted(ProductSort sort) {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.sorted().get(sort) : List.of();
+    }
+
+    // 一覧用レスポンスの参照（検索など他のインデックスから使う）
+    public ProductResponse findSummary(Integer id) {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.summaries().get(id) : null;
+    }
+
+    public CatalogStatsResponse stats() {
+        CatalogSnapshot current = snapshot.get();
+        long rebuildCount = rebuilds.get();
+        return new CatalogStatsResponse(
+                current != null ? current.version() : 0,
+                current != null ? current.size() : 0,
+                hits.sum(),
+                misses.sum(),
+                rebuildCount,
+                lastRebuildMillis.get(),
+                rebuildCount > 0 ? totalRebuildMillis.get() / rebuildCount : 0);
+    }
+
+    // 起動時に全件ロード
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        long start = System.nanoTime();
+        long sequence = readSequence.incrementAndGet();
+        List<CatalogSnapshot.Entry> entries = readOnlyTransaction.execute(status ->
+                productRepository.findWithDetailsByIsDeletedFalseAndIsPublishedTrue(Sort.by("id")).stream()
+                        .map(this::toEntry)
+                        .toList());
+
+        Set<Integer> pending;
+        synchronized (this) {
+            CatalogSnapshot current = snapshot.get();
+            long version = current != null ? current.version() + 1 : 1;
+            snapshot.set(CatalogSnapshot.build(version, entries));
+            loadedSequence = sequence;
+            applied.clear();
+            eventPublisher.publishEvent(new CatalogChangedEvent(details(entries), List.of(), true, false));
+            pending = new HashSet<>(pendingProductIds);
+            pendingProductIds.clear();
+        }
+        recordRebuild(start);
+        log.info("Product catalog snapshot loaded: {} products", entries.size());
+
+        // ロード中にコミットされた変更を当て直す
+        if (!pending.isEmpty()) {
+            refresh(pending);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(List.of(event.productId()));
+    }
+
+    // 決済ごとに届くので、ここでは積むだけにする
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        staleStocks.addAll(event.productIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        List<Integer> productIds = readOnlyTransaction.execute(status ->
+                productCategoryRepository.findProductIdsByCategoryId(event.categoryId()));
+        if (productIds != null && !productIds.isEmpty()) {
+            refresh(productIds);
+        }
+    }
+
+    // 指定商品のみDBから読み直してスナップショットに反映する
+    public void refresh(Collection<Integer> productIds) {
+        long start = System.nanoTime();
+        long sequence = readSequence.incrementAndGet();
+        List<CatalogSnapshot.Entry> read = readOnlyTransaction.execute(status ->
+                productRepository.findWithDetailsByIdIn(productIds).stream()
+                        .filter(product -> !product.getIsDeleted() && product.isPublished())
+                        .map(this::toEntry)
+                        .toList());
+
+        synchronized (this) {
+            CatalogSnapshot current = snapshot.get();
+            if (current == null) {
+                // 初回ロードが終わっていなければ、ロード後に当て直す
+                pendingProductIds.addAll(productIds);
+                return;
+            }
+
+            // 後から読み始めた結果を反映済みの商品は飛ばす。在庫数だけ新しいものが反映済みなら在庫数は今の値を残す
+            List<CatalogSnapshot.Entry> upserts = new ArrayList<>();
+            for (CatalogSnapshot.Entry entry : read) {
+                Applied previous = applied(entry.summary().id());
+                if (sequence < previous.full()) {
+                    continue;
+                }
+                ProductResponse shown = current.summaries().get(entry.summary().id());
+                upserts.add(sequence < previous.stock() && shown != null ? entry.withStock(shown.stock()) : entry);
+                applied.put(entry.summary().id(), new Applied(sequence, Math.max(previous.stock(), sequence)));
+            }
+            // 非公開・削除済みになった商品はスナップショットから外す
+            Set<Integer> removed = new HashSet<>(productIds);
+            read.forEach(entry -> removed.remove(entry.summary().id()));
+            removed.removeIf(id -> sequence < applied(id).full());
+            removed.forEach(id -> applied.put(id, new Applied(sequence, sequence)));
+            if (upserts.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+
+            snapshot.set(current.apply(current.version() + 1, upserts, new ArrayList<>(removed)));
+            // 差分の適用順を保つため、ロックを保持したまま通知する
+            eventPublisher.publishEvent(new CatalogChangedEvent(details(upserts), List.copyOf(removed), false, false));
+        }
+        recordRebuild(start);
+    }
+
+    // 在庫数の変動をまとめて反映する（最初の通知から少し待ち、その間に届いた分も一緒に読む）
+    private void drainStockChanges() {
+        while (running) {
+            try {
+                Set<Integer> productIds = new HashSet<>();
+                productIds.add(staleStocks.take());
+                Thread.sleep(stockRefreshDelay);
+                staleStocks.drainTo(productIds);
+                refreshStocks(productIds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // 反映できなかった在庫数は次の変動か商品の更新で直る。スレッドは止めない
+                log.warn("Failed to refresh catalog stocks", e);
+            }
+        }
+    }
+
+    private void refreshStocks(Set<Integer> productIds) {
+        long start = System.nanoTime();
+        long sequence = readSequence.incrementAndGet();
+        List<ProductStockRow> rows = readOnlyTransaction.execute(status ->
+                productRepository.findStocksByIdIn(productIds));
+
+        synchronized (this) {
+            CatalogSnapshot current = snapshot.get();
+            if (current == null) {
+                pendingProductIds.addAll(productIds);
+                return;
+            }
+            Map<Integer, Integer> stocks = new HashMap<>();
+            for (ProductStockRow row : rows) {
+                Applied previous = applied(row.id());
+                if (sequence < previous.full() || sequence < previous.stock()) {
+                    continue;
+                }
+                stocks.put(row.id(), row.stock());
+                applied.put(row.id(), new Applied(previous.full(), sequence));
+            }
+
+            CatalogSnapshot updated = current.withStocks(current.version() + 1, stocks);
+            if (updated == current) {
+                return;
+            }
+            snapshot.set(updated);
+            List<ProductDetailResponse> changed = stocks.keySet().stream()
+                    .map(id -> updated.details().get(id))
+                    .filter(detail -> detail != null && !detail.equals(current.details().get(detail.id())))
+                    .toList();
+            eventPublisher.publishEvent(new CatalogChangedEvent(changed, List.of(), false, true));
+        }
+        recordRebuild(start);
+    }
+
+    // this を保持して呼ぶ
+    private Applied applied(Integer productId) {
+        return applied.getOrDefault(productId, new Applied(loadedSequence, loadedSequence));
+    }
+
+    private List<ProductDetailResponse> details(List<CatalogSnapshot.Entry> entries) {
+        return entries.stream()
+                .map(CatalogSnapshot.Entry::detail)
+                .toList();
+    }
+
+    private CatalogSnapshot.Entry toEntry(ProductEntity product) {
+        return new CatalogSnapshot.Entry(ProductResponse.fromEntity(product), ProductDetailResponse.fromEntity(product));
+    }
+
+    // 二分探索用に、カーソルのソートキーとIDだけを持つレスポンスを作る
+    private ProductResponse toProbe(ProductCursor cursor) {
+        return switch (cursor.sort()) {
+            case NEWEST -> new ProductResponse(cursor.id(), null, null, null, null, null, false,
+                    (LocalDateTime) cursor.key(), null, List.of(), List.of());
+            case PRICE_ASC, PRICE_DESC -> new ProductResponse(cursor.id(), null, null, null, (Integer) cursor.key(), null,
+                    false, null, null, List.of(), List.of());
+            case NAME -> new ProductResponse(cursor.id(), null, (String) cursor.key(), null, null, null, false,
+                    null, null, List.of(), List.of());
+        };
+    }
+
+    private void recordRebuild(long startNanos) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        rebuilds.incrementAndGet();
+        lastRebuildMillis.set(elapsed);
+        totalRebuildMillis.addAndGet(elapsed);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.backend.service.facet;
+
+import com.example.backend.enums.CategoryMatch;
+import com.example.backend.enums.PriceRange;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 商品IDの圧縮ビットマップによる絞り込みインデックス
+// カテゴリごと・在庫あり・価格帯ごとのビットマップを持ち、絞り込みと件数集計をSQLなしで行う
+public class ProductFacetIndex {
+
+    public record Result(
+            RoaringBitmap matches,
+            Map<Integer, Integer> categoryCounts,
+            Map<PriceRange, Integer> priceRangeCounts,
+            int inStockCount) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap published = new RoaringBitmap();
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final Map<Integer, RoaringBitmap> categories = new HashMap<>();
+    private final Map<Integer, String> categoryNames = new HashMap<>();
+    private final Map<PriceRange, RoaringBitmap> priceRanges = new EnumMap<>(PriceRange.class);
+
+    public ProductFacetIndex() {
+        for (PriceRange range : PriceRange.values()) {
+            priceRanges.put(range, new RoaringBitmap());
+        }
+    }
+
+    // 登録・更新（categoryNames はカテゴリID → カテゴリ名）
+    public void upsert(int productId, int price, int stock, Map<Integer, String> productCategories) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            published.add(productId);
+            if (stock > 0) {
+                inStock.add(productId);
+            }
+            priceRanges.get(PriceRange.of(price)).add(productId);
+            productCategories.forEach((categoryId, name) -> {
+                categories.computeIfAbsent(categoryId, id -> new RoaringBitmap()).add(productId);
+                categoryNames.put(categoryId, name);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 削除
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            published.clear();
+            inStock.clear();
+            categories.clear();
+            categoryNames.clear();
+            priceRanges.values().forEach(RoaringBitmap::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public String categoryName(Integer categoryId) {
+        lock.readLock().lock();
+        try {
+            return categoryNames.get(categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 絞り込み
+    // 件数は「その軸以外の条件」を適用した集合に対して数える（選択中の軸でも他の選択肢の件数が分かる）
+    // ただしカテゴリのALL指定は絞り込みを重ねていく操作なので、カテゴリ条件も含めて数える
+    public Result query(Collection<Integer> categoryIds, CategoryMatch match, boolean inStockOnly,
+                        Collection<PriceRange> selectedRanges) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap categoryFilter = categoryFilter(categoryIds, match);
+            RoaringBitmap stockFilter = inStockOnly ? inStock : null;
+            RoaringBitmap priceFilter = priceFilter(selectedRanges);
+
+            RoaringBitmap matches = intersect(published, categoryFilter, stockFilter, priceFilter);
+
+            RoaringBitmap categoryBase = match == CategoryMatch.ALL
+                    ? matches
+                    : intersect(published, null, stockFilter, priceFilter);
+            Map<Integer, Integer> categoryCounts = new HashMap<>();
+            categories.forEach((categoryId, bitmap) -> {
+                int count = RoaringBitmap.andCardinality(categoryBase, bitmap);
+                if (count > 0) {
+                    categoryCounts.put(categoryId, count);
+                }
+            });
+
+            RoaringBitmap priceBase = intersect(published, categoryFilter, stockFilter, null);
+            Map<PriceRange, Integer> priceRangeCounts = new EnumMap<>(PriceRange.class);
+            priceRanges.forEach((range, bitmap) ->
+                    priceRangeCounts.put(range, RoaringBitmap.andCardinality(priceBase, bitmap)));
+
+            RoaringBitmap stockBase = intersect(published, categoryFilter, null, priceFilter);
+            int inStockCount = RoaringBitmap.andCardinality(stockBase, inStock);
+
+            return new Result(matches, categoryCounts, priceRangeCounts, inStockCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap categoryFilter(Collection<Integer> categoryIds, CategoryMatch match) {
+        if (categoryIds.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap result = null;
+        for (Integer categoryId : categoryIds) {
+            RoaringBitmap bitmap = categories.getOrDefault(categoryId, new RoaringBitmap());
+            if (result == null) {
+                result = bitmap.clone();
+            } else if (match == CategoryMatch.ALL) {
+                result.and(bitmap);
+            } else {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap priceFilter(Collection<PriceRange> selectedRanges) {
+        if (selectedRanges.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        selectedRanges.forEach(range -> result.or(priceRanges.get(range)));
+        return result;
+    }
+
+    // null の条件は無視して積集合を取る
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+        RoaringBitmap result = base.clone();
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private void removeInternal(int productId) {
+        if (!published.contains(productId)) {
+            return;
+        }
+        published.remove(productId);
+        inStock.remove(productId);
+        priceRanges.values().forEach(bitmap -> bitmap.remove(productId));
+
+        Iterator<Map.Entry<Integer, RoaringBitmap>> iterator = categories.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, RoaringBitmap> entry = iterator.next();
+            entry.getValue().remove(productId);
+            if (entry.getValue().isEmpty()) {
+                categoryNames.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.backend.service.facet;
+
+import com.example.backend.enums.PriceRange;
+import com.example.backend.event.CatalogChangedEvent;
+import com.example.backend.request.user.product.ProductFilterRequest;
+import com.example.backend.response.user.product.ProductCategoryResponse;
+import com.example.backend.response.user.product.ProductDetailResponse;
+import com.example.backend.response.user.product.ProductFacetResponse;
+import com.example.backend.response.user.product.ProductFilterResponse;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// カテゴリ・在庫・価格帯での絞り込みと件数集計（カタログスナップショットの差分でビットマップを更新する）
+@Service
+@RequiredArgsConstructor
+public class ProductFacetService {
+
+    private final ProductCatalogService productCatalogService;
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    public ProductFilterResponse filter(ProductFilterRequest request) {
+        int page = request.resolvedPage();
+        int size = request.resolvedSize();
+
+        ProductFacetIndex.Result result = index.query(
+                request.resolvedCategoryIds(),
+                request.resolvedMatch(),
+                Boolean.TRUE.equals(request.inStock()),
+                request.resolvedPriceRanges());
+
+        // 並び順はカタログのソート済みリストを走査して、該当するものだけ拾う
+        // int のまま掛けると大きなページ番号で桁あふれするので long で数え、該当件数を超えていれば走査しない
+        int total = result.matches().getCardinality();
+        long offset = (long) page * size;
+        long seen = 0;
+        List<ProductResponse> items = new ArrayList<>(size);
+        if (offset < total) {
+            for (ProductResponse product : productCatalogService.findSorted(request.resolvedSort())) {
+                if (!result.matches().contains(product.id())) {
+                    continue;
+                }
+                if (seen++ < offset) {
+                    continue;
+                }
+                items.add(product);
+                if (items.size() == size) {
+                    break;
+                }
+            }
+        }
+
+        boolean hasNext = offset + items.size() < total;
+        return new ProductFilterResponse(items, total, page, size, hasNext, toFacets(result));
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.reset()) {
+            index.clear();
+        }
+        event.removedIds().forEach(index::remove);
+        for (ProductDetailResponse product : event.upserted()) {
+            Map<Integer, String> categories = new HashMap<>();
+            for (ProductCategoryResponse category : product.productCategories()) {
+                categories.put(category.id().categoryId(), category.name());
+            }
+            index.upsert(product.id(), product.price(), product.stock(), categories);
+        }
+    }
+
+    private ProductFacetResponse toFacets(ProductFacetIndex.Result result) {
+        List<ProductFacetResponse.CategoryCount> categories = result.categoryCounts().entrySet().stream()
+                .map(entry -> new ProductFacetResponse.CategoryCount(
+                        entry.getKey(), index.categoryName(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparing(ProductFacetResponse.CategoryCount::id))
+                .toList();
+
+        List<ProductFacetResponse.PriceRangeCount> priceRanges = new ArrayList<>();
+        for (PriceRange range : PriceRange.values()) {
+            priceRanges.add(new ProductFacetResponse.PriceRangeCount(
+                    range.name(), result.priceRangeCounts().getOrDefault(range, 0)));
+        }
+
+        return new ProductFacetResponse(categories, priceRanges, result.inStockCount());
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.backend.service.image;
+
+import com.example.backend.entity.ProductImageEntity;
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.event.ProductImagesAddedEvent;
+import com.example.backend.repository.ProductImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// 商品画像の縮小版（サムネイル・一覧カード・詳細）の作成
+// アップロードのコミット後にバックグラウンドで作成し、失敗したら間隔を空けて再試行する
+// 待ち行列が一杯で断られた画像は、定期的な再走査で空きができたときに投入し直す
+// 作れない画像（未対応の形式・大きすぎる画像・再試行の上限）は失敗として記録し、元画像のまま配信する
+@Slf4j
+@Service
+public class ImageRenditionService {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(2);
+
+    // 縮小版の種類と長辺の最大ピクセル数（元画像より大きくはしない）
+    enum Variant {
+        THUMBNAIL(160),
+        CARD(480),
+        DETAIL(1200);
+
+        private final int maxSize;
+
+        Variant(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductImageStorage productImageStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    private final TransactionTemplate transaction;
+    // 投入済みで処理が終わっていない画像（再走査で二重に投入しない）
+    private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+
+    public ImageRenditionService(ProductImageRepository productImageRepository,
+                                 ProductImageStorage productImageStorage,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Qualifier("imageRenditionExecutor") ThreadPoolExecutor executor,
+                                 @Value("${app.image.rendition.max-pixels:40000000}") long maxPixels,
+                                 PlatformTransactionManager transactionManager) {
+        this.productImageRepository = productImageRepository;
+        this.productImageStorage = productImageStorage;
+        this.eventPublisher = eventPublisher;
+        this.executor = executor;
+        this.maxPixels = maxPixels;
+        // コミット後のリスナー・別スレッドから呼ばれるため、常に新しいトランザクションで読み書きする
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesAdded(ProductImagesAddedEvent event) {
+        event.imageIds().forEach(this::submit);
+    }
+
+    // 起動時と定期的に、縮小版が未作成の画像（停止中に処理しきれなかったもの・待ち行列から溢れたもの）を投入する
+    // 待ち行列の空き分だけ読む
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.image.rendition.rescan-interval:PT10M}",
+            fixedDelayString = "${app.image.rendition.rescan-interval:PT10M}")
+    public void enqueueMissing() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Integer> imageIds = transaction.execute(status ->
+                productImageRepository.findIdsWithoutRenditions(Limit.of(queued.size() + capacity)));
+        if (imageIds == null) {
+            return;
+        }
+        List<Integer> missing = imageIds.stream().filter(imageId -> !queued.contains(imageId)).toList();
+        if (!missing.isEmpty()) {
+            log.info("Queueing renditions for {} product images", missing.size());
+            missing.forEach(this::submit);
+        }
+    }
+
+    private void submit(Integer imageId) {
+        if (!queued.add(imageId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(imageId);
+                } finally {
+                    queued.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 待ち行列が一杯。未作成のまま残り、次の再走査で投入される
+            queued.remove(imageId);
+            log.debug("Rendition queue is full, deferring product image {}", imageId);
+        }
+    }
+
+    private void process(Integer imageId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                render(imageId);
+                return;
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("Failed to create renditions for product image {}", imageId, e);
+                    markFailed(imageId);
+                    return;
+                }
+                log.warn("Failed to create renditions for product image {} (attempt {}), retrying", imageId, attempt, e);
+                try {
+                    Thread.sleep(RETRY_BACKOFF.multipliedBy(1L << (attempt - 1)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void render(Integer imageId) throws IOException {
+        String imageUrl = transaction.execute(status -> productImageRepository.findByIdAndIsDeletedFalse(imageId)
+                .map(ProductImageEntity::getImageUrl)
+                .orElse(null));
+        if (imageUrl == null) {
+            return;
+        }
+
+        // 同じファイルの縮小版が作成済みなら、それを使う
+        Boolean reused = transaction.execute(status -> productImageRepository.findFirstByImageUrlAndThumbnailUrlIsNotNull(imageUrl)
+                .flatMap(done -> productImageRepository.findByIdAndIsDeletedFalse(imageId)
+                        .map(image -> {
+                            image.setWidth(done.getWidth());
+                            image.setHeight(done.getHeight());
+                            image.setThumbnailUrl(done.getThumbnailUrl());
+                            image.setCardUrl(done.getCardUrl());
+                            image.setDetailUrl(done.getDetailUrl());
+                            eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct().getId()));
+                            return true;
+                        }))
+                .orElse(false));
+        if (Boolean.TRUE.equals(reused)) {
+            return;
+        }
+
+        BufferedImage source = decode(imageId, productImageStorage.resolve(imageUrl));
+        if (source == null) {
+            markFailed(imageId);
+            return;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        Map<Variant, String> urls = new EnumMap<>(Variant.class);
+        for (Variant variant : Variant.values()) {
+            BufferedImage resized = resize(source, variant.maxSize, alpha);
+            urls.put(variant, productImageStorage.storeRendition(imageUrl, variant.name().toLowerCase(), resized, format));
+        }
+
+        Boolean saved = transaction.execute(status -> productImageRepository.findByIdAndIsDeletedFalse(imageId)
+                .filter(image -> imageUrl.equals(image.getImageUrl()))
+                .map(image -> {
+                    image.setWidth(source.getWidth());
+                    image.setHeight(source.getHeight());
+                    image.setThumbnailUrl(urls.get(Variant.THUMBNAIL));
+                    image.setCardUrl(urls.get(Variant.CARD));
+                    image.setDetailUrl(urls.get(Variant.DETAIL));
+                    // カタログのスナップショットに縮小版のURLを反映する
+                    eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct().getId()));
+                    return true;
+                })
+                .orElse(false));
+
+        // 作成中に画像が削除されていたら、どこからも参照されていなければ縮小版ごと消す
+        if (!Boolean.TRUE.equals(saved)) {
+            productImageStorage.releaseAfterCommit(List.of(imageUrl));
+        }
+    }
+
+    // ヘッダーの縦横サイズを先に読み、画素数が上限を超える画像（展開すると巨大になる画像）はデコードしない
+    // 再試行しても変わらない画像は null を返す
+    private BufferedImage decode(Integer imageId, Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                // ImageIOで読めない形式（WebPなど）
+                log.info("Skipping renditions for product image {}: unsupported format", imageId);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Skipping renditions for product image {}: {}x{} exceeds {} pixels",
+                            imageId, reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void markFailed(Integer imageId) {
+        transaction.executeWithoutResult(status -> productImageRepository.findByIdAndIsDeletedFalse(imageId)
+                .ifPresent(image -> image.setRenditionFailedAt(LocalDateTime.now())));
+    }
+
+    // 長辺が maxSize 以下になるよう縮小する（大きく縮める場合は半分ずつ縮めて画質を保つ）
+    static BufferedImage resize(BufferedImage source, int maxSize, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    // JPEGは透過を持てないので白で塗ってから描く
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        return current;
+    }
+}
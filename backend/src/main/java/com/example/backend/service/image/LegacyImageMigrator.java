@@ -0,0 +1,79 @@
+package com.example.backend.service.image;
+
+import com.example.backend.entity.ProductImageEntity;
+import com.example.backend.repository.ProductImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// 旧形式（uploads/images/products 直下の「時刻_連番.拡張子」）の画像を内容アドレス方式の配置へ移す
+// app.image.migrate-legacy=true で起動したときだけ実行する（途中で止まっても再実行すれば続きから移す）
+// 縮小版は作り直すため消しておき、起動完了後に ImageRenditionService が新しい配置で作成する
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.image.migrate-legacy", havingValue = "true")
+public class LegacyImageMigrator implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductImageStorage productImageStorage;
+    private final TransactionTemplate transaction;
+
+    public LegacyImageMigrator(ProductImageRepository productImageRepository,
+                               ProductImageStorage productImageStorage,
+                               PlatformTransactionManager transactionManager) {
+        this.productImageRepository = productImageRepository;
+        this.productImageStorage = productImageStorage;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Integer> imageIds = transaction.execute(status -> productImageRepository.findIdsWithLegacyUrl());
+        if (imageIds == null || imageIds.isEmpty()) {
+            log.info("No legacy product images to migrate");
+            return;
+        }
+
+        int migrated = 0;
+        for (int from = 0; from < imageIds.size(); from += BATCH_SIZE) {
+            List<Integer> batch = imageIds.subList(from, Math.min(from + BATCH_SIZE, imageIds.size()));
+            // バッチごとにコミットし、旧ファイルはコミット後に参照がなくなったものだけ消す
+            Integer count = transaction.execute(status -> migrate(batch));
+            migrated += count != null ? count : 0;
+        }
+        log.info("Migrated {} of {} legacy product images", migrated, imageIds.size());
+    }
+
+    private int migrate(List<Integer> imageIds) {
+        List<String> legacyUrls = new ArrayList<>();
+        for (ProductImageEntity image : productImageRepository.findAllById(imageIds)) {
+            String legacyUrl = image.getImageUrl();
+            Path legacyFile = productImageStorage.resolve(legacyUrl);
+            if (!Files.isRegularFile(legacyFile)) {
+                log.warn("Legacy image file not found for product image {}: {}", image.getId(), legacyUrl);
+                continue;
+            }
+
+            ProductImageStorage.StoredImage stored = productImageStorage.adopt(legacyFile);
+            image.setImageUrl(stored.imageUrl());
+            image.setContentHash(stored.contentHash());
+            image.setThumbnailUrl(null);
+            image.setCardUrl(null);
+            image.setDetailUrl(null);
+            legacyUrls.add(legacyUrl);
+        }
+        productImageStorage.releaseAfterCommit(legacyUrls);
+        return legacyUrls.size();
+    }
+}
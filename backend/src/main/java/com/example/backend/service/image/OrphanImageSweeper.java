@@ -0,0 +1,224 @@
+package com.example.backend.service.image;
+
+import com.example.backend.repository.ProductImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// どの product_images からも参照されていない画像ファイル（元画像・縮小版）を定期的に回収する
+// ファイルツリーとDBの参照URLをどちらもURLのバイト順で流し、マージしながら突き合わせる（全件をメモリに載せない）
+// 事前アップロード直後のファイルや保存中のファイルを消さないよう、更新時刻が猶予期間内のものは残す
+@Slf4j
+@Service
+public class OrphanImageSweeper {
+
+    private static final int BATCH_SIZE = 500;
+    private static final Path TEMP_DIR = Path.of("uploads/tmp");
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductImageStorage productImageStorage;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration grace;
+
+    public OrphanImageSweeper(ProductImageRepository productImageRepository,
+                              ProductImageStorage productImageStorage,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.image.sweep.grace:PT24H}") Duration grace) {
+        this.productImageRepository = productImageRepository;
+        this.productImageStorage = productImageStorage;
+        // 参照URLのカーソルはトランザクション内でしか読めない
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.grace = grace;
+    }
+
+    @Scheduled(initialDelayString = "${app.image.sweep.initial-delay:PT10M}",
+            fixedDelayString = "${app.image.sweep.interval:PT6H}")
+    public void sweep() {
+        Instant threshold = Instant.now().minus(grace);
+        long start = System.nanoTime();
+        int[] counts = readOnlyTransaction.execute(status -> sweepImages(threshold));
+        int temps = sweepTemp(threshold);
+        log.info("Orphan image sweep: scanned={}, reclaimed={}, temp files={}, {} ms",
+                counts[0], counts[1], temps, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    // 戻り値は {走査したファイル数, 削除したファイル数}
+    private int[] sweepImages(Instant threshold) {
+        int scanned = 0;
+        int reclaimed = 0;
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (Stream<String> referenced = productImageRepository.streamReferencedUrls()) {
+            Iterator<String> refs = referenced.iterator();
+            String ref = refs.hasNext() ? refs.next() : null;
+
+            Iterator<Path> files = new SortedFileIterator(Path.of(ProductImageStorage.UPLOAD_DIR));
+            while (files.hasNext()) {
+                Path file = files.next();
+                String url = toUrl(file);
+                scanned++;
+
+                while (ref != null && ref.compareTo(url) < 0) {
+                    ref = refs.hasNext() ? refs.next() : null;
+                }
+                if (url.equals(ref) || !isReclaimable(file, url, threshold)) {
+                    continue;
+                }
+                batch.add(file);
+                if (batch.size() >= BATCH_SIZE) {
+                    reclaimed += reclaim(batch, threshold);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            reclaimed += reclaim(batch, threshold);
+        }
+        return new int[]{scanned, reclaimed};
+    }
+
+    private boolean isReclaimable(Path file, String url, Instant threshold) {
+        if (productImageStorage.isInFlight(url)) {
+            return false;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(threshold);
+        } catch (IOException e) {
+            // 走査中に消えた
+            return false;
+        }
+    }
+
+    // 走査を始めた後にコミットされた参照もあるため、消す直前にまとめて確かめ直す
+    private int reclaim(List<Path> files, Instant threshold) {
+        List<String> urls = files.stream().map(OrphanImageSweeper::toUrl).toList();
+        Set<String> referenced = new HashSet<>(productImageRepository.findReferencedUrls(urls));
+
+        int deleted = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String url = urls.get(i);
+            if (referenced.contains(url) || !isReclaimable(file, url, threshold)) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete orphan image file: {}", file, e);
+            }
+        }
+        return deleted;
+    }
+
+    // 保存途中で異常終了した一時ファイル
+    private int sweepTemp(Instant threshold) {
+        if (!Files.isDirectory(TEMP_DIR)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(TEMP_DIR)) {
+            for (Path temp : temps) {
+                if (Files.isRegularFile(temp) && Files.getLastModifiedTime(temp).toInstant().isBefore(threshold)
+                        && Files.deleteIfExists(temp)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep temp directory: {}", TEMP_DIR, e);
+        }
+        return deleted;
+    }
+
+    private static String toUrl(Path file) {
+        return "/" + file.toString().replace('\\', '/');
+    }
+
+    // ディレクトリを深さ優先でたどり、URLのバイト順にファイルを返す
+    // 一度にメモリに載るのは、たどっている途中の各ディレクトリの一覧だけ
+    private static final class SortedFileIterator implements Iterator<Path> {
+
+        // 並べ替えのキー（ディレクトリは「名前/」にして、URL上の並びと一致させる）
+        private record Entry(String key, Path path) {
+        }
+
+        private final Deque<Iterator<Path>> stack = new ArrayDeque<>();
+        private Path next;
+
+        SortedFileIterator(Path root) {
+            if (Files.isDirectory(root)) {
+                stack.push(list(root));
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Path current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Iterator<Path> top = stack.peek();
+                if (!top.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Path path = top.next();
+                if (Files.isDirectory(path)) {
+                    stack.push(list(path));
+                } else if (Files.isRegularFile(path)) {
+                    next = path;
+                    return;
+                }
+            }
+        }
+
+        private static Iterator<Path> list(Path directory) {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    entries.add(new Entry(Files.isDirectory(path) ? name + "/" : name, path));
+                }
+            } catch (IOException e) {
+                log.warn("Failed to list image directory: {}", directory, e);
+            }
+            entries.sort(Comparator.comparing(Entry::key));
+            return entries.stream().map(Entry::path).iterator();
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.backend.service.image;
+
+import com.example.backend.repository.ProductImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 商品画像ファイルの保存と削除（内容アドレス方式）
+// ファイル名は内容のSHA-256で、ハッシュ先頭2桁・次の2桁の2階層に振り分ける（uploads/images/products/ab/cd/<hash>.png）
+// 同じ内容の画像は1ファイルを共有し、product_images から参照されなくなったときだけ削除する
+// 書き込みは一時ファイルへストリームで流し込み、書き終えてから公開ディレクトリへアトミックに移動する
+// ファイル操作はトランザクションごとのジャーナルに記録し、削除はコミット（保存の取り消しはロールバック）の後にだけ行う
+// 「参照の確認＋削除」と「存在の確認＋参照中の登録」は同じURLのロックの下で行い、確認と操作の間に割り込ませない
+// トランザクション外での保存（マルチパートの事前アップロード）は参照中として登録できないため、
+// 更新時刻が猶予期間内のファイルはここでは消さず、孤立ファイル回収（OrphanImageSweeper）に任せる
+@Slf4j
+@Component
+public class ProductImageStorage {
+
+    public static final String UPLOAD_DIR = "uploads/images/products";
+    private static final String RENDITION_DIR = UPLOAD_DIR + "/renditions";
+    // 同一ファイルシステム上に置き、移動をアトミックにする
+    private static final String TEMP_DIR = "uploads/tmp";
+    private static final long TRANSFER_CHUNK = 1 << 20;
+    // アップロードIDは保存先のファイル名（ハッシュ＋拡張子、パス区切りを含まない）
+    private static final Pattern UPLOAD_ID = Pattern.compile("([0-9a-f]{64})\\.(png|jpg|gif|webp)");
+    private static final int LOCK_STRIPES = 64;
+
+    private final ProductImageRepository productImageRepository;
+    private final Duration grace;
+
+    // コミット前のトランザクションが参照しようとしているファイル（参照数0でも消さない）
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ProductImageStorage(ProductImageRepository productImageRepository,
+                               @Value("${app.image.sweep.grace:PT24H}") Duration grace) {
+        this.productImageRepository = productImageRepository;
+        this.grace = grace;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // 保存済みの画像
+    public record StoredImage(String imageUrl, String contentHash) {
+    }
+
+    // data URL（data:image/png;base64,...）または生のBase64を、文字列のままデコードしながら保存する
+    // 文字列全体の byte[] やsplitのコピーは作らない
+    public StoredImage storeBase64(String base64Data) {
+        int comma = base64Data.indexOf(',');
+        String header = comma >= 0 ? base64Data.substring(0, comma) : null;
+        InputStream in = Base64.getMimeDecoder().wrap(new CharSequenceInputStream(base64Data, comma + 1));
+        return write(in, getExtensionFromContentType(header));
+    }
+
+    // マルチパートなどのストリームをそのまま保存する
+    public StoredImage store(InputStream in, String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("画像ファイルを指定してください");
+        }
+        return write(in, getExtensionFromContentType(contentType));
+    }
+
+    // 既存のファイルを内容アドレス方式の配置へ複製する（旧形式からの移行用）
+    public StoredImage adopt(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot).toLowerCase() : ".png";
+        try (InputStream in = Files.newInputStream(file)) {
+            return write(in, extension);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 事前アップロード済みの画像を参照する（ファイル名がそのままハッシュ）
+    public StoredImage resolveUpload(String uploadId) {
+        Matcher matcher = uploadId != null ? UPLOAD_ID.matcher(uploadId) : null;
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("不正なアップロードIDです");
+        }
+        String hash = matcher.group(1);
+        String imageUrl = imageUrl(hash, "." + matcher.group(2));
+        // 事前アップロードのファイルはこのトランザクションが書いたものではないので、ロールバックされても消さない
+        synchronized (lockFor(imageUrl)) {
+            if (!Files.isRegularFile(resolve(imageUrl))) {
+                throw new IllegalArgumentException("アップロードされた画像が見つかりません");
+            }
+            track(imageUrl, false);
+        }
+        return new StoredImage(imageUrl, hash);
+    }
+
+    // 公開URLに対応するファイルのパス
+    public Path resolve(String imageUrl) {
+        return Path.of(imageUrl.startsWith("/") ? imageUrl.substring(1) : imageUrl);
+    }
+
+    // 内容アドレス方式の公開URL
+    public static String imageUrl(String hash, String extension) {
+        return "/" + UPLOAD_DIR + "/" + shard(hash) + "/" + hash + extension;
+    }
+
+    // 縮小版を保存する（元画像のファイル名＋種類で命名し、作り直しても同じパスに置き換える）
+    public String storeRendition(String originalUrl, String variant, RenderedImage image, String format) {
+        String fileName = baseName(originalUrl) + "_" + variant + "." + format;
+        String directory = renditionDirectory(originalUrl);
+
+        Path temp = null;
+        try {
+            Path tempDir = Files.createDirectories(Path.of(TEMP_DIR));
+            Path renditionDir = Files.createDirectories(Path.of(directory));
+            temp = Files.createTempFile(tempDir, "rendition-", "." + format);
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("No image writer for format: " + format);
+            }
+            Files.move(temp, renditionDir.resolve(fileName),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return "/" + directory + "/" + fileName;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    // 保存したが使わなかった画像：このトランザクションの参照を外し、ほかから参照されていなければ削除する
+    // トランザクション外（事前アップロードの失敗）では、同じ内容の別のアップロードと共有しているかもしれないので回収に任せる
+    public void discard(StoredImage image) {
+        Journal journal = currentJournal();
+        if (journal != null && journal.created.remove(image.imageUrl())) {
+            release(image.imageUrl());
+        }
+        // 自分で書き込んだファイルだけはすぐに消す。既存・事前アップロードのファイルは回収に任せる
+        boolean written = journal != null && journal.written.remove(image.imageUrl());
+        deleteIfUnreferenced(image.imageUrl(), !written);
+    }
+
+    // 画像の参照を外したことをジャーナルに記録する：コミット後、どの行からも参照されていなければ縮小版ごと削除する
+    public void releaseAfterCommit(Collection<String> imageUrls) {
+        if (imageUrls.isEmpty()) {
+            return;
+        }
+        Journal journal = currentJournal();
+        if (journal == null) {
+            imageUrls.forEach(imageUrl -> deleteIfUnreferenced(imageUrl, true));
+            return;
+        }
+        journal.released.addAll(imageUrls);
+    }
+
+    public boolean isReferenced(String imageUrl) {
+        return isInFlight(imageUrl) || productImageRepository.countByImageUrlAndIsDeletedFalse(imageUrl) > 0;
+    }
+
+    // コミット前のトランザクションが保存・参照したファイルか
+    boolean isInFlight(String imageUrl) {
+        return inFlight.containsKey(imageUrl);
+    }
+
+    // keepRecent：猶予期間内に書き込み・再アップロードされたファイルは事前アップロード中かもしれないので残す
+    private void deleteIfUnreferenced(String imageUrl, boolean keepRecent) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return;
+        }
+        synchronized (lockFor(imageUrl)) {
+            Path file = resolve(imageUrl);
+            if (isReferenced(imageUrl) || (keepRecent && isRecent(file))) {
+                return;
+            }
+            deleteFile(file);
+            // 縮小版は元画像のファイル名から始まる
+            Path renditionDir = Path.of(renditionDirectory(imageUrl));
+            if (!Files.isDirectory(renditionDir)) {
+                return;
+            }
+            try (DirectoryStream<Path> renditions = Files.newDirectoryStream(renditionDir, baseName(imageUrl) + "_*")) {
+                renditions.forEach(this::deleteFile);
+            } catch (IOException e) {
+                log.warn("Failed to list renditions of {}", imageUrl, e);
+            }
+        }
+    }
+
+    private boolean isRecent(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isAfter(Instant.now().minus(grace));
+        } catch (IOException e) {
+            // 既に無い
+            return false;
+        }
+    }
+
+    private Object lockFor(String imageUrl) {
+        return locks[Math.floorMod(imageUrl.hashCode(), LOCK_STRIPES)];
+    }
+
+    private StoredImage write(InputStream in, String extension) {
+        MessageDigest digest = sha256();
+        Path temp = null;
+        try {
+            Path tempDir = Files.createDirectories(Path.of(TEMP_DIR));
+            temp = Files.createTempFile(tempDir, "upload-", extension);
+
+            // ヒープには転送用のバッファ分しか載せない
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(in, digest));
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+                target.force(false);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String imageUrl = imageUrl(hash, extension);
+            Path destination = resolve(imageUrl);
+            // 同じ内容が既にあれば書き込んだ一時ファイルは捨てる（finallyで削除）
+            // 既存ファイルは更新時刻を進め、孤立ファイル回収の猶予期間に入れる
+            synchronized (lockFor(imageUrl)) {
+                boolean written = false;
+                if (Files.exists(destination)) {
+                    touch(destination);
+                } else {
+                    Files.createDirectories(destination.getParent());
+                    try {
+                        Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE);
+                        written = true;
+                    } catch (FileAlreadyExistsException e) {
+                        // 同時に同じ画像が保存された
+                    }
+                }
+                track(imageUrl, written);
+            }
+            return new StoredImage(imageUrl, hash);
+        } catch (IOException e) {
+            throw new RuntimeException("画像の保存に失敗しました", e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    // トランザクションが終わるまで参照中として扱い、自分で書き込んだファイルはロールバックされたら参照がなければ削除する
+    // トランザクション外では何もしない（猶予期間の間は更新時刻で守られる）
+    private void track(String imageUrl, boolean written) {
+        Journal journal = currentJournal();
+        if (journal == null) {
+            return;
+        }
+        if (journal.created.add(imageUrl)) {
+            inFlight.merge(imageUrl, 1, Integer::sum);
+        }
+        if (written) {
+            journal.written.add(imageUrl);
+        }
+    }
+
+    private void release(String imageUrl) {
+        inFlight.computeIfPresent(imageUrl, (url, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // 実行中のトランザクションのジャーナル（トランザクション外なら null）
+    private Journal currentJournal() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Journal journal = (Journal) TransactionSynchronizationManager.getResource(this);
+        if (journal == null) {
+            journal = new Journal();
+            TransactionSynchronizationManager.bindResource(this, journal);
+            TransactionSynchronizationManager.registerSynchronization(journal);
+        }
+        return journal;
+    }
+
+    // トランザクション単位のファイル操作ジャーナル
+    // created：このトランザクションで保存・参照したファイル（終わるまで参照中として扱う）
+    // written：そのうちこのトランザクションが新しく書き込んだファイル（ロールバック時に参照がなければ削除）
+    // released：このトランザクションで参照を外したファイル（コミット時に参照がなければ削除）
+    private final class Journal implements TransactionSynchronization {
+
+        private final Set<String> created = new LinkedHashSet<>();
+        private final Set<String> written = new LinkedHashSet<>();
+        private final Set<String> released = new LinkedHashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductImageStorage.this);
+            created.forEach(ProductImageStorage.this::release);
+            if (status == STATUS_COMMITTED) {
+                released.forEach(imageUrl -> deleteIfUnreferenced(imageUrl, true));
+            } else {
+                written.forEach(imageUrl -> deleteIfUnreferenced(imageUrl, false));
+            }
+        }
+    }
+
+    // 内容アドレス方式のファイルは同じ振り分け先に、旧形式は renditions 直下に置く
+    private static String renditionDirectory(String imageUrl) {
+        String baseName = baseName(imageUrl);
+        return baseName.matches("[0-9a-f]{64}") ? RENDITION_DIR + "/" + shard(baseName) : RENDITION_DIR;
+    }
+
+    private static String shard(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4);
+    }
+
+    private static String baseName(String imageUrl) {
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete image file: {}", path, e);
+        }
+    }
+
+    private void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.warn("Failed to touch image file: {}", path);
+        }
+    }
+
+    private void deleteTemp(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file: {}", temp);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Content-Type または data URL のヘッダーから拡張子を取得する
+    static String getExtensionFromContentType(String header) {
+        if (header == null)
+            return ".png"; // デフォルト
+
+        if (header.contains("image/jpeg") || header.contains("image/jpg"))
+            return ".jpg";
+        else if (header.contains("image/png"))
+            return ".png";
+        else if (header.contains("image/gif"))
+            return ".gif";
+        else if (header.contains("image/webp"))
+            return ".webp";
+        else
+            return ".png"; // その他はpngにするなど適宜対応
+    }
+
+    // 文字列を1文字1バイトとして読む（Base64はASCIIのみなのでバイト列へのコピーは不要）
+    private static final class CharSequenceInputStream extends InputStream {
+
+        private final CharSequence chars;
+        private int position;
+
+        CharSequenceInputStream(CharSequence chars, int start) {
+            this.chars = chars;
+            this.position = start;
+        }
+
+        @Override
+        public int read() {
+            return position < chars.length() ? chars.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int remaining = chars.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) chars.charAt(position++);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.service.image;
+
+import com.example.backend.response.admin.product.UploadedImageResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 商品画像のマルチパートアップロード
+// パートごとに並行してディスクへ流し込み、後続の商品登録・更新では uploadId で参照する
+// トランザクション外で保存するため、商品に使われるまでの間は更新時刻の猶予期間（app.image.sweep.grace）だけで守られ、
+// 使われなかったファイルは孤立ファイル回収が消す
+@Service
+@RequiredArgsConstructor
+public class ProductImageUploadService {
+
+    private final ProductImageStorage productImageStorage;
+
+    public List<UploadedImageResponse> upload(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("画像ファイルを指定してください");
+        }
+
+        List<Future<ProductImageStorage.StoredImage>> futures = new ArrayList<>(files.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> store(file)));
+            }
+        }
+
+        // 1件でも失敗したら、保存できた分も消して失敗を返す
+        List<ProductImageStorage.StoredImage> stored = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        for (Future<ProductImageStorage.StoredImage> future : futures) {
+            try {
+                stored.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime
+                            ? runtime
+                            : new RuntimeException("画像の保存に失敗しました", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new RuntimeException("画像の保存が中断されました", e);
+            }
+        }
+        if (failure != null) {
+            stored.forEach(productImageStorage::discard);
+            throw failure;
+        }
+
+        return stored.stream()
+                .map(UploadedImageResponse::fromStoredImage)
+                .toList();
+    }
+
+    private ProductImageStorage.StoredImage store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return productImageStorage.store(in, file.getContentType());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.backend.service.image;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// /uploads 配下の配信ファイルを解決する
+// ファイル名に内容ハッシュを含むもの（内容アドレス方式の画像と縮小版）は中身が変わらないので、
+// ファイル名をそのまま強いETagにして長期キャッシュさせる
+@Service
+public class UploadedFileService {
+
+    private static final Path ROOT = Path.of("uploads").toAbsolutePath().normalize();
+    private static final Path TEMP = ROOT.resolve("tmp");
+
+    // <sha256>.ext または <sha256>_<variant>.ext
+    private static final Pattern VERSIONED = Pattern.compile("[0-9a-f]{64}(_[a-z]+)?\\.[a-z0-9]+");
+
+    // 事前圧縮版を探すのは圧縮が効く形式だけ（JPEG・PNG・WebPなどは対象外）
+    private static final MediaType SVG = MediaType.parseMediaType("image/svg+xml");
+
+    public enum Encoding {
+        BROTLI("br", ".br"),
+        GZIP("gzip", ".gz");
+
+        private final String token;
+        private final String suffix;
+
+        Encoding(String token, String suffix) {
+            this.token = token;
+            this.suffix = suffix;
+        }
+
+        public String token() {
+            return token;
+        }
+    }
+
+    // 配信するファイル（encoding が null なら無圧縮）
+    public record UploadedFile(
+            Path path,
+            long length,
+            long lastModified,
+            MediaType contentType,
+            Encoding encoding,
+            String etag,
+            boolean immutable,
+            boolean compressible) {
+    }
+
+    // リクエストパス（/uploads/...）を実ファイルに解決する。存在しない・範囲外は空
+    public Optional<UploadedFile> resolve(String requestPath, String acceptEncoding) {
+        if (!requestPath.startsWith("/uploads/")) {
+            return Optional.empty();
+        }
+        Path path;
+        try {
+            path = ROOT.resolve(requestPath.substring("/uploads/".length())).normalize();
+        } catch (InvalidPathException e) {
+            // デコード後にNUL文字などパスに使えない文字を含む
+            return Optional.empty();
+        }
+        // ディレクトリトラバーサルと書き込み途中の一時ファイルは配信しない（デコード済みのパスで判定する）
+        if (!path.startsWith(ROOT) || path.startsWith(TEMP)) {
+            return Optional.empty();
+        }
+
+        String fileName = path.getFileName().toString();
+        MediaType contentType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean compressible = isCompressible(contentType);
+        boolean immutable = VERSIONED.matcher(fileName).matches();
+
+        if (compressible && acceptEncoding != null) {
+            for (Encoding encoding : Encoding.values()) {
+                if (accepts(acceptEncoding, encoding.token)) {
+                    Optional<UploadedFile> encoded = describe(path.resolveSibling(fileName + encoding.suffix),
+                            contentType, encoding, immutable, true);
+                    if (encoded.isPresent()) {
+                        return encoded;
+                    }
+                }
+            }
+        }
+        return describe(path, contentType, null, immutable, compressible);
+    }
+
+    private Optional<UploadedFile> describe(Path path, MediaType contentType, Encoding encoding,
+                                            boolean immutable, boolean compressible) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (!attributes.isRegularFile()) {
+            return Optional.empty();
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String suffix = encoding != null ? "-" + encoding.token : "";
+        // 旧形式のファイルは内容ハッシュを持たないので、サイズと更新時刻から作る
+        String tag = immutable
+                ? stripExtension(path.getFileName().toString())
+                : Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        return Optional.of(new UploadedFile(path, length, lastModified, contentType, encoding,
+                "\"" + tag + suffix + "\"", immutable, compressible));
+    }
+
+    private static String stripExtension(String fileName) {
+        // 事前圧縮版（.gz/.br）の拡張子も含めて外す
+        int dot = fileName.indexOf('.');
+        return dot >= 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static boolean isCompressible(MediaType contentType) {
+        return SVG.includes(contentType)
+                || "text".equals(contentType.getType())
+                || MediaType.APPLICATION_JSON.includes(contentType);
+    }
+
+    // Accept-Encoding に指定の符号化が含まれ、q=0 で拒否されていないか
+    private static boolean accepts(String acceptEncoding, String token) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            if (!params[0].trim().equalsIgnoreCase(token)) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
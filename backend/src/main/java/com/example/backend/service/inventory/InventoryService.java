@@ -0,0 +1,106 @@
+package com.example.backend.service.inventory;
+
+import com.example.backend.event.ProductStockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// 在庫の引き当て
+// 読んでから書き戻すのではなく、在庫が足りるときだけ減らす条件付きUPDATEで売り越しを防ぐ
+// app.inventory.reservation.enabled=true のときはインメモリの引き当てエンジン、
+// app.inventory.sharded.enabled=true のときは inventory_shards へ任せる
+@Service
+@RequiredArgsConstructor
+public class InventoryService {
+
+    private static final String DECREMENT_STOCK = """
+            UPDATE products
+            SET stock = stock - ?, updated_at = CURRENT_TIMESTAMP
+            WHERE id = ? AND stock >= ? AND is_deleted = false
+            """;
+    private static final String ADJUST_STOCK =
+            "UPDATE products SET stock = GREATEST(stock + ?, 0) WHERE id = ? RETURNING stock";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<StockReservationEngine> reservationEngine;
+    private final Optional<ShardedInventory> shardedInventory;
+
+    // カート投入時の仮押さえ（エンジン無効時は何もしない）。変更前の数を返す
+    public int holdAdded(Integer userId, Integer productId, int quantity) {
+        return reservationEngine.map(engine -> engine.add(userId, productId, quantity)).orElse(0);
+    }
+
+    public int holdSet(Integer userId, Integer productId, int quantity) {
+        return reservationEngine.map(engine -> engine.set(userId, productId, quantity)).orElse(0);
+    }
+
+    public void release(Integer userId, Integer productId) {
+        reservationEngine.ifPresent(engine -> engine.release(userId, productId));
+    }
+
+    // 商品ID→数量をまとめて引き当てる。1件でも足りなければ例外にし、呼び出し元のトランザクションごと取り消す
+    // 行ロックの取得順をどのトランザクションでも同じにするため、商品ID昇順で流す（デッドロック回避）
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void decrement(Integer userId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (reservationEngine.isPresent()) {
+            reservationEngine.get().commit(userId, quantities);
+            return;
+        }
+        if (shardedInventory.isPresent()) {
+            // products.stock の書き戻しと在庫変動の通知は定期処理が行う
+            shardedInventory.get().decrement(quantities);
+            return;
+        }
+        decrementRows(quantities);
+    }
+
+    // 管理画面での在庫変更。読んだときの在庫からの差分として反映し、その間に売れた分を打ち消さない
+    // シャード方式ではシャードへ加える（products.stock は書き戻し待ちのキャッシュなので上書きしない）。変更後の在庫を返す
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int adjust(Integer productId, int delta) {
+        if (shardedInventory.isPresent()) {
+            Integer total = shardedInventory.get().adjust(productId, delta);
+            if (total != null) {
+                return total;
+            }
+        }
+        return jdbcTemplate.queryForObject(ADJUST_STOCK, Integer.class, delta, productId);
+    }
+
+    // products.stock を直接減らす（既定の引き当て方式。まとめて決済する経路からも使う）
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void decrementRows(Map<Integer, Integer> quantities) {
+        List<Integer> productIds = new ArrayList<>(new TreeMap<>(quantities).keySet());
+        List<Object[]> args = productIds.stream()
+                .map(productId -> new Object[]{quantities.get(productId), productId, quantities.get(productId)})
+                .toList();
+
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, args);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new RuntimeException("在庫が不足しています。商品ID: " + productIds.get(i)
+                        + "（リクエスト: " + quantities.get(productIds.get(i)) + "）");
+            }
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                // 件数が返らないドライバ設定では判定できないので、黙って通さない
+                throw new IllegalStateException("Stock decrement returned no update count for product: " + productIds.get(i));
+            }
+        }
+
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+    }
+}
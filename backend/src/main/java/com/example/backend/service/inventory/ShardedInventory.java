@@ -0,0 +1,261 @@
+package com.example.backend.service.inventory;
+
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.event.ProductStockChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// 在庫数を inventory_shards の複数行に分けて持つ
+// 減算は在庫の足りるシャードをランダムに1行選び、他のトランザクションがロック中の行は飛ばす（SKIP LOCKED）
+// products.stock は合計のキャッシュとして定期的に書き戻し、偏ったシャードはその際に均し直す
+// シャードが作られた後の在庫はシャード側が正。管理画面での変更も差分としてシャードへ加える（キャッシュから配り直さない）
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.inventory.sharded.enabled", havingValue = "true")
+public class ShardedInventory {
+
+    private static final String TAKE_FROM_ANY_SHARD = """
+            UPDATE inventory_shards
+            SET quantity = quantity - ?, updated_at = CURRENT_TIMESTAMP
+            WHERE (product_id, shard_no) = (
+                SELECT product_id, shard_no
+                FROM inventory_shards
+                WHERE product_id = ? AND quantity >= ?
+                ORDER BY random()
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+    private static final String LOCK_SHARDS =
+            "SELECT shard_no, quantity FROM inventory_shards WHERE product_id = ? ORDER BY shard_no FOR UPDATE";
+    private static final String ADD_TO_SHARD = """
+            UPDATE inventory_shards
+            SET quantity = quantity + ?, updated_at = CURRENT_TIMESTAMP
+            WHERE product_id = ? AND shard_no = ?
+            """;
+    private static final String SUM_SHARDS = "SELECT SUM(quantity) FROM inventory_shards WHERE product_id = ?";
+
+    // シャードの無い商品（新規登録・有効化直後）に、products.stock を均等に配って作る
+    // 定期処理と商品変更の通知から同時に走りうるので、先に作られていたら何もしない
+    private static final String PROVISION = """
+            INSERT INTO inventory_shards (product_id, shard_no, quantity)
+            SELECT p.id, g.shard_no, GREATEST(p.stock, 0) / ? + CASE WHEN g.shard_no < GREATEST(p.stock, 0) % ? THEN 1 ELSE 0 END
+            FROM products p
+            CROSS JOIN generate_series(0, ? - 1) AS g(shard_no)
+            WHERE NOT EXISTS (SELECT 1 FROM inventory_shards s WHERE s.product_id = p.id)
+            ON CONFLICT DO NOTHING
+            """;
+    // 変更された1商品だけを対象にしたもの
+    private static final String PROVISION_PRODUCT = """
+            INSERT INTO inventory_shards (product_id, shard_no, quantity)
+            SELECT p.id, g.shard_no, GREATEST(p.stock, 0) / ? + CASE WHEN g.shard_no < GREATEST(p.stock, 0) % ? THEN 1 ELSE 0 END
+            FROM products p
+            CROSS JOIN generate_series(0, ? - 1) AS g(shard_no)
+            WHERE p.id = ?
+              AND NOT EXISTS (SELECT 1 FROM inventory_shards s WHERE s.product_id = p.id)
+            ON CONFLICT DO NOTHING
+            """;
+    // シャード数を増やしたときの空のシャード
+    private static final String WIDEN = """
+            INSERT INTO inventory_shards (product_id, shard_no, quantity)
+            SELECT s.product_id, g.shard_no, 0
+            FROM (SELECT DISTINCT product_id FROM inventory_shards) s
+            CROSS JOIN generate_series(0, ? - 1) AS g(shard_no)
+            ON CONFLICT DO NOTHING
+            """;
+    // シャードの合計を products.stock へ書き戻す（updated_at は動かさない）
+    private static final String AGGREGATE = """
+            UPDATE products p
+            SET stock = s.total
+            FROM (
+                SELECT product_id, SUM(quantity) AS total
+                FROM inventory_shards
+                GROUP BY product_id
+            ) s
+            WHERE p.id = s.product_id AND p.stock <> s.total
+            RETURNING p.id
+            """;
+    // 最大と最小の差が大きい商品のシャードを均す（決済中でロックされている行は対象から外す）
+    private static final String REBALANCE = """
+            WITH skewed AS (
+                SELECT product_id
+                FROM inventory_shards
+                GROUP BY product_id
+                HAVING MAX(quantity) > 2 * MIN(quantity) + 1
+            ),
+            locked AS (
+                SELECT t.product_id, t.shard_no, t.quantity
+                FROM inventory_shards t
+                JOIN skewed USING (product_id)
+                FOR UPDATE OF t SKIP LOCKED
+            ),
+            totals AS (
+                SELECT product_id, SUM(quantity) AS total, COUNT(*) AS shards
+                FROM locked
+                GROUP BY product_id
+            ),
+            ranked AS (
+                SELECT product_id, shard_no, ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY shard_no) - 1 AS position
+                FROM locked
+            )
+            UPDATE inventory_shards t
+            SET quantity = totals.total / totals.shards + CASE WHEN ranked.position < totals.total % totals.shards THEN 1 ELSE 0 END
+            FROM ranked
+            JOIN totals USING (product_id)
+            WHERE t.product_id = ranked.product_id AND t.shard_no = ranked.shard_no
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate writeTransaction;
+    private final int shards;
+
+    public ShardedInventory(JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.inventory.sharded.shards:8}") int shards,
+                            @Value("${app.inventory.reservation.enabled:false}") boolean reservationEnabled) {
+        if (reservationEnabled) {
+            // インメモリ引き当ては products.stock へ直接書き出すため、合計の書き戻しと両立しない
+            throw new IllegalStateException("app.inventory.sharded.enabled and app.inventory.reservation.enabled are mutually exclusive");
+        }
+        if (shards <= 0) {
+            throw new IllegalStateException("app.inventory.sharded.shards must be positive: " + shards);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shards = shards;
+    }
+
+    // 呼び出し元のトランザクション内で、商品ID昇順に減算する。足りない商品があれば例外
+    public void decrement(Map<Integer, Integer> quantities) {
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (jdbcTemplate.update(TAKE_FROM_ANY_SHARD, quantity, productId, quantity) == 0) {
+                takeAcrossShards(productId, quantity);
+            }
+        });
+    }
+
+    // 1行では足りない（または空いている行が無い）ときは、その商品の全シャードを番号順にロックして集める
+    private void takeAcrossShards(Integer productId, int quantity) {
+        List<int[]> rows = lockShards(productId);
+        List<Object[]> takes = new ArrayList<>();
+        int remaining = takeFrom(rows, productId, quantity, takes);
+        if (remaining > 0) {
+            throw new RuntimeException("在庫が不足しています。商品ID: " + productId + "（リクエスト: " + quantity + "）");
+        }
+        jdbcTemplate.batchUpdate(ADD_TO_SHARD, takes);
+    }
+
+    // 管理画面での在庫変更を、呼び出し元のトランザクション内でシャードへ差分として加える。変更後の合計を返す
+    // 増やす分は全シャードへ均等に配り、減らす分は番号順に集める（販売済みで足りない分は0で止める）
+    // シャードがまだ無い商品は null（作成時に products.stock から配られる）
+    public Integer adjust(Integer productId, int delta) {
+        List<int[]> rows = lockShards(productId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<Object[]> moves = new ArrayList<>();
+        if (delta > 0) {
+            for (int i = 0; i < rows.size(); i++) {
+                int part = delta / rows.size() + (i < delta % rows.size() ? 1 : 0);
+                if (part > 0) {
+                    moves.add(new Object[]{part, productId, rows.get(i)[0]});
+                }
+            }
+        } else if (delta < 0) {
+            int remaining = takeFrom(rows, productId, -delta, moves);
+            if (remaining > 0) {
+                log.info("Stock of product {} reduced to 0; {} units were already sold", productId, remaining);
+            }
+        }
+        jdbcTemplate.batchUpdate(ADD_TO_SHARD, moves);
+        return jdbcTemplate.queryForObject(SUM_SHARDS, Integer.class, productId);
+    }
+
+    // 戻り値は {shard_no, quantity}。ロック順はどの経路でもシャード番号順
+    private List<int[]> lockShards(Integer productId) {
+        return jdbcTemplate.query(LOCK_SHARDS,
+                (rs, rowNum) -> new int[]{rs.getInt("shard_no"), rs.getInt("quantity")}, productId);
+    }
+
+    // ロック済みのシャードから番号順に quantity を集める減算を moves へ積み、集めきれなかった数を返す
+    private static int takeFrom(List<int[]> rows, Integer productId, int quantity, List<Object[]> moves) {
+        int remaining = quantity;
+        for (int[] row : rows) {
+            if (remaining == 0) {
+                break;
+            }
+            int part = Math.min(row[1], remaining);
+            if (part > 0) {
+                moves.add(new Object[]{-part, productId, row[0]});
+                remaining -= part;
+            }
+        }
+        return remaining;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionAll() {
+        writeTransaction.executeWithoutResult(status -> {
+            int widened = jdbcTemplate.update(WIDEN, shards);
+            int created = jdbcTemplate.update(PROVISION, shards, shards, shards);
+            log.info("Inventory shards ready: {} created, {} added by widening", created, widened);
+        });
+    }
+
+    // 登録された商品のシャードをすぐ作る（定期処理を待たない）
+    // コミット後に呼ばれるので、失敗しても商品の保存は失敗にしない（定期処理で作り直す）
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        try {
+            writeTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.update(PROVISION_PRODUCT, shards, shards, shards, event.productId()));
+        } catch (DataAccessException e) {
+            log.warn("Failed to provision inventory shards for product {}: {}", event.productId(), e.getMessage());
+        }
+    }
+
+    // 新規商品のシャード作成、合計の書き戻し、偏りの均し
+    @Scheduled(initialDelayString = "${app.inventory.sharded.maintain-interval:PT5S}",
+            fixedDelayString = "${app.inventory.sharded.maintain-interval:PT5S}")
+    public synchronized void maintain() {
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(PROVISION, shards, shards, shards);
+            List<Integer> changed = jdbcTemplate.queryForList(AGGREGATE, Integer.class);
+            if (!changed.isEmpty()) {
+                eventPublisher.publishEvent(new ProductStockChangedEvent(changed));
+            }
+        });
+        // 均しは決済と競合する行ロックを取るので、短い別トランザクションにする
+        Integer rebalanced = writeTransaction.execute(status -> jdbcTemplate.update(REBALANCE));
+        if (rebalanced != null && rebalanced > 0) {
+            log.debug("Rebalanced {} inventory shards", rebalanced);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintain();
+    }
+}
@@ -0,0 +1,410 @@
+package com.example.backend.service.inventory;
+
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.event.ProductStockChangedEvent;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.repository.projection.ProductStockRow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntUnaryOperator;
+
+// フラッシュセール向けのインメモリ在庫引き当て
+// 商品ごとの残数をメモリ上のカウンタで持ち、カート投入時に仮押さえ（TTL付き）、決済時に確定する
+// 確定した販売数はまとめてDBへ書き出すので、products の行への書き込みは書き出し1回につき1回で済む
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.inventory.reservation.enabled", havingValue = "true")
+public class StockReservationEngine {
+
+    private static final String APPLY_SALES = """
+            UPDATE products
+            SET stock = stock - ?, updated_at = CURRENT_TIMESTAMP
+            WHERE id = ? AND stock >= ?
+            """;
+    // 管理画面で販売済みの分より少なく減らされていた商品（売れた分は取り消せないので0で止める）
+    private static final String EXHAUST_STOCK =
+            "UPDATE products SET stock = 0, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    // ストライプ数（2の累乗）と、隣り合うストライプが同じキャッシュラインに載らないための間隔
+    private static final int STRIPES = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 16));
+    private static final int PADDING = 16;
+
+    // 商品ごとの残数。スレッドごとに担当のストライプから取り、同じ商品への同時アクセスを分散させる
+    private static final class Counter {
+
+        final AtomicIntegerArray stripes = new AtomicIntegerArray(STRIPES * PADDING);
+        // 仮押さえ中の数と、確定済みでDBへ未反映の数
+        final AtomicInteger held = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger();
+        // 在庫が減らされたときに残数から引ききれなかった数。戻ってきた分（仮押さえの解放など）から先に返済する
+        final AtomicInteger debt = new AtomicInteger();
+        // 最後に把握したDBの在庫数（エンジンのロック下でだけ読み書きする）
+        int recorded;
+
+        Counter(int stock) {
+            recorded = stock;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.set(i * PADDING, Math.max(stock, 0) / STRIPES + (i < Math.max(stock, 0) % STRIPES ? 1 : 0));
+            }
+        }
+
+        boolean take(int quantity) {
+            int home = home();
+            for (int i = 0; i < STRIPES; i++) {
+                int slot = ((home + i) & (STRIPES - 1)) * PADDING;
+                int value;
+                while ((value = stripes.get(slot)) >= quantity) {
+                    if (stripes.compareAndSet(slot, value, value - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            // 1つのストライプで足りなければ複数から集める（集めきれなければ戻す）
+            int taken = 0;
+            for (int i = 0; i < STRIPES && taken < quantity; i++) {
+                int slot = ((home + i) & (STRIPES - 1)) * PADDING;
+                int value;
+                while ((value = stripes.get(slot)) > 0) {
+                    int part = Math.min(value, quantity - taken);
+                    if (stripes.compareAndSet(slot, value, value - part)) {
+                        taken += part;
+                        break;
+                    }
+                }
+            }
+            if (taken < quantity) {
+                give(taken);
+                return false;
+            }
+            return true;
+        }
+
+        void give(int quantity) {
+            int owed;
+            while (quantity > 0 && (owed = debt.get()) > 0) {
+                int part = Math.min(owed, quantity);
+                if (debt.compareAndSet(owed, owed - part)) {
+                    quantity -= part;
+                }
+            }
+            if (quantity > 0) {
+                stripes.addAndGet(home() * PADDING, quantity);
+            }
+        }
+
+        // 残数から最大 quantity を引き、引けた数を返す
+        int drain(int quantity) {
+            int taken = 0;
+            for (int i = 0; i < STRIPES && taken < quantity; i++) {
+                int slot = i * PADDING;
+                int value;
+                while ((value = stripes.get(slot)) > 0 && taken < quantity) {
+                    int part = Math.min(value, quantity - taken);
+                    if (stripes.compareAndSet(slot, value, value - part)) {
+                        taken += part;
+                    }
+                }
+            }
+            return taken;
+        }
+
+        // DBの在庫数の増減を残数へ加える。仮押さえ・確定済みの分は動かさない
+        void adjust(int delta) {
+            if (delta > 0) {
+                give(delta);
+            } else if (delta < 0) {
+                debt.addAndGet(-delta - drain(-delta));
+            }
+        }
+
+        int available() {
+            int sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        private static int home() {
+            return (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+        }
+    }
+
+    // ユーザー×商品ごとの仮押さえ
+    // committing：決済のトランザクションが終わるまで、期限切れ・変更の対象から外す
+    private record Hold(Integer productId, int quantity, long expiresAtMillis, boolean committing) {
+    }
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final long ttlMillis;
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    public StockReservationEngine(ProductRepository productRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.inventory.reservation.ttl:PT15M}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // カウンタの初期値は呼び出し元のトランザクションに関係なく読む
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    // 仮押さえを指定数にする（期限も延ばす）。足りなければ例外。変更前の数を返す
+    public int set(Integer userId, Integer productId, int quantity) {
+        return hold(userId, productId, previous -> quantity);
+    }
+
+    // 仮押さえを増やす。変更前の数を返す
+    public int add(Integer userId, Integer productId, int quantity) {
+        return hold(userId, productId, previous -> previous + quantity);
+    }
+
+    public void release(Integer userId, Integer productId) {
+        hold(userId, productId, previous -> 0);
+    }
+
+    // 決済：仮押さえを確定に切り替え、足りない分はその場で引き当てる
+    // 先に全商品を確かめ、1商品でも足りなければ何も変えずに断る（仮押さえはそのまま残る）
+    // 仮押さえを外すのは呼び出し元のトランザクションのコミット後。ロールバックされたら仮押さえに戻す
+    public void commit(Integer userId, Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> held = new LinkedHashMap<>();
+        Map<Counter, Integer> extra = new LinkedHashMap<>();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                Counter counter = counter(productId);
+                Hold hold = holds.computeIfPresent(key(userId, productId), (key, current) -> {
+                    if (current.committing()) {
+                        throw new IllegalArgumentException("決済処理中の商品が含まれています。商品ID: " + productId);
+                    }
+                    return new Hold(productId, current.quantity(), current.expiresAtMillis(), true);
+                });
+                int heldQuantity = hold != null ? hold.quantity() : 0;
+                held.put(productId, heldQuantity);
+                if (quantity > heldQuantity) {
+                    if (!counter.take(quantity - heldQuantity)) {
+                        throw new RuntimeException("在庫が不足しています。商品ID: " + productId
+                                + "（リクエスト: " + quantity + "）");
+                    }
+                    extra.put(counter, quantity - heldQuantity);
+                }
+            });
+        } catch (RuntimeException e) {
+            cancel(userId, held.keySet(), extra);
+            throw e;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(userId, quantities, held);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    complete(userId, quantities, held);
+                } else {
+                    cancel(userId, held.keySet(), extra);
+                }
+            }
+        });
+    }
+
+    // 確定：仮押さえを外し、使わなかった分は残数へ戻して、販売数を書き出し対象にする
+    private void complete(Integer userId, Map<Integer, Integer> quantities, Map<Integer, Integer> held) {
+        quantities.forEach((productId, quantity) -> {
+            Counter counter = counters.get(productId);
+            int heldQuantity = held.get(productId);
+            if (heldQuantity > 0) {
+                holds.remove(key(userId, productId));
+                counter.held.addAndGet(-heldQuantity);
+            }
+            if (heldQuantity > quantity) {
+                counter.give(heldQuantity - quantity);
+            }
+            counter.pending.addAndGet(quantity);
+        });
+    }
+
+    // 取り消し：追加で引き当てた分を残数へ戻し、仮押さえを元に戻す（期限は延ばす）
+    private void cancel(Integer userId, Collection<Integer> productIds, Map<Counter, Integer> extra) {
+        extra.forEach(Counter::give);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        productIds.forEach(productId -> holds.computeIfPresent(key(userId, productId), (key, hold) ->
+                hold.committing() ? new Hold(productId, hold.quantity(), expiresAt, false) : hold));
+    }
+
+    // 期限切れの仮押さえを残数へ戻す
+    @Scheduled(fixedDelayString = "${app.inventory.reservation.sweep-interval:PT10S}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        holds.forEach((key, hold) -> {
+            if (!hold.committing() && hold.expiresAtMillis() <= now && holds.remove(key, hold)) {
+                Counter counter = counters.get(hold.productId());
+                if (counter != null) {
+                    counter.held.addAndGet(-hold.quantity());
+                    counter.give(hold.quantity());
+                }
+            }
+        });
+    }
+
+    // 確定済みの販売数を商品ごとに1行の更新へまとめてDBへ書き出す
+    @Scheduled(initialDelayString = "${app.inventory.reservation.flush-interval:PT1S}",
+            fixedDelayString = "${app.inventory.reservation.flush-interval:PT1S}")
+    public synchronized void flush() {
+        Map<Integer, Integer> sales = new LinkedHashMap<>();
+        counters.forEach((productId, counter) -> {
+            int sold = counter.pending.getAndSet(0);
+            if (sold > 0) {
+                sales.put(productId, sold);
+            }
+        });
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        List<Integer> productIds = new ArrayList<>(sales.keySet());
+        productIds.sort(null);
+        List<Object[]> args = productIds.stream()
+                .map(productId -> new Object[]{sales.get(productId), productId, sales.get(productId)})
+                .toList();
+        int[] counts;
+        try {
+            counts = writeTransaction.execute(status -> {
+                int[] applied = jdbcTemplate.batchUpdate(APPLY_SALES, args);
+                for (int i = 0; i < applied.length; i++) {
+                    if (applied[i] == Statement.SUCCESS_NO_INFO) {
+                        throw new IllegalStateException("Stock flush returned no update count for product: " + productIds.get(i));
+                    }
+                    if (applied[i] == 0) {
+                        log.error("Product {} was oversold by the reservation engine; stock set to 0 (sold: {})",
+                                productIds.get(i), sales.get(productIds.get(i)));
+                        jdbcTemplate.update(EXHAUST_STOCK, productIds.get(i));
+                    }
+                }
+                eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+                return applied;
+            });
+        } catch (RuntimeException e) {
+            // 次回の書き出しで再送する
+            log.warn("Failed to flush stock sales, will retry: {}", e.getMessage());
+            sales.forEach((productId, sold) -> counters.get(productId).pending.addAndGet(sold));
+            return;
+        }
+        // 書き出した分だけ把握しているDBの在庫数を進める（コミットと同じロック区間で行い、onProductChanged と食い違わせない）
+        for (int i = 0; i < productIds.size(); i++) {
+            Counter counter = counters.get(productIds.get(i));
+            counter.recorded = counts[i] == 0 ? 0 : counter.recorded - sales.get(productIds.get(i));
+        }
+    }
+
+    // 管理画面で在庫数が変わったら、前回把握したDBの在庫数との差だけを残数へ加える
+    // 残数を絶対値で合わせ直すと、決済中（コミット前）や書き出し中の分を二重に売ってしまう
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Counter counter = counters.get(event.productId());
+        if (counter == null) {
+            return;
+        }
+        List<ProductStockRow> rows = productRepository.findStocksByIdIn(List.of(event.productId()));
+        if (rows.isEmpty()) {
+            // 削除された商品はそれ以上引き当てない（仮押さえの解放などで戻ってくる分も残数へ戻さない）
+            counter.drain(Integer.MAX_VALUE);
+            counter.debt.set(Integer.MAX_VALUE);
+            return;
+        }
+        int stock = rows.get(0).stock();
+        counter.adjust(stock - counter.recorded);
+        counter.recorded = stock;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private int hold(Integer userId, Integer productId, IntUnaryOperator update) {
+        Counter counter = counter(productId);
+        int[] previous = new int[1];
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        // 同じユーザー×商品への操作は compute で直列化される（商品単位のロックは取らない）
+        holds.compute(key(userId, productId), (key, hold) -> {
+            if (hold != null && hold.committing()) {
+                throw new IllegalArgumentException("決済処理中のため変更できません");
+            }
+            previous[0] = hold != null ? hold.quantity() : 0;
+            int quantity = update.applyAsInt(previous[0]);
+            int delta = quantity - previous[0];
+            if (delta > 0 && !counter.take(delta)) {
+                throw new IllegalArgumentException("在庫が不足しています。現在の在庫: " + counter.available());
+            }
+            counter.give(-delta);
+            counter.held.addAndGet(delta);
+            return quantity > 0 ? new Hold(productId, quantity, expiresAt, false) : null;
+        });
+        return previous[0];
+    }
+
+    // 初回だけDBから読む。読み込みは computeIfAbsent の外で行い、ほかの商品の操作を待たせない
+    // エンジンのロック下で作るので、onProductChanged と食い違った値で作られることはない
+    private Counter counter(Integer productId) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (this) {
+            counter = counters.get(productId);
+            if (counter != null) {
+                return counter;
+            }
+            List<ProductStockRow> rows = readTransaction.execute(status ->
+                    productRepository.findStocksByIdIn(List.of(productId)));
+            if (rows == null || rows.isEmpty()) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
+            counter = new Counter(rows.get(0).stock());
+            counters.putIfAbsent(productId, counter);
+            return counters.get(productId);
+        }
+    }
+
+    private static long key(Integer userId, Integer productId) {
+        return ((long) userId << 32) | (productId & 0xffffffffL);
+    }
+}
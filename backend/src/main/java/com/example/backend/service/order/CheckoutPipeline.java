@@ -0,0 +1,469 @@
+package com.example.backend.service.order;
+
+import com.example.backend.entity.ProductEntity;
+import com.example.backend.enums.OrderStatus;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.request.user.order.OrderCreateRequest;
+import com.example.backend.response.user.order.OrderItemResponse;
+import com.example.backend.response.user.order.OrderResponse;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.service.cart.CartStore;
+import com.example.backend.service.inventory.InventoryService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 決済のグループコミット（セール時のピーク向け）
+// 決済リクエストを有界キューに積み、1本の書き込みスレッドが最大 N 件または T ミリ秒ごとにまとめて、
+// 在庫の確認・減算、注文と明細のINSERTを1トランザクション（コミット1回）で行う
+// 在庫不足・空のカートなどは、その注文だけを失敗させて残りはそのまま確定する
+// まとめての書き込みがDBエラーになったときは、注文ごとにセーブポイントを切って書き直し、失敗した注文だけを断る
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.checkout.group-commit.enabled", havingValue = "true")
+public class CheckoutPipeline {
+
+    private static final String LOAD_CART_LINES = """
+            SELECT c.user_id, c.id AS cart_id, ci.product_id, ci.quantity, p.price, p.name
+            FROM carts c
+            JOIN cart_items ci ON ci.cart_id = c.id
+            JOIN products p ON p.id = ci.product_id
+            WHERE c.user_id = ANY (?) AND c.is_deleted = false
+            ORDER BY ci.id
+            """;
+    // 通常の決済と同じく商品ID昇順でロックする。削除済みの商品は在庫に含めない（その注文だけを断る）
+    private static final String LOCK_STOCKS =
+            "SELECT id, stock FROM products WHERE id = ANY (?) AND is_deleted = false ORDER BY id FOR UPDATE";
+    // pooled-lo 採番（1回のnextvalで50件分）に合わせてIDをまとめて確保する
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String NEXT_IDS = "SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)";
+    private static final String INSERT_ORDER = """
+            INSERT INTO orders (id, user_id, total_amount, status, shipping_address, created_at, updated_at)
+            VALUES (?, ?, ?, CAST(? AS order_status), ?, ?, ?)
+            """;
+    private static final String INSERT_ORDER_ITEM = """
+            INSERT INTO order_items (id, order_id, product_id, quantity, price, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+    // 読み込んだ明細だけを消す。読み込んだ後に追加・数量変更された明細は注文していないので残す
+    private static final String DELETE_CART_ITEMS = """
+            DELETE FROM cart_items ci
+            USING unnest(CAST(? AS integer[]), CAST(? AS integer[]), CAST(? AS integer[]))
+                AS ordered(cart_id, product_id, quantity)
+            WHERE ci.cart_id = ordered.cart_id
+              AND ci.product_id = ordered.product_id
+              AND ci.quantity = ordered.quantity
+            """;
+
+    // 受け付けた決済。書き込みスレッドが取り出すまでは取り下げられ、取り出した後は結果が必ず返る
+    public static final class Ticket {
+
+        private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        public CompletableFuture<OrderResponse> result() {
+            return result;
+        }
+
+        // まだ処理が始まっていなければ取り下げて true を返す（取り下げた決済は書き込みスレッドが読み飛ばす）
+        public boolean withdraw() {
+            if (!started.compareAndSet(false, true)) {
+                return false;
+            }
+            result.cancel(false);
+            return true;
+        }
+
+        private boolean start() {
+            return started.compareAndSet(false, true);
+        }
+    }
+
+    private record Pending(Integer userId, OrderCreateRequest request, Ticket ticket) {
+
+        CompletableFuture<OrderResponse> result() {
+            return ticket.result();
+        }
+    }
+
+    private record CartLine(Integer cartId, Integer productId, int quantity, int price, String name) {
+    }
+
+    // バッチ内で確定した注文（IDはINSERT前に割り当てる）
+    private record PlacedOrder(Pending pending, Integer cartId, List<CartLine> lines, int totalAmount,
+                               Integer orderId, List<Integer> itemIds, LocalDateTime createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryService inventoryService;
+    private final CartStore cartStore;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedOrders = new AtomicLong();
+
+    public CheckoutPipeline(JdbcTemplate jdbcTemplate,
+                            InventoryService inventoryService,
+                            CartStore cartStore,
+                            ProductRepository productRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.checkout.group-commit.queue-capacity:1000}") int queueCapacity,
+                            @Value("${app.checkout.group-commit.max-batch-size:50}") int maxBatchSize,
+                            @Value("${app.checkout.group-commit.max-wait:PT0.005S}") Duration maxWait,
+                            @Value("${app.inventory.reservation.enabled:false}") boolean reservationEnabled,
+                            @Value("${app.inventory.sharded.enabled:false}") boolean shardedEnabled) {
+        if (reservationEnabled || shardedEnabled) {
+            // 注文ごとの失敗をバッチ内で切り分けられるのは、ロックした products.stock を見て判定できる既定の方式だけ
+            throw new IllegalStateException("app.checkout.group-commit.enabled requires the default row-based inventory");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryService = inventoryService;
+        this.cartStore = cartStore;
+        this.productRepository = productRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.writer = Thread.ofPlatform().name("checkout-writer").daemon().unstarted(this::drain);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    // キューに積み、結果は書き込みスレッドが確定したときに返る。キューが一杯なら即座に断る
+    public Ticket submit(Integer userId, OrderCreateRequest request) {
+        Pending pending = new Pending(userId, request, new Ticket());
+        if (!running || !queue.offer(pending)) {
+            throw new RuntimeException("ただいま注文が混み合っています。しばらくしてからお試しください");
+        }
+        return pending.ticket();
+    }
+
+    public long batches() {
+        return batches.get();
+    }
+
+    public long batchedOrders() {
+        return batchedOrders.get();
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // 処理されずに残ったものは失敗として返す
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(pending -> pending.result().completeExceptionally(new RuntimeException("Checkout pipeline stopped")));
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null || !first.ticket().start()) {
+                    continue;
+                }
+                batch.add(first);
+                // 最初の1件から最大 T ミリ秒だけ後続を待つ
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.ticket().start()) {
+                        batch.add(next);
+                    }
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                // Error でも書き込みスレッドは止めない（止まると以降の決済がすべてタイムアウトまで待たされる）
+                // 結果が返っていない注文だけを失敗にする（確定済みの注文には影響しない）
+                log.error("Checkout batch failed", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        batch.forEach(pending -> pending.result().completeExceptionally(new RuntimeException("Checkout pipeline stopped")));
+    }
+
+    private void process(List<Pending> batch) {
+        // メモリ上のカートを使う場合は、先にDBへ書き出しておく。書き出せなかった注文だけを断る
+        List<Pending> ready = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                cartStore.flush(pending.userId());
+                ready.add(pending);
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush cart for user {}: {}", pending.userId(), e.getMessage());
+                pending.result().completeExceptionally(
+                        new RuntimeException("注文を確定できませんでした。もう一度お試しください"));
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        // コミット後のリスナー（カタログの更新など）が失敗すると execute は例外を投げるが、注文は確定している
+        // コミットできたかどうかは afterCompletion で受け取り、確定した注文は成功として返す
+        AtomicReference<List<PlacedOrder>> result = new AtomicReference<>(List.of());
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                    @Override
+                    public void afterCompletion(int completion) {
+                        committed.set(completion == STATUS_COMMITTED);
+                    }
+                });
+                result.set(place(ready, status));
+            });
+        } catch (RuntimeException e) {
+            if (!committed.get()) {
+                throw e;
+            }
+            log.error("Post-commit processing failed for a committed checkout batch", e);
+        }
+        batches.incrementAndGet();
+        batchedOrders.addAndGet(ready.size());
+        List<PlacedOrder> placed = result.get();
+        if (placed.isEmpty()) {
+            return;
+        }
+
+        // 明細の商品情報はコミット後にまとめて1回で読む
+        // 注文はすでに確定しているので、読めなくても失敗にはせず商品情報なしで返す
+        Set<Integer> productIds = placed.stream()
+                .flatMap(order -> order.lines().stream())
+                .map(CartLine::productId)
+                .collect(Collectors.toSet());
+        Map<Integer, ProductResponse> products = Map.of();
+        try {
+            products = readOnlyTransaction.execute(status ->
+                    productRepository.findWithDetailsByIdIn(productIds).stream()
+                            .collect(Collectors.toMap(ProductEntity::getId, ProductResponse::fromEntity)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load products for placed orders: {}", e.getMessage());
+        }
+        for (PlacedOrder order : placed) {
+            order.pending().result().complete(toResponse(order, products));
+        }
+    }
+
+    // 1トランザクション内：カートを読み、在庫をロックして注文ごとに判定し、通った注文だけをまとめて書く
+    private List<PlacedOrder> place(List<Pending> batch, TransactionStatus status) {
+        Integer[] userIds = batch.stream().map(Pending::userId).distinct().toArray(Integer[]::new);
+        Map<Integer, List<CartLine>> linesByUser = new HashMap<>();
+        jdbcTemplate.query(LOAD_CART_LINES, rs -> {
+            linesByUser.computeIfAbsent(rs.getInt("user_id"), id -> new ArrayList<>())
+                    .add(new CartLine(rs.getInt("cart_id"), rs.getInt("product_id"), rs.getInt("quantity"),
+                            rs.getInt("price"), rs.getString("name")));
+        }, (Object) userIds);
+
+        Integer[] productIds = linesByUser.values().stream()
+                .flatMap(List::stream)
+                .map(CartLine::productId)
+                .distinct()
+                .toArray(Integer[]::new);
+        Map<Integer, Integer> stocks = new HashMap<>();
+        if (productIds.length > 0) {
+            jdbcTemplate.query(LOCK_STOCKS, rs -> {
+                stocks.put(rs.getInt("id"), rs.getInt("stock"));
+            }, (Object) productIds);
+        }
+
+        // 受け付け順に在庫を割り当てる
+        List<Pending> accepted = new ArrayList<>();
+        Map<Pending, List<CartLine>> acceptedLines = new LinkedHashMap<>();
+        Set<Integer> checkedOut = new HashSet<>();
+        for (Pending pending : batch) {
+            List<CartLine> lines = checkedOut.add(pending.userId())
+                    ? linesByUser.getOrDefault(pending.userId(), List.of())
+                    : List.of();
+            RuntimeException rejection = validate(pending.request(), lines, stocks);
+            if (rejection != null) {
+                pending.result().completeExceptionally(rejection);
+                continue;
+            }
+            lines.forEach(line -> stocks.merge(line.productId(), -line.quantity(), Integer::sum));
+            accepted.add(pending);
+            acceptedLines.put(pending, lines);
+        }
+        if (accepted.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> orderIds = nextIds("orders_id_seq", accepted.size());
+        List<Integer> itemIds = nextIds("order_items_id_seq",
+                acceptedLines.values().stream().mapToInt(List::size).sum());
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<PlacedOrder> placed = new ArrayList<>(accepted.size());
+        int itemIndex = 0;
+        for (int i = 0; i < accepted.size(); i++) {
+            Pending pending = accepted.get(i);
+            List<CartLine> lines = acceptedLines.get(pending);
+            int totalAmount = lines.stream().mapToInt(line -> line.quantity() * line.price()).sum();
+            placed.add(new PlacedOrder(pending, lines.get(0).cartId(), lines, totalAmount, orderIds.get(i),
+                    itemIds.subList(itemIndex, itemIndex + lines.size()), createdAt));
+            itemIndex += lines.size();
+        }
+
+        // 通常はまとめて書く。検証をすり抜けたDBエラー（制約違反など）が出たら、注文ごとに書き直して切り分ける
+        Object savepoint = status.createSavepoint();
+        try {
+            write(placed);
+            status.releaseSavepoint(savepoint);
+        } catch (RuntimeException e) {
+            status.rollbackToSavepoint(savepoint);
+            log.warn("Checkout batch write failed, retrying order by order: {}", e.getMessage());
+            placed = writeEach(placed, status);
+        }
+        placed.forEach(order -> cartStore.cleared(order.pending().userId(), order.lines().stream()
+                .collect(Collectors.toMap(CartLine::productId, CartLine::quantity, Integer::sum))));
+        return placed;
+    }
+
+    // 注文ごとにセーブポイントを切って書き、失敗した注文だけを断る。書けた注文を返す
+    private List<PlacedOrder> writeEach(List<PlacedOrder> placed, TransactionStatus status) {
+        List<PlacedOrder> written = new ArrayList<>(placed.size());
+        for (PlacedOrder order : placed) {
+            Object savepoint = status.createSavepoint();
+            try {
+                write(List.of(order));
+                status.releaseSavepoint(savepoint);
+                written.add(order);
+            } catch (RuntimeException e) {
+                status.rollbackToSavepoint(savepoint);
+                log.warn("Checkout for user {} failed: {}", order.pending().userId(), e.getMessage());
+                order.pending().result().completeExceptionally(
+                        new RuntimeException("注文を確定できませんでした。もう一度お試しください"));
+            }
+        }
+        return written;
+    }
+
+    private void write(List<PlacedOrder> orders) {
+        Timestamp now = Timestamp.valueOf(orders.get(0).createdAt());
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orders.stream()
+                .map(order -> new Object[]{order.orderId(), order.pending().userId(), order.totalAmount(),
+                        OrderStatus.PAID.name(), order.pending().request().shippingAddress(), now, now})
+                .toList());
+        List<Object[]> items = new ArrayList<>();
+        Map<Integer, Integer> sold = new HashMap<>();
+        for (PlacedOrder order : orders) {
+            for (int i = 0; i < order.lines().size(); i++) {
+                CartLine line = order.lines().get(i);
+                items.add(new Object[]{order.itemIds().get(i), order.orderId(), line.productId(), line.quantity(),
+                        line.price(), now, now});
+                sold.merge(line.productId(), line.quantity(), Integer::sum);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, items);
+        // ロック済みの在庫を見て割り当てたので、ここで足りなくなることはない
+        inventoryService.decrementRows(sold);
+        List<CartLine> ordered = orders.stream().flatMap(order -> order.lines().stream()).toList();
+        jdbcTemplate.update(DELETE_CART_ITEMS,
+                ordered.stream().map(CartLine::cartId).toArray(Integer[]::new),
+                ordered.stream().map(CartLine::productId).toArray(Integer[]::new),
+                ordered.stream().map(CartLine::quantity).toArray(Integer[]::new));
+    }
+
+    // 通常の決済と同じ条件で、この注文を受け付けられない理由を返す（書き込みの前に注文ごとに判定しきる）
+    private RuntimeException validate(OrderCreateRequest request, List<CartLine> lines, Map<Integer, Integer> stocks) {
+        if (request == null || request.shippingAddress() == null || request.shippingAddress().isBlank()) {
+            return new RuntimeException("配送先住所は必須です");
+        }
+        if (lines.isEmpty()) {
+            return new RuntimeException("カートが空です");
+        }
+        for (CartLine line : lines) {
+            Integer availableStock = stocks.get(line.productId());
+            if (availableStock == null) {
+                return new RuntimeException("購入できない商品が含まれています。商品: " + line.name());
+            }
+            if (line.quantity() > availableStock) {
+                return new RuntimeException("在庫が不足しています。商品: " + line.name()
+                        + "（在庫: " + availableStock + ", リクエスト: " + line.quantity() + "）");
+            }
+        }
+        return null;
+    }
+
+    private List<Integer> nextIds(String sequence, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList(NEXT_IDS, Long.class, sequence, blocks);
+        List<Integer> ids = new ArrayList<>(blocks * ID_BLOCK_SIZE);
+        for (Long start : starts) {
+            for (int i = 0; i < ID_BLOCK_SIZE; i++) {
+                ids.add(Math.toIntExact(start + i));
+            }
+        }
+        return ids.subList(0, count);
+    }
+
+    private OrderResponse toResponse(PlacedOrder order, Map<Integer, ProductResponse> products) {
+        List<OrderItemResponse> items = new ArrayList<>(order.lines().size());
+        for (int i = 0; i < order.lines().size(); i++) {
+            CartLine line = order.lines().get(i);
+            items.add(new OrderItemResponse(order.itemIds().get(i), line.quantity(), line.price(),
+                    products.get(line.productId())));
+        }
+        return new OrderResponse(order.orderId(), order.pending().userId(), order.totalAmount(),
+                OrderStatus.PAID.name(), order.pending().request().shippingAddress(), order.createdAt(), items);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.backend.service.order;
+
+import com.example.backend.request.user.order.OrderCreateRequest;
+import com.example.backend.response.admin.stats.CheckoutStatsResponse;
+import com.example.backend.response.user.order.OrderResponse;
+import com.example.backend.service.OrderService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// 決済の窓口
+// app.checkout.group-commit.enabled=true ならグループコミットのキューへ、それ以外は注文ごとのトランザクションで処理する
+// どちらの経路でも同じ指標を取り、切り替え前後のスループット・レイテンシを比べられるようにする
+@Service
+public class CheckoutService {
+
+    private final OrderService orderService;
+    private final Optional<CheckoutPipeline> pipeline;
+    private final Duration timeout;
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong firstOrderNanos = new AtomicLong();
+    private final AtomicLong lastOrderNanos = new AtomicLong();
+
+    public CheckoutService(OrderService orderService,
+                           Optional<CheckoutPipeline> pipeline,
+                           @Value("${app.checkout.group-commit.timeout:PT10S}") Duration timeout) {
+        this.orderService = orderService;
+        this.pipeline = pipeline;
+        this.timeout = timeout;
+    }
+
+    public OrderResponse checkout(Integer userId, OrderCreateRequest request) {
+        long start = System.nanoTime();
+        firstOrderNanos.compareAndSet(0, start);
+        try {
+            OrderResponse response = pipeline.isPresent()
+                    ? await(pipeline.get(), userId, request)
+                    : orderService.createOrderFromCart(userId, request);
+            orders.increment();
+            return response;
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            totalLatencyNanos.add(end - start);
+            maxLatencyNanos.accumulate(end - start);
+            lastOrderNanos.set(end);
+        }
+    }
+
+    public CheckoutStatsResponse stats() {
+        long count = orders.sum() + failures.sum();
+        long elapsedNanos = lastOrderNanos.get() - firstOrderNanos.get();
+        long batches = pipeline.map(CheckoutPipeline::batches).orElse(0L);
+        return new CheckoutStatsResponse(
+                pipeline.isPresent() ? "group-commit" : "direct",
+                orders.sum(),
+                failures.sum(),
+                count > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.sum() / count) : 0,
+                TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get()),
+                elapsedNanos > 0 ? orders.sum() * 1_000_000_000.0 / elapsedNanos : 0,
+                batches,
+                batches > 0 ? (double) pipeline.get().batchedOrders() / batches : 0,
+                pipeline.map(CheckoutPipeline::queueDepth).orElse(0));
+    }
+
+    // 書き込みスレッドの結果を待つ。注文ごとの失敗は通常の経路と同じ例外として投げ直す
+    private OrderResponse await(CheckoutPipeline pipeline, Integer userId, OrderCreateRequest request) {
+        CheckoutPipeline.Ticket ticket = pipeline.submit(userId, request);
+        try {
+            try {
+                return ticket.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (ticket.withdraw()) {
+                    // キューから取り下げたので後から確定することはなく、再試行しても二重注文にならない
+                    throw new RuntimeException("注文の処理がタイムアウトしました。しばらくしてからお試しください");
+                }
+                // すでにバッチに入っている。確定か失敗のどちらかが必ず返るので、それを待って返す
+                return ticket.result().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ticket.withdraw();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.backend.service.order;
+
+import com.example.backend.enums.ExportFormat;
+import com.example.backend.repository.OrderRepository;
+import com.example.backend.repository.projection.OrderRow;
+import com.example.backend.request.admin.order.OrderSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 注文一覧のエクスポート
+// 検索条件に合う注文を作成日時の新しい順にサーバー側カーソルで読み、1行ずつレスポンスへ書き出す（全件をメモリに載せない）
+@Service
+public class OrderExportService {
+
+    private static final String CSV_HEADER = "id,createdAt,userId,userName,phone,status,totalAmount,shippingAddress";
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public OrderExportService(OrderRepository orderRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        // PostgreSQL のドライバは自動コミットを切ったときだけ fetch size ごとに行を取りに行く
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // 条件の誤りは書き出し開始前（ステータスコードを返せるうち）に例外にする
+    public StreamingResponseBody export(OrderSearchRequest filter, ExportFormat format) {
+        filter.validate();
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> write(filter, format, writer));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private void write(OrderSearchRequest filter, ExportFormat format, Writer writer) {
+        try (Stream<OrderRow> rows = orderRepository.streamRows(filter)) {
+            if (format == ExportFormat.CSV) {
+                // Excel で開いたときに文字化けしないよう BOM を付ける
+                writer.write('\uFEFF');
+                writer.write(CSV_HEADER);
+                writer.write("\r\n");
+            }
+            Iterator<OrderRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                OrderRow row = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(row, writer);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            // クライアントの切断など。カーソルとトランザクションを閉じてから呼び出し元へ返す
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsv(OrderRow row, Writer writer) throws IOException {
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(row.createdAt().toString());
+        writer.write(',');
+        writer.write(String.valueOf(row.userId()));
+        writer.write(',');
+        writer.write(csvText(row.userName()));
+        writer.write(',');
+        writer.write(csvText(row.phone()));
+        writer.write(',');
+        writer.write(row.status().name());
+        writer.write(',');
+        writer.write(String.valueOf(row.totalAmount()));
+        writer.write(',');
+        writer.write(csvText(row.shippingAddress()));
+        writer.write("\r\n");
+    }
+
+    // 利用者が入力した文字列の列。区切り文字・引用符・改行を含むなら引用符で囲み、
+    // 表計算ソフトに数式として解釈される先頭文字には ' を付ける
+    private static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
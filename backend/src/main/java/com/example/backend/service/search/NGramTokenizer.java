@@ -0,0 +1,69 @@
+package com.example.backend.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// 文字n-gram（ユニグラム＋バイグラム）によるトークナイザ
+// 分かち書きをしない日本語（「シンプルTシャツ」など）でも部分一致で検索できる
+public final class NGramTokenizer {
+
+    private NGramTokenizer() {
+    }
+
+    // インデックス用：文字の連続（英数字・かな・漢字）ごとにユニグラムとバイグラムを出す
+    public static List<String> indexTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String run : runs(text)) {
+            int[] codePoints = run.codePoints().toArray();
+            for (int i = 0; i < codePoints.length; i++) {
+                terms.add(new String(codePoints, i, 1));
+                if (i + 1 < codePoints.length) {
+                    terms.add(new String(codePoints, i, 2));
+                }
+            }
+        }
+        return terms;
+    }
+
+    // 検索用：2文字以上の連続はバイグラムのみ、1文字だけの連続はユニグラムで照合する
+    public static Set<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String run : runs(query)) {
+            int[] codePoints = run.codePoints().toArray();
+            if (codePoints.length == 1) {
+                terms.add(run);
+                continue;
+            }
+            for (int i = 0; i + 1 < codePoints.length; i++) {
+                terms.add(new String(codePoints, i, 2));
+            }
+        }
+        return terms;
+    }
+
+    // NFKCで全角英数・半角カナを揃え、小文字化してから文字・数字の連続に分割する
+    private static List<String> runs(String text) {
+        List<String> runs = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return runs;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        normalized.codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(cp);
+            } else if (!current.isEmpty()) {
+                runs.add(current.toString());
+                current.setLength(0);
+            }
+        });
+        if (!current.isEmpty()) {
+            runs.add(current.toString());
+        }
+        return runs;
+    }
+}
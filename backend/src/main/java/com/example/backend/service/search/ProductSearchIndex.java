@@ -0,0 +1,317 @@
+package com.example.backend.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 商品のインメモリ転置インデックス（BM25でスコアリング）
+// 読み取りは並行、更新は商品単位の差分で行う
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // フィールドごとの重み（語の出現回数に掛ける）
+    private static final int NAME_WEIGHT = 3;
+    private static final int SKU_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // 語ごとのポスティングリスト（docId昇順、tfと並行配列）
+    private record Postings(int[] docIds, int[] termFreqs) {
+
+        static final Postings EMPTY = new Postings(new int[0], new int[0]);
+
+        int size() {
+            return docIds.length;
+        }
+
+        Postings with(int docId, int termFreq) {
+            int index = Arrays.binarySearch(docIds, docId);
+            if (index >= 0) {
+                int[] freqs = termFreqs.clone();
+                freqs[index] = termFreq;
+                return new Postings(docIds, freqs);
+            }
+            int insertAt = -(index + 1);
+            int[] ids = new int[docIds.length + 1];
+            int[] freqs = new int[termFreqs.length + 1];
+            System.arraycopy(docIds, 0, ids, 0, insertAt);
+            System.arraycopy(termFreqs, 0, freqs, 0, insertAt);
+            ids[insertAt] = docId;
+            freqs[insertAt] = termFreq;
+            System.arraycopy(docIds, insertAt, ids, insertAt + 1, docIds.length - insertAt);
+            System.arraycopy(termFreqs, insertAt, freqs, insertAt + 1, termFreqs.length - insertAt);
+            return new Postings(ids, freqs);
+        }
+
+        Postings without(int docId) {
+            int index = Arrays.binarySearch(docIds, docId);
+            if (index < 0) {
+                return this;
+            }
+            int[] ids = new int[docIds.length - 1];
+            int[] freqs = new int[termFreqs.length - 1];
+            System.arraycopy(docIds, 0, ids, 0, index);
+            System.arraycopy(termFreqs, 0, freqs, 0, index);
+            System.arraycopy(docIds, index + 1, ids, index, docIds.length - index - 1);
+            System.arraycopy(termFreqs, index + 1, freqs, index, termFreqs.length - index - 1);
+            return new Postings(ids, freqs);
+        }
+    }
+
+    // 一括構築用のポスティング（docIdの昇順に追記し、最後に一度だけ配列へ固める）
+    private static final class PostingsBuilder {
+
+        private int[] docIds = new int[4];
+        private int[] termFreqs = new int[4];
+        private int size;
+
+        void add(int docId, int termFreq) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                termFreqs = Arrays.copyOf(termFreqs, size * 2);
+            }
+            docIds[size] = docId;
+            termFreqs[size] = termFreq;
+            size++;
+        }
+
+        Postings build() {
+            return new Postings(Arrays.copyOf(docIds, size), Arrays.copyOf(termFreqs, size));
+        }
+    }
+
+    // 商品ごとの語と文書長（差分更新時に古いポスティングを外すために保持する）
+    private record Document(Map<String, Integer> termFreqs, int length) {
+    }
+
+    // 一括構築の入力
+    public record Source(int productId, String name, String sku, String description) {
+    }
+
+    public record Hit(int productId, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    // 登録・更新
+    public void upsert(int productId, String name, String sku, String description) {
+        Document document = analyze(name, sku, description);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            document.termFreqs().forEach((term, freq) ->
+                    postings.put(term, postings.getOrDefault(term, Postings.EMPTY).with(productId, freq)));
+            documents.put(productId, document);
+            totalLength += document.length();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 全件の入れ替え。1件ずつの upsert だと挿入のたびに配列を作り直すので、伸長できるリストに集めてから固める
+    public void rebuild(List<Source> sources) {
+        List<Source> sorted = new ArrayList<>(sources);
+        sorted.sort(Comparator.comparingInt(Source::productId));
+
+        Map<Integer, Document> built = new HashMap<>();
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+        long length = 0;
+        for (Source source : sorted) {
+            Document document = analyze(source.name(), source.sku(), source.description());
+            if (built.putIfAbsent(source.productId(), document) != null) {
+                // 同じ商品が重なっていたら先の方を使う（昇順に追記するため）
+                continue;
+            }
+            document.termFreqs().forEach((term, freq) ->
+                    builders.computeIfAbsent(term, key -> new PostingsBuilder()).add(source.productId(), freq));
+            length += document.length();
+        }
+        Map<String, Postings> frozen = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((term, builder) -> frozen.put(term, builder.build()));
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            postings.putAll(frozen);
+            documents.clear();
+            documents.putAll(built);
+            totalLength = length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 削除
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 全ての検索語を含む商品をBM25スコア順に返す（offsetからlimit件）
+    // offset はページ番号×件数で大きくなりうるので long で受け、ヒット数を超えていれば空のページを返す
+    public Result search(String query, long offset, int limit) {
+        Set<String> terms = NGramTokenizer.queryTerms(query);
+        if (terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return new Result(List.of(), 0);
+                }
+                lists.add(list);
+            }
+            // 短いリストから走査して積集合を取る
+            lists.sort(Comparator.comparingInt(Postings::size));
+
+            int documentCount = documents.size();
+            double averageLength = documentCount > 0 ? (double) totalLength / documentCount : 1;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).size();
+                idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+            }
+
+            long wanted = offset + limit;
+            // 最小ヒープで上位 wanted 件だけを保持する（同点はIDの小さい方を優先）
+            Comparator<Hit> order = Comparator.comparingDouble(Hit::score)
+                    .thenComparing(Hit::productId, Comparator.reverseOrder());
+            PriorityQueue<Hit> top = new PriorityQueue<>(order);
+            int total = 0;
+            int[] cursors = new int[lists.size()];
+
+            Postings shortest = lists.get(0);
+            candidates:
+            for (int i = 0; i < shortest.size(); i++) {
+                int docId = shortest.docIds()[i];
+                double score = 0;
+                for (int t = 0; t < lists.size(); t++) {
+                    Postings list = lists.get(t);
+                    int position = t == 0 ? i : seek(list.docIds(), cursors[t], docId);
+                    if (t > 0) {
+                        cursors[t] = position;
+                        if (position >= list.size() || list.docIds()[position] != docId) {
+                            continue candidates;
+                        }
+                    }
+                    int tf = list.termFreqs()[position];
+                    double norm = 1 - B + B * documents.get(docId).length() / averageLength;
+                    score += idf[t] * tf * (K1 + 1) / (tf + K1 * norm);
+                }
+
+                total++;
+                if (wanted <= 0) {
+                    continue;
+                }
+                Hit hit = new Hit(docId, score);
+                if (top.size() < wanted) {
+                    top.add(hit);
+                } else if (order.compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(order.reversed());
+            List<Hit> page = offset < ranked.size() ? ranked.subList((int) offset, ranked.size()) : List.of();
+            return new Result(List.copyOf(page), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // from 以降で docId 以上になる最初の位置（ギャロッピング探索）
+    private static int seek(int[] docIds, int from, int docId) {
+        if (from >= docIds.length) {
+            return docIds.length;
+        }
+        int bound = 1;
+        while (from + bound < docIds.length && docIds[from + bound] < docId) {
+            bound <<= 1;
+        }
+        int low = from + (bound >> 1);
+        int high = Math.min(from + bound + 1, docIds.length);
+        int index = Arrays.binarySearch(docIds, low, high, docId);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private void removeInternal(int productId) {
+        Document previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length();
+        for (String term : previous.termFreqs().keySet()) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            Postings updated = list.without(productId);
+            if (updated.size() == 0) {
+                postings.remove(term);
+            } else {
+                postings.put(term, updated);
+            }
+        }
+    }
+
+    private static Document analyze(String name, String sku, String description) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = 0;
+        length += addTerms(termFreqs, name, NAME_WEIGHT);
+        length += addTerms(termFreqs, sku, SKU_WEIGHT);
+        length += addTerms(termFreqs, description, DESCRIPTION_WEIGHT);
+        return new Document(termFreqs, length);
+    }
+
+    private static int addTerms(Map<String, Integer> termFreqs, String text, int weight) {
+        List<String> terms = NGramTokenizer.indexTerms(text);
+        for (String term : terms) {
+            termFreqs.merge(term, weight, Integer::sum);
+        }
+        return terms.size() * weight;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.service.search;
+
+import com.example.backend.event.CatalogChangedEvent;
+import com.example.backend.request.user.product.ProductSearchRequest;
+import com.example.backend.response.user.product.ProductDetailResponse;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.response.user.product.ProductSearchResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+// 商品の全文検索（カタログスナップショットの差分でインデックスを更新する）
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    // 検索（?q=&page=&size=）
+    public ProductSearchResponse search(ProductSearchRequest request) {
+        int page = request.resolvedPage();
+        int size = request.resolvedSize();
+        if (request.q() == null || request.q().isBlank()) {
+            return new ProductSearchResponse(List.of(), 0, page, size, false);
+        }
+
+        // int のまま掛けると大きなページ番号で桁あふれする
+        ProductSearchIndex.Result result = index.search(request.q(), (long) page * size, size);
+        List<ProductResponse> items = result.hits().stream()
+                .map(hit -> productCatalogService.findSummary(hit.productId()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        boolean hasNext = (long) (page + 1) * size < result.total();
+        return new ProductSearchResponse(items, result.total(), page, size, hasNext);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // 在庫数は検索の対象ではない
+        if (event.stockOnly()) {
+            return;
+        }
+        if (event.reset()) {
+            index.rebuild(event.upserted().stream()
+                    .map(product -> new ProductSearchIndex.Source(product.id(), product.name(), product.sku(),
+                            product.description()))
+                    .toList());
+            return;
+        }
+        event.removedIds().forEach(index::remove);
+        for (ProductDetailResponse product : event.upserted()) {
+            index.upsert(product.id(), product.name(), product.sku(), product.description());
+        }
+    }
+}
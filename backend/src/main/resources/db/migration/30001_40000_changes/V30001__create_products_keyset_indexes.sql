@@ -0,0 +1,14 @@
+-- 公開商品一覧のキーセットページング用インデックス
+-- 並び順ごとに (ソートキー, id) の複合インデックスを用意し、どのページも同じコストで取得できるようにする
+-- PRICE_DESC は (price, id) の逆方向スキャンで対応する
+CREATE INDEX idx_products_published_created_at_id
+  ON products (created_at DESC, id DESC)
+  WHERE is_deleted = FALSE AND is_published = TRUE;
+
+CREATE INDEX idx_products_published_price_id
+  ON products (price, id)
+  WHERE is_deleted = FALSE AND is_published = TRUE;
+
+CREATE INDEX idx_products_published_name_id
+  ON products (name, id)
+  WHERE is_deleted = FALSE AND is_published = TRUE;
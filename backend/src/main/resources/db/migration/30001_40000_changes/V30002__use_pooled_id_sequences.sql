@@ -0,0 +1,9 @@
+-- 注文・カート・商品系のIDをHibernateのpooled-lo採番に切り替える
+-- 1回のnextvalで50件分のIDを確保し、INSERTをJDBCバッチにまとめられるようにする
+-- （列のDEFAULT nextvalは残すので、SQLからの直接INSERTとも衝突しない）
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE carts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE cart_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
+ALTER SEQUENCE product_images_id_seq INCREMENT BY 50;
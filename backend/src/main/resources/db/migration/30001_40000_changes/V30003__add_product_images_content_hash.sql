@@ -0,0 +1,2 @@
+-- 画像内容のSHA-256（更新時に同じ画像を再アップロードされても書き直さないための照合用）
+ALTER TABLE product_images ADD COLUMN content_hash VARCHAR(64);
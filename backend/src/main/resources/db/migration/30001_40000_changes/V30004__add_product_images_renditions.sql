@@ -0,0 +1,7 @@
+-- 画像の縦横サイズと縮小版（サムネイル・一覧カード・詳細）のURL
+-- 縮小版はアップロード後に非同期で作るため、作成前は NULL
+ALTER TABLE product_images ADD COLUMN width INTEGER;
+ALTER TABLE product_images ADD COLUMN height INTEGER;
+ALTER TABLE product_images ADD COLUMN thumbnail_url VARCHAR(255);
+ALTER TABLE product_images ADD COLUMN card_url VARCHAR(255);
+ALTER TABLE product_images ADD COLUMN detail_url VARCHAR(255);
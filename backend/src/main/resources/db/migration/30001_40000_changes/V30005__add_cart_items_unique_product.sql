@@ -0,0 +1,21 @@
+-- 同じカート・商品の明細を1行にまとめ、(cart_id, product_id) を一意にする
+-- カート追加は INSERT ... ON CONFLICT で既存の明細に数量を加算する
+WITH merged AS (
+  SELECT MIN(id) AS keep_id, SUM(quantity) AS quantity
+  FROM cart_items
+  GROUP BY cart_id, product_id
+  HAVING COUNT(*) > 1
+)
+UPDATE cart_items ci
+SET quantity = merged.quantity
+FROM merged
+WHERE ci.id = merged.keep_id;
+
+DELETE FROM cart_items ci
+USING cart_items kept
+WHERE ci.cart_id = kept.cart_id
+  AND ci.product_id = kept.product_id
+  AND ci.id > kept.id;
+
+ALTER TABLE cart_items
+  ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
@@ -0,0 +1,34 @@
+-- カートの数量合計（ヘッダーのバッジ用）を carts に持ち、cart_items の変更に合わせてトリガーで増減する
+-- アプリのどの経路（追加・数量変更・削除・注文確定・メモリ上のカートの書き出し）で変更しても揃う
+ALTER TABLE carts ADD COLUMN total_quantity INTEGER NOT NULL DEFAULT 0;
+
+UPDATE carts c
+SET total_quantity = totals.quantity
+FROM (
+  SELECT cart_id, SUM(quantity) AS quantity
+  FROM cart_items
+  GROUP BY cart_id
+) totals
+WHERE c.id = totals.cart_id;
+
+CREATE FUNCTION update_cart_total_quantity() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' AND NEW.cart_id = OLD.cart_id THEN
+    IF NEW.quantity <> OLD.quantity THEN
+      UPDATE carts SET total_quantity = total_quantity + NEW.quantity - OLD.quantity WHERE id = NEW.cart_id;
+    END IF;
+    RETURN NULL;
+  END IF;
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    UPDATE carts SET total_quantity = total_quantity - OLD.quantity WHERE id = OLD.cart_id;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    UPDATE carts SET total_quantity = total_quantity + NEW.quantity WHERE id = NEW.cart_id;
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cart_items_total_quantity
+AFTER INSERT OR DELETE OR UPDATE OF cart_id, quantity ON cart_items
+FOR EACH ROW EXECUTE FUNCTION update_cart_total_quantity();
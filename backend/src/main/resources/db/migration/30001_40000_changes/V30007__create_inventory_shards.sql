@@ -0,0 +1,10 @@
+-- 商品の在庫数を複数の行（シャード）に分けて持つ（人気商品への同時の減算を別々の行ロックへ逃がす）
+-- products.stock は各シャードの合計のキャッシュとして、アプリが定期的に書き戻す
+-- 更新が多いので、同じページ内で書き換えられる（HOT更新）よう空きを残す
+CREATE TABLE inventory_shards (
+  product_id INTEGER NOT NULL REFERENCES products(id) ON DELETE CASCADE,
+  shard_no SMALLINT NOT NULL,
+  quantity INTEGER NOT NULL CHECK (quantity >= 0),
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (product_id, shard_no)
+) WITH (fillfactor = 50);
@@ -0,0 +1,14 @@
+-- Idempotency-Key 付きリクエストの結果（再送時は保存したレスポンスをそのまま返す）
+-- status_code が NULL の行は処理中（同じキーの同時リクエストは主キーの一意制約で1つに絞る）
+CREATE TABLE idempotency_keys (
+  user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  idempotency_key VARCHAR(255) NOT NULL,
+  request_hash CHAR(64) NOT NULL,
+  status_code INTEGER,
+  content_type VARCHAR(255),
+  response_body BYTEA,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,4 @@
+-- ユーザーごとの注文履歴のキーセットページング用インデックス
+-- (created_at, id) の新しい順にユーザーの注文だけを範囲走査し、何ページ目でも同じコストで取得する
+CREATE INDEX idx_orders_user_created_at_id
+  ON orders (user_id, created_at DESC, id DESC);
@@ -0,0 +1,13 @@
+-- 管理画面の注文一覧のキーセットページング用インデックス
+-- 絞り込みなし・期間指定は (created_at, id) の新しい順に範囲走査する
+CREATE INDEX idx_orders_created_at_id
+  ON orders (created_at DESC, id DESC);
+
+-- ステータス指定（未処理・発送中など）は、そのステータスの注文だけを同じ並びで走査する
+CREATE INDEX idx_orders_status_created_at_id
+  ON orders (status, created_at DESC, id DESC);
+
+-- 金額の範囲指定で、該当する注文が少ないときに使う
+-- ユーザー指定は idx_orders_user_created_at_id（V30009）を使う
+CREATE INDEX idx_orders_total_amount
+  ON orders (total_amount);
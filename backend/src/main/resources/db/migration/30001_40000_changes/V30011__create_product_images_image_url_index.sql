@@ -0,0 +1,5 @@
+-- 画像ファイルを消す前の参照確認（countByImageUrlAndIsDeletedFalse）用
+-- 削除済みの行は参照として数えないので対象から外す
+CREATE INDEX idx_product_images_image_url
+  ON product_images (image_url)
+  WHERE is_deleted = false;
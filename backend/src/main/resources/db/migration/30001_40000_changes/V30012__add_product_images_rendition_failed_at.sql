@@ -0,0 +1,8 @@
+-- 縮小版を作れなかった画像（未対応の形式・大きすぎる画像・再試行の上限）
+-- 設定された画像は起動時・定期の再投入の対象から外し、元画像のまま配信する
+ALTER TABLE product_images ADD COLUMN rendition_failed_at TIMESTAMP;
+
+-- 未作成の画像を探す再投入用（作成済み・失敗済みの行は対象外）
+CREATE INDEX idx_product_images_pending_renditions
+  ON product_images (id)
+  WHERE is_deleted = false AND thumbnail_url IS NULL AND rendition_failed_at IS NULL;
@@ -0,0 +1,7 @@
+-- 名前順のキーセットページングは COLLATE "C"（コードポイント順）で比較・並べ替える
+-- メモリ上のカタログと同じ並びにするため。インデックスも同じ照合順序で作り直す
+DROP INDEX IF EXISTS idx_products_published_name_id;
+
+CREATE INDEX idx_products_published_name_id
+  ON products (name COLLATE "C", id)
+  WHERE is_deleted = FALSE AND is_published = TRUE;
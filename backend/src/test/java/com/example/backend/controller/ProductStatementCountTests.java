@@ -0,0 +1,65 @@
+package com.example.backend.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 商品の一覧・詳細が件数に関わらず一定回数のSQLで返ることを確認する（N+1の検出）
+// User向けはカタログスナップショットから返すのでSQLは発行されない
+// Admin向け一覧は商品・画像・カテゴリの3つのプロジェクションで返す
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ProductStatementCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void userListRunsNoQuery() throws Exception {
+		mockMvc.perform(get("/api/user/products")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void userDetailRunsNoQuery() throws Exception {
+		mockMvc.perform(get("/api/user/products/1")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void adminListRunsProjectionQueries() throws Exception {
+		mockMvc.perform(get("/api/admin/products")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void adminDetailRunsSingleQuery() throws Exception {
+		mockMvc.perform(get("/api/admin/products/1")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+}
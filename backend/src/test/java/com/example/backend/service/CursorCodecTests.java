@@ -0,0 +1,59 @@
+package com.example.backend.service;
+
+import com.example.backend.enums.ProductSort;
+import com.example.backend.pagination.CursorCodec;
+import com.example.backend.pagination.ProductCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// キーセットページング用カーソルのエンコード/デコードの往復と、不正なカーソルの扱いを確認する
+class CursorCodecTests {
+
+	@Test
+	void valuesRoundTripAndOnlyTheLastMayContainTheSeparator() {
+		String cursor = CursorCodec.encode("NAME", "42", "春の\nシャツ");
+
+		assertThat(cursor).matches("[A-Za-z0-9_-]+");
+		assertThat(CursorCodec.decode(cursor, 3)).containsExactly("NAME", "42", "春の\nシャツ");
+	}
+
+	@Test
+	void malformedCursorsAreRejected() {
+		assertThatThrownBy(() -> CursorCodec.decode(CursorCodec.encode("NAME", "42"), 3))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("不正なカーソルです");
+		assertThatThrownBy(() -> CursorCodec.decode("not base64!", 3))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("不正なカーソルです");
+	}
+
+	@Test
+	void productCursorsRoundTripForEverySort() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+		for (ProductSort sort : ProductSort.values()) {
+			ProductCursor cursor = ProductCursor.of(sort, 42, createdAt, 1980, "春の\nシャツ");
+
+			assertThat(ProductCursor.decode(cursor.encode(), sort)).isEqualTo(cursor);
+		}
+	}
+
+	@Test
+	void productCursorsAreCheckedAgainstTheSort() {
+		assertThat(ProductCursor.decode(null, ProductSort.NAME)).isNull();
+		assertThat(ProductCursor.decode(" ", ProductSort.NAME)).isNull();
+
+		String byPrice = ProductCursor.of(ProductSort.PRICE_ASC, 42, null, 1980, null).encode();
+		assertThatThrownBy(() -> ProductCursor.decode(byPrice, ProductSort.PRICE_DESC))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("カーソルと並び順が一致しません");
+
+		String badKey = CursorCodec.encode("PRICE_ASC", "42", "abc");
+		assertThatThrownBy(() -> ProductCursor.decode(badKey, ProductSort.PRICE_ASC))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("不正なカーソルです");
+	}
+}
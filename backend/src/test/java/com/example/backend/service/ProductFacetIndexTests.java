@@ -0,0 +1,95 @@
+package com.example.backend.service;
+
+import com.example.backend.enums.CategoryMatch;
+import com.example.backend.enums.PriceRange;
+import com.example.backend.service.facet.ProductFacetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+// ビットマップによるカテゴリ（ALL/ANY）・在庫・価格帯の絞り込みと、軸ごとの件数集計を確認する
+class ProductFacetIndexTests {
+
+	private static final int TOPS = 1;
+	private static final int SALE = 2;
+	private static final int BOTTOMS = 3;
+
+	private final ProductFacetIndex index = new ProductFacetIndex();
+
+	@BeforeEach
+	void setUp() {
+		index.upsert(1, 500, 3, Map.of(TOPS, "トップス", SALE, "セール"));
+		index.upsert(2, 2000, 0, Map.of(TOPS, "トップス"));
+		index.upsert(3, 4000, 5, Map.of(BOTTOMS, "ボトムス", SALE, "セール"));
+		index.upsert(4, 12000, 1, Map.of(BOTTOMS, "ボトムス"));
+		index.upsert(5, 999, 0, Map.of(SALE, "セール"));
+	}
+
+	@Test
+	void anyCategoryMatchesTheUnionAndCountsIgnoreTheCategoryAxis() {
+		ProductFacetIndex.Result result = index.query(List.of(TOPS, BOTTOMS), CategoryMatch.ANY, false, List.of());
+
+		assertThat(result.matches().toArray()).containsExactly(1, 2, 3, 4);
+		// カテゴリの件数はカテゴリ条件を外した集合で数える
+		assertThat(result.categoryCounts()).containsOnly(entry(TOPS, 2), entry(SALE, 3), entry(BOTTOMS, 2));
+		assertThat(result.priceRangeCounts()).containsOnly(
+				entry(PriceRange.UNDER_1000, 1),
+				entry(PriceRange.FROM_1000_TO_3000, 1),
+				entry(PriceRange.FROM_3000_TO_5000, 1),
+				entry(PriceRange.FROM_5000_TO_10000, 0),
+				entry(PriceRange.OVER_10000, 1));
+		assertThat(result.inStockCount()).isEqualTo(3);
+	}
+
+	@Test
+	void allCategoriesNarrowTheMatchesAndTheCategoryCounts() {
+		ProductFacetIndex.Result result = index.query(List.of(TOPS, SALE), CategoryMatch.ALL, true, List.of());
+
+		assertThat(result.matches().toArray()).containsExactly(1);
+		assertThat(result.categoryCounts()).containsOnly(entry(TOPS, 1), entry(SALE, 1));
+		assertThat(result.priceRangeCounts()).containsEntry(PriceRange.UNDER_1000, 1);
+		assertThat(result.inStockCount()).isEqualTo(1);
+
+		ProductFacetIndex.Result unknown = index.query(List.of(TOPS, 99), CategoryMatch.ALL, false, List.of());
+		assertThat(unknown.matches().isEmpty()).isTrue();
+	}
+
+	@Test
+	void priceAndStockCountsExcludeTheirOwnAxis() {
+		ProductFacetIndex.Result result = index.query(List.of(), CategoryMatch.ANY, true,
+				List.of(PriceRange.UNDER_1000, PriceRange.OVER_10000));
+
+		assertThat(result.matches().toArray()).containsExactly(1, 4);
+		// 価格帯の件数は在庫ありだけで数える（価格帯の選択は外す）
+		assertThat(result.priceRangeCounts()).containsOnly(
+				entry(PriceRange.UNDER_1000, 1),
+				entry(PriceRange.FROM_1000_TO_3000, 0),
+				entry(PriceRange.FROM_3000_TO_5000, 1),
+				entry(PriceRange.FROM_5000_TO_10000, 0),
+				entry(PriceRange.OVER_10000, 1));
+		// 在庫ありの件数は価格帯だけで数える（商品5は在庫なし）
+		assertThat(result.inStockCount()).isEqualTo(2);
+		assertThat(result.categoryCounts()).containsOnly(entry(TOPS, 1), entry(SALE, 1), entry(BOTTOMS, 1));
+	}
+
+	@Test
+	void updatesMoveProductsBetweenBitmapsAndDropEmptyCategories() {
+		index.upsert(2, 6000, 2, Map.of(BOTTOMS, "ボトムス"));
+		index.remove(1);
+
+		assertThat(index.categoryName(TOPS)).isNull();
+		assertThat(index.categoryName(SALE)).isEqualTo("セール");
+
+		ProductFacetIndex.Result result = index.query(List.of(), CategoryMatch.ANY, false, List.of());
+		assertThat(result.matches().toArray()).containsExactly(2, 3, 4, 5);
+		assertThat(result.categoryCounts()).containsOnly(entry(SALE, 2), entry(BOTTOMS, 3));
+		assertThat(result.priceRangeCounts()).containsEntry(PriceRange.FROM_1000_TO_3000, 0)
+				.containsEntry(PriceRange.FROM_5000_TO_10000, 1);
+		assertThat(result.inStockCount()).isEqualTo(3);
+	}
+}
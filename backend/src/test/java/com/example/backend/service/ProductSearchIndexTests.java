@@ -0,0 +1,93 @@
+package com.example.backend.service;
+
+import com.example.backend.service.search.NGramTokenizer;
+import com.example.backend.service.search.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// n-gramの切り出し（正規化を含む）、バイグラムの積集合による絞り込み、BM25の順位とページングを確認する
+class ProductSearchIndexTests {
+
+	private static List<Integer> ids(ProductSearchIndex.Result result) {
+		return result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+	}
+
+	@Test
+	void tokenizerNormalizesAndSplitsOnSymbols() {
+		// 全角英数・半角カナはNFKCで揃え、記号や空白で区切る
+		assertThat(NGramTokenizer.indexTerms("ＡB-ｼｬﾂ"))
+				.containsExactly("a", "ab", "b", "シ", "シャ", "ャ", "ャツ", "ツ");
+		assertThat(NGramTokenizer.queryTerms("T シャツ"))
+				.containsExactly("t", "シャ", "ャツ");
+		assertThat(NGramTokenizer.queryTerms(" - ")).isEmpty();
+	}
+
+	@Test
+	void everyQueryBigramMustMatch() {
+		ProductSearchIndex index = new ProductSearchIndex();
+		index.upsert(1, "シンプルTシャツ", "TS-001", "");
+		index.upsert(2, "シンプルパンツ", "PT-001", "");
+		index.upsert(3, "ポロシャツ", "TS-002", "");
+
+		assertThat(ids(index.search("シャツ", 0, 10))).containsExactlyInAnyOrder(1, 3);
+		assertThat(ids(index.search("シンプル シャツ", 0, 10))).containsExactly(1);
+		// 文字はすべて含まれていても、並びが違えば一致しない
+		assertThat(index.search("ツシャ", 0, 10).total()).isZero();
+		assertThat(ids(index.search("ts-002", 0, 10))).containsExactly(3);
+	}
+
+	@Test
+	void nameMatchesOutrankDescriptionMatchesAndTiesGoToLowerIds() {
+		ProductSearchIndex index = new ProductSearchIndex();
+		index.upsert(10, "ワンピース", "OP-001", "リネン素材のワンピース");
+		index.upsert(11, "リネンシャツ", "SH-001", "");
+		index.upsert(12, "ワンピース", "OP-001", "リネン素材のワンピース");
+
+		ProductSearchIndex.Result result = index.search("リネン", 0, 10);
+		assertThat(ids(result)).containsExactly(11, 10, 12);
+		assertThat(result.hits().get(0).score()).isGreaterThan(result.hits().get(1).score());
+		assertThat(result.hits().get(1).score()).isEqualTo(result.hits().get(2).score());
+	}
+
+	@Test
+	void pagesAreSlicedFromTheRankingAndTotalCountsAllHits() {
+		ProductSearchIndex index = new ProductSearchIndex();
+		for (int id = 1; id <= 5; id++) {
+			index.upsert(id, "コットンシャツ" + "シャツ".repeat(id), "", "");
+		}
+
+		List<Integer> all = ids(index.search("シャツ", 0, 5));
+		assertThat(all).hasSize(5);
+		ProductSearchIndex.Result second = index.search("シャツ", 2, 2);
+		assertThat(ids(second)).isEqualTo(all.subList(2, 4));
+		assertThat(second.total()).isEqualTo(5);
+
+		// ヒット数を超えるページは空（offset が int を超えても溢れない）
+		ProductSearchIndex.Result beyond = index.search("シャツ", 3_000_000_000L, 20);
+		assertThat(beyond.hits()).isEmpty();
+		assertThat(beyond.total()).isEqualTo(5);
+	}
+
+	@Test
+	void updatesReplaceOldTermsAndRebuildMatchesIncrementalIndex() {
+		ProductSearchIndex incremental = new ProductSearchIndex();
+		incremental.upsert(1, "デニムパンツ", "DN-001", "");
+		incremental.upsert(2, "デニムジャケット", "DN-002", "");
+		incremental.upsert(3, "チノパンツ", "CH-001", "");
+		incremental.upsert(1, "デニムスカート", "DN-001", "");
+		incremental.remove(3);
+
+		assertThat(incremental.size()).isEqualTo(2);
+		assertThat(incremental.search("パンツ", 0, 10).total()).isZero();
+		assertThat(ids(incremental.search("スカート", 0, 10))).containsExactly(1);
+
+		ProductSearchIndex rebuilt = new ProductSearchIndex();
+		rebuilt.rebuild(List.of(
+				new ProductSearchIndex.Source(2, "デニムジャケット", "DN-002", ""),
+				new ProductSearchIndex.Source(1, "デニムスカート", "DN-001", "")));
+		assertThat(rebuilt.search("デニム", 0, 10)).isEqualTo(incremental.search("デニム", 0, 10));
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.ProductEntity;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.service.inventory.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 同時に大量の引き当てを流しても売り越しが起きないことを確認する
+// 各注文は2商品をランダムな順で要求するので、ロック順が揃っていなければデッドロックで失敗する
+@SpringBootTest
+class StockDecrementStressTests {
+
+	private static final int INITIAL_STOCK = 200;
+	private static final int THREADS = 32;
+	private static final int ORDERS_PER_THREAD = 50;
+
+	@Autowired
+	private InventoryService inventoryService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 2; i++) {
+			ProductEntity product = new ProductEntity();
+			product.setSku("STRESS-" + UUID.randomUUID());
+			product.setName("在庫テスト商品" + i);
+			product.setPrice(100);
+			product.setStock(INITIAL_STOCK);
+			// カタログに載せない
+			product.setPublished(false);
+			productIds.add(productRepository.save(product).getId());
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteAllById(productIds);
+	}
+
+	@Test
+	void concurrentCheckoutsNeverOversell() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		AtomicIntegerArray sold = new AtomicIntegerArray(productIds.size());
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			int userId = t + 1;
+			workers.add(executor.submit(() -> {
+				start.await();
+				for (int n = 0; n < ORDERS_PER_THREAD; n++) {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					int first = random.nextInt(productIds.size());
+					Map<Integer, Integer> quantities = new LinkedHashMap<>();
+					quantities.put(productIds.get(first), random.nextInt(1, 4));
+					quantities.put(productIds.get(1 - first), random.nextInt(1, 4));
+					try {
+						transaction.executeWithoutResult(status -> inventoryService.decrement(userId, quantities));
+						sold.addAndGet(first, quantities.get(productIds.get(first)));
+						sold.addAndGet(1 - first, quantities.get(productIds.get(1 - first)));
+					} catch (RuntimeException e) {
+						// 在庫不足の注文は丸ごと取り消される
+						assertThat(e.getMessage()).startsWith("在庫が不足しています");
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> worker : workers) {
+			// デッドロックなど想定外の例外があればここで失敗する
+			worker.get(2, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		for (int i = 0; i < productIds.size(); i++) {
+			int stock = productRepository.findById(productIds.get(i)).orElseThrow().getStock();
+			assertThat(stock).isGreaterThanOrEqualTo(0);
+			assertThat(INITIAL_STOCK - stock).isEqualTo(sold.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,265 @@
+package com.example.backend.service;
+
+import com.example.backend.event.ProductChangedEvent;
+import com.example.backend.repository.ProductRepository;
+import com.example.backend.repository.projection.ProductStockRow;
+import com.example.backend.service.inventory.StockReservationEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// インメモリ引き当てエンジンの仮押さえ・確定・期限切れ・書き出しと、管理画面での在庫変更との重なりを確認する
+// DBは使わず、products.stock の値と書き出されたUPDATEを手元で再現する
+class StockReservationEngineTests {
+
+	private static final int PRODUCT_ID = 1;
+	private static final int OTHER_ID = 2;
+
+	private final AtomicInteger dbStock = new AtomicInteger();
+	private final AtomicInteger otherStock = new AtomicInteger();
+	private final List<Object[]> flushed = new ArrayList<>();
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	@BeforeEach
+	void setUp() {
+		when(productRepository.findStocksByIdIn(anyCollection())).thenAnswer(invocation -> {
+			Collection<Integer> ids = invocation.getArgument(0);
+			return ids.stream()
+					.map(id -> new ProductStockRow(id, id == PRODUCT_ID ? dbStock.get() : otherStock.get()))
+					.toList();
+		});
+		// APPLY_SALES（stock >= ? の条件付き減算）を products.stock に当てる
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+			List<Object[]> args = invocation.getArgument(1);
+			int[] counts = new int[args.size()];
+			for (int i = 0; i < args.size(); i++) {
+				int sold = (Integer) args.get(i)[0];
+				flushed.add(args.get(i));
+				if (dbStock.get() >= sold) {
+					dbStock.addAndGet(-sold);
+					counts[i] = 1;
+				}
+			}
+			return counts;
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private StockReservationEngine engine(Duration ttl) {
+		return new StockReservationEngine(productRepository, jdbcTemplate, mock(ApplicationEventPublisher.class),
+				mock(PlatformTransactionManager.class), ttl);
+	}
+
+	// 残数がちょうど expected であること（expected 個は押さえられ、それ以上は押さえられない）
+	private void assertAvailable(StockReservationEngine engine, int expected) {
+		if (expected > 0) {
+			engine.set(900, PRODUCT_ID, expected);
+		}
+		assertThatThrownBy(() -> engine.set(901, PRODUCT_ID, 1))
+				.hasMessageStartingWith("在庫が不足しています");
+		engine.release(900, PRODUCT_ID);
+	}
+
+	@Test
+	void holdsAndCommitsNeverExceedStock() {
+		dbStock.set(10);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.add(1, PRODUCT_ID, 3);
+		assertThat(engine.set(1, PRODUCT_ID, 4)).isEqualTo(3);
+		assertThatThrownBy(() -> engine.add(2, PRODUCT_ID, 7))
+				.hasMessageStartingWith("在庫が不足しています");
+
+		// 仮押さえ4個を超える分は決済時に残数から引き当てる
+		engine.commit(1, Map.of(PRODUCT_ID, 5));
+		assertAvailable(engine, 5);
+		assertThatThrownBy(() -> engine.commit(2, Map.of(PRODUCT_ID, 6)))
+				.hasMessageStartingWith("在庫が不足しています");
+		assertAvailable(engine, 5);
+	}
+
+	@Test
+	void expiredHoldsReturnToStock() {
+		dbStock.set(4);
+		StockReservationEngine engine = engine(Duration.ZERO);
+
+		engine.add(1, PRODUCT_ID, 4);
+		assertThatThrownBy(() -> engine.add(2, PRODUCT_ID, 1))
+				.hasMessageStartingWith("在庫が不足しています");
+
+		engine.expire();
+		assertAvailable(engine, 4);
+	}
+
+	@Test
+	void flushWritesSalesOnceAndKeepsCountersInSync() {
+		dbStock.set(10);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.commit(1, Map.of(PRODUCT_ID, 3));
+		engine.commit(2, Map.of(PRODUCT_ID, 2));
+		engine.flush();
+		engine.flush();
+
+		assertThat(flushed).hasSize(1);
+		assertThat(Arrays.asList(flushed.get(0))).containsExactly(5, PRODUCT_ID, 5);
+		assertThat(dbStock.get()).isEqualTo(5);
+
+		// 書き出し済みの販売は、その後の在庫変更の通知で残数へ戻らない
+		engine.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+		assertAvailable(engine, 5);
+	}
+
+	@Test
+	void adminEditDuringInFlightCommitAppliesOnlyTheDifference() {
+		dbStock.set(10);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		// 決済のトランザクションがまだコミットされていない間に、管理画面で在庫を5個増やす
+		TransactionSynchronizationManager.initSynchronization();
+		engine.commit(1, Map.of(PRODUCT_ID, 4));
+		List<TransactionSynchronization> inFlight = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+
+		dbStock.addAndGet(5);
+		engine.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+		inFlight.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+		// 15 - 4。決済中の4個を残数へ戻していない
+		assertAvailable(engine, 11);
+		engine.flush();
+		assertThat(dbStock.get()).isEqualTo(11);
+	}
+
+	@Test
+	void adminEditAfterFlushDoesNotResellFlushedUnits() {
+		dbStock.set(10);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.commit(1, Map.of(PRODUCT_ID, 6));
+		engine.flush();
+		// 書き出し後のDBの値（4）から1個減らす
+		dbStock.addAndGet(-1);
+		engine.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+
+		assertAvailable(engine, 3);
+	}
+
+	@Test
+	void reductionBelowHeldStockIsRecoveredFromReleasedHolds() {
+		dbStock.set(5);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.add(1, PRODUCT_ID, 3);
+		// 管理画面で在庫を0にする。残数2を引いても足りない3個は、仮押さえが解放されたときに差し引く
+		dbStock.set(0);
+		engine.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+		engine.release(1, PRODUCT_ID);
+
+		assertAvailable(engine, 0);
+	}
+
+	@Test
+	void rolledBackCommitReturnsUnitsToStock() {
+		dbStock.set(3);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		TransactionSynchronizationManager.initSynchronization();
+		engine.commit(1, Map.of(PRODUCT_ID, 3));
+		List<TransactionSynchronization> inFlight = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		inFlight.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		assertAvailable(engine, 3);
+		engine.flush();
+		assertThat(flushed).isEmpty();
+	}
+
+	@Test
+	void shortageOnOneProductKeepsHoldsOnTheOthers() {
+		dbStock.set(10);
+		otherStock.set(1);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.add(1, PRODUCT_ID, 2);
+		Map<Integer, Integer> quantities = new LinkedHashMap<>();
+		quantities.put(PRODUCT_ID, 2);
+		quantities.put(OTHER_ID, 5);
+		assertThatThrownBy(() -> engine.commit(1, quantities))
+				.hasMessageStartingWith("在庫が不足しています");
+
+		// 仮押さえの2個は残っている（外れていれば残数は10）
+		assertAvailable(engine, 8);
+		engine.commit(1, Map.of(PRODUCT_ID, 2));
+		assertAvailable(engine, 8);
+	}
+
+	@Test
+	void rolledBackCommitRestoresHolds() {
+		dbStock.set(5);
+		StockReservationEngine engine = engine(Duration.ofMinutes(15));
+
+		engine.add(1, PRODUCT_ID, 3);
+		TransactionSynchronizationManager.initSynchronization();
+		engine.commit(1, Map.of(PRODUCT_ID, 4));
+		List<TransactionSynchronization> inFlight = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		inFlight.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		// 追加で引き当てた1個は残数へ、3個は仮押さえへ戻る
+		assertAvailable(engine, 2);
+		engine.release(1, PRODUCT_ID);
+		assertAvailable(engine, 5);
+	}
+
+	@Test
+	void holdsBeingCommittedAreNeitherExpiredNorChanged() {
+		dbStock.set(5);
+		StockReservationEngine engine = engine(Duration.ZERO);
+
+		engine.add(1, PRODUCT_ID, 2);
+		TransactionSynchronizationManager.initSynchronization();
+		engine.commit(1, Map.of(PRODUCT_ID, 2));
+		List<TransactionSynchronization> inFlight = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+
+		engine.expire();
+		assertThatThrownBy(() -> engine.add(1, PRODUCT_ID, 1))
+				.hasMessageStartingWith("決済処理中");
+		assertAvailable(engine, 3);
+
+		inFlight.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		assertAvailable(engine, 3);
+		engine.flush();
+		assertThat(dbStock.get()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.enums.CartOperationType;
+import com.example.backend.request.user.cart.CartBatchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+// カート一括操作の検証、操作を順に当てた結果、在庫との照合を確認する
+class CartBatchTests {
+
+	private static CartBatchRequest.Operation add(int productId, int quantity) {
+		return new CartBatchRequest.Operation(CartOperationType.ADD, productId, quantity);
+	}
+
+	private static CartBatchRequest.Operation set(int productId, int quantity) {
+		return new CartBatchRequest.Operation(CartOperationType.SET, productId, quantity);
+	}
+
+	private static CartBatchRequest.Operation remove(int productId) {
+		return new CartBatchRequest.Operation(CartOperationType.REMOVE, productId, null);
+	}
+
+	@Test
+	void validateRejectsMalformedOperations() {
+		assertThatThrownBy(() -> CartBatch.validate(new CartBatchRequest(List.of())))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("カートへの操作を指定してください");
+		assertThatThrownBy(() -> CartBatch.validate(new CartBatchRequest(List.of(
+				new CartBatchRequest.Operation(null, 1, 1)))))
+				.hasMessage("操作の種類と商品IDを指定してください");
+		assertThatThrownBy(() -> CartBatch.validate(new CartBatchRequest(List.of(add(1, 0)))))
+				.hasMessage("Quantity must be greater than 0");
+
+		// REMOVE は数量なしでよく、対象の商品IDは重複なく指定順に返す
+		assertThat(CartBatch.validate(new CartBatchRequest(List.of(add(2, 1), remove(1), set(2, 3)))))
+				.containsExactly(2, 1);
+	}
+
+	@Test
+	void operationsApplyInOrderOnTopOfTheCurrentCart() {
+		Map<Integer, Integer> current = Map.of(1, 2, 2, 5, 3, 1);
+
+		Map<Integer, Integer> result = CartBatch.apply(current, List.of(
+				add(1, 3),
+				set(1, 4),
+				add(1, 1),
+				remove(2),
+				add(2, 2),
+				remove(3),
+				add(4, 1)));
+
+		assertThat(result).containsExactly(entry(1, 5), entry(2, 2), entry(3, 0), entry(4, 1));
+		// 操作しなかった明細は結果に含めず、元のカートも変えない
+		assertThat(CartBatch.apply(current, List.of(add(4, 1)))).containsOnlyKeys(4);
+		assertThat(current).containsEntry(2, 5);
+	}
+
+	@Test
+	void checkStockReportsTheFirstProductOverStock() {
+		Map<Integer, Integer> stocks = Map.of(1, 5, 2, 1);
+
+		CartBatch.checkStock(Map.of(1, 5, 2, 1), stocks);
+		// 削除する明細は在庫も存在も問わない
+		CartBatch.checkStock(Map.of(1, 1, 9, 0), stocks);
+
+		assertThatThrownBy(() -> CartBatch.checkStock(Map.of(2, 2), stocks))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("指定された数量が在庫を超えています。商品ID: 2 現在の在庫: 1");
+		assertThatThrownBy(() -> CartBatch.checkStock(Map.of(9, 1), stocks))
+				.isNotInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Product not found with id: 9");
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.backend.service.cart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// カートのジャーナルの書式・読み直し・セグメントの切り替えと、まとめて同期する書き込みを確認する
+class CartJournalTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsAreReadBackInOrderAfterRestart() {
+		List<CartJournal.Record> records = List.of(
+				new CartJournal.SetQuantity(1, 10, 2),
+				new CartJournal.RemoveItem(1, 11),
+				new CartJournal.SetQuantity(2, 10, 5));
+		try (CartJournal journal = new CartJournal(directory)) {
+			CartJournal.await(journal.append(records.subList(0, 2)));
+			CartJournal.await(journal.append(records.subList(2, 3)));
+		}
+
+		try (CartJournal journal = new CartJournal(directory)) {
+			assertThat(journal.readAll()).containsExactlyElementsOf(records);
+		}
+	}
+
+	@Test
+	void truncatedAndUnknownLinesAreSkipped() throws Exception {
+		// 途中で止まった末尾の行と、今は使っていない種類の行
+		Files.writeString(directory.resolve("journal-0000000000000001.log"), "S 1 10 3\nC 1\nD 1\nS 1 1",
+				StandardCharsets.UTF_8);
+
+		try (CartJournal journal = new CartJournal(directory)) {
+			assertThat(journal.readAll()).containsExactly(new CartJournal.SetQuantity(1, 10, 3));
+		}
+	}
+
+	@Test
+	void segmentsBeforeRotationAreDeletedAfterFlush() {
+		try (CartJournal journal = new CartJournal(directory)) {
+			CartJournal.await(journal.append(List.of(new CartJournal.SetQuantity(1, 10, 1))));
+			long segment = journal.rotate();
+			CartJournal.await(journal.append(List.of(new CartJournal.SetQuantity(1, 10, 2))));
+			journal.deleteBefore(segment);
+		}
+
+		try (CartJournal journal = new CartJournal(directory)) {
+			assertThat(journal.readAll()).containsExactly(new CartJournal.SetQuantity(1, 10, 2));
+		}
+	}
+
+	@Test
+	void appendAfterCloseFails() {
+		CartJournal journal = new CartJournal(directory);
+		journal.close();
+
+		CompletableFuture<Void> done = journal.append(List.of(new CartJournal.RemoveItem(1, 10)));
+		assertThatThrownBy(() -> CartJournal.await(done))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void concurrentAppendsAreAllDurableInPerCallerOrder() throws Exception {
+		int writers = 8;
+		int perWriter = 200;
+		try (CartJournal journal = new CartJournal(directory)) {
+			ExecutorService executor = Executors.newFixedThreadPool(writers);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int w = 0; w < writers; w++) {
+					int userId = w;
+					futures.add(executor.submit(() -> {
+						for (int i = 1; i <= perWriter; i++) {
+							CartJournal.await(journal.append(List.of(new CartJournal.SetQuantity(userId, 10, i))));
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		try (CartJournal journal = new CartJournal(directory)) {
+			List<CartJournal.Record> records = journal.readAll();
+			assertThat(records).hasSize(writers * perWriter);
+			for (int w = 0; w < writers; w++) {
+				int userId = w;
+				assertThat(records.stream()
+						.filter(record -> record.userId() == userId)
+						.map(record -> ((CartJournal.SetQuantity) record).quantity())
+						.toList())
+						.isSorted()
+						.hasSize(perWriter);
+			}
+		}
+	}
+}
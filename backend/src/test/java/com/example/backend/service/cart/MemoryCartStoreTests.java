@@ -0,0 +1,188 @@
+package com.example.backend.service.cart;
+
+import com.example.backend.entity.CartEntity;
+import com.example.backend.repository.CartItemRepository;
+import com.example.backend.repository.CartRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.projection.CartLineRow;
+import com.example.backend.response.user.product.ProductResponse;
+import com.example.backend.service.catalog.ProductCatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// メモリ上のカートの 変更→未書き出し→書き出し→追い出し の流れと、ジャーナルの当て直しを確認する
+// DBは使わず、書き出された明細（UPSERT）を手元に記録する
+class MemoryCartStoreTests {
+
+	private static final int USER_ID = 7;
+	private static final int CART_ID = 70;
+	private static final int PRODUCT_ID = 1;
+	private static final int OTHER_ID = 2;
+
+	@TempDir
+	Path journalDir;
+
+	private final List<Object[]> upserts = new ArrayList<>();
+	private final List<CartLineRow> dbLines = new ArrayList<>();
+	private boolean failWrites;
+	private final CartRepository cartRepository = mock(CartRepository.class);
+	private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+	private final ProductCatalogService productCatalogService = mock(ProductCatalogService.class);
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	@BeforeEach
+	void setUp() {
+		CartEntity cart = new CartEntity();
+		cart.setId(CART_ID);
+		when(cartRepository.findByUserIdAndIsDeletedFalse(USER_ID)).thenReturn(Optional.of(cart));
+		when(cartItemRepository.findLinesByCartId(CART_ID)).thenAnswer(invocation -> List.copyOf(dbLines));
+		when(productCatalogService.findSummary(anyInt())).thenAnswer(invocation -> product(invocation.getArgument(0)));
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+			if (failWrites) {
+				throw new DataAccessResourceFailureException("database is down");
+			}
+			String sql = invocation.getArgument(0);
+			List<Object[]> args = invocation.getArgument(1);
+			if (sql.contains("INSERT INTO cart_items")) {
+				upserts.addAll(args);
+			}
+			return new int[args.size()];
+		});
+	}
+
+	private static ProductResponse product(Integer id) {
+		return new ProductResponse(id, "SKU-" + id, "商品" + id, "", 100, 10, true, null, null, List.of(), List.of());
+	}
+
+	private MemoryCartStore store(Duration idleTimeout) {
+		return new MemoryCartStore(cartRepository, cartItemRepository, mock(UserRepository.class),
+				productCatalogService, jdbcTemplate, mock(PlatformTransactionManager.class), 4,
+				journalDir.toString(), idleTimeout);
+	}
+
+	private List<List<Object>> flushedLines() {
+		List<List<Object>> lines = upserts.stream().map(List::of).toList();
+		upserts.clear();
+		return lines;
+	}
+
+	private long segments() throws Exception {
+		try (Stream<Path> files = Files.list(journalDir)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	void changedCartsAreWrittenOnceUntilChangedAgain() {
+		MemoryCartStore store = store(Duration.ofMinutes(30));
+
+		store.addItemToCart(USER_ID, PRODUCT_ID, 2);
+		store.flushDirty();
+		assertThat(flushedLines()).containsExactly(List.of(CART_ID, PRODUCT_ID, 2));
+
+		store.flushDirty();
+		assertThat(flushedLines()).isEmpty();
+
+		store.updateItemQuantity(USER_ID, PRODUCT_ID, 3);
+		assertThat(store.sumCartItemQuantitiesByUserId(USER_ID)).isEqualTo(3);
+		store.flushDirty();
+		assertThat(flushedLines()).containsExactly(List.of(CART_ID, PRODUCT_ID, 3));
+		store.shutdown();
+	}
+
+	@Test
+	void failedWriteKeepsCartDirtyAndJournal() throws Exception {
+		MemoryCartStore store = store(Duration.ofMinutes(30));
+
+		store.addItemToCart(USER_ID, PRODUCT_ID, 2);
+		failWrites = true;
+		store.flushDirty();
+		// 書き出し前のセグメントも残っている
+		assertThat(segments()).isEqualTo(2);
+
+		failWrites = false;
+		store.flushDirty();
+		assertThat(flushedLines()).containsExactly(List.of(CART_ID, PRODUCT_ID, 2));
+		assertThat(segments()).isEqualTo(1);
+		store.shutdown();
+	}
+
+	@Test
+	void idleCartsAreEvictedOnlyAfterTheyAreWritten() {
+		// 負の値にして、アクセスした直後のカートも追い出しの対象にする
+		MemoryCartStore store = store(Duration.ofMinutes(-1));
+
+		store.addItemToCart(USER_ID, PRODUCT_ID, 2);
+		failWrites = true;
+		store.flushDirty();
+		// 書き出せていないカートはメモリに残る（DBから読み直さない）
+		assertThat(store.findByUserId(USER_ID).totalQuantity()).isEqualTo(2);
+		verify(cartRepository, times(1)).findByUserIdAndIsDeletedFalse(USER_ID);
+
+		failWrites = false;
+		store.flushDirty();
+		dbLines.add(new CartLineRow(1, 2, PRODUCT_ID, "SKU-1", "商品1", 100, 10, null, null));
+		store.flushDirty();
+		assertThat(store.findByUserId(USER_ID).totalQuantity()).isEqualTo(2);
+		verify(cartRepository, times(2)).findByUserIdAndIsDeletedFalse(USER_ID);
+		store.shutdown();
+	}
+
+	@Test
+	void unflushedChangesAreReplayedOnRestart() throws Exception {
+		// 書き出す前に止まった（shutdown を呼ばない）
+		MemoryCartStore crashed = store(Duration.ofMinutes(30));
+		crashed.addItemToCart(USER_ID, PRODUCT_ID, 2);
+		crashed.addItemToCart(USER_ID, OTHER_ID, 1);
+		crashed.removeItemFromCart(USER_ID, OTHER_ID);
+
+		MemoryCartStore restarted = store(Duration.ofMinutes(30));
+		verify(jdbcTemplate).update(contains("INSERT INTO cart_items"), eq(PRODUCT_ID), eq(2), eq(USER_ID));
+		verify(jdbcTemplate).update(contains("DELETE FROM cart_items"), eq(OTHER_ID), eq(USER_ID));
+		assertThat(segments()).isEqualTo(1);
+		restarted.shutdown();
+	}
+
+	@Test
+	void checkoutRemovesOnlyLinesThatWereOrdered() {
+		MemoryCartStore store = store(Duration.ofMinutes(30));
+		store.addItemToCart(USER_ID, PRODUCT_ID, 2);
+		store.addItemToCart(USER_ID, OTHER_ID, 1);
+		store.flushDirty();
+		flushedLines();
+
+		// 注文の後に OTHER_ID の数量が変わっていたら、その明細は残して書き直す
+		store.updateItemQuantity(USER_ID, OTHER_ID, 4);
+		store.cleared(USER_ID, Map.of(PRODUCT_ID, 2, OTHER_ID, 1));
+
+		assertThat(store.findByUserId(USER_ID).cartItems()).hasSize(1);
+		assertThat(store.sumCartItemQuantitiesByUserId(USER_ID)).isEqualTo(4);
+		store.flushDirty();
+		assertThat(flushedLines()).containsExactly(List.of(CART_ID, OTHER_ID, 4));
+		store.shutdown();
+	}
+}
@@ -193,7 +193,10 @@ export default function AdminOrderDetailPage() {
                   <div key={item.id} className="flex items-center gap-4">
                     <div className="w-20 h-20 rounded-lg overflow-hidden bg-gray-100">
                       <Image
-                        src={buildImageUrl(item.product.productImages[0].imageUrl)}
+                        src={buildImageUrl(
+                          item.product.productImages[0].thumbnailUrl ??
+                            item.product.productImages[0].imageUrl
+                        )}
                         alt={item.product.name}
                         width={80}
                         height={80}
@@ -20,28 +20,57 @@ import {
   TableHeader,
   TableRow,
 } from '@/components/ui/table'
-import { getOrders } from '@/lib/api/admin/orders'
+import { exportOrders, getOrderCountByStatus, getOrders } from '@/lib/api/admin/orders'
 import type { OrderResponse } from '@/types/admin/order'
-import { Filter, Search, Eye } from 'lucide-react'
+import type { ExportFormat, OrderSearchRequest } from '@/types/admin/order/request'
+import type { OrderStatus } from '@/types/common/order_status'
+import { Download, Filter, Search, Eye } from 'lucide-react'
 import Link from 'next/link'
-import { useEffect, useMemo, useState } from 'react'
+import { useEffect, useState } from 'react'
+
+type StatusCounts = Record<OrderStatus, number>
+
+const ALL_STATUSES: OrderStatus[] = ['PENDING', 'PAID', 'SHIPPED', 'DELIVERED', 'CANCELLED']
 
 export default function AdminOrdersPage() {
   const [orders, setOrders] = useState<OrderResponse[]>([])
   const [isLoading, setIsLoading] = useState<boolean>(true)
-  const [searchTerm, setSearchTerm] = useState<string>('')
-  const [statusFilter, setStatusFilter] = useState<
-    'all' | 'paid' | 'shipped' | 'delivered' | 'cancelled'
-  >('all')
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [isLoadingMore, setIsLoadingMore] = useState<boolean>(false)
+  const [isExporting, setIsExporting] = useState<boolean>(false)
+  const [statusCounts, setStatusCounts] = useState<StatusCounts | null>(null)
 
-  const itemsPerPage = 10
-  const [currentPage, setCurrentPage] = useState<number>(1)
+  // 入力中の条件と、一覧に適用済みの条件（検索ボタンで反映する）
+  const [statusFilter, setStatusFilter] = useState<'all' | OrderStatus>('all')
+  const [from, setFrom] = useState<string>('')
+  const [to, setTo] = useState<string>('')
+  const [userId, setUserId] = useState<string>('')
+  const [minAmount, setMinAmount] = useState<string>('')
+  const [maxAmount, setMaxAmount] = useState<string>('')
+  const [filter, setFilter] = useState<OrderSearchRequest>({})
+
+  useEffect(() => {
+    const fetchCounts = async () => {
+      try {
+        const counts = await Promise.all(ALL_STATUSES.map((status) => getOrderCountByStatus(status)))
+        setStatusCounts(
+          Object.fromEntries(ALL_STATUSES.map((status, i) => [status, counts[i]])) as StatusCounts
+        )
+      } catch (error) {
+        console.error('注文件数の取得に失敗:', error)
+      }
+    }
+
+    fetchCounts()
+  }, [])
 
   useEffect(() => {
     const fetchOrders = async () => {
+      setIsLoading(true)
       try {
-        const data = await getOrders()
-        setOrders(data)
+        const data = await getOrders(filter)
+        setOrders(data.items)
+        setNextCursor(data.nextCursor)
       } catch (error) {
         console.error('注文データの取得に失敗:', error)
       } finally {
@@ -50,28 +79,52 @@ export default function AdminOrdersPage() {
     }
 
     fetchOrders()
-  }, [])
+  }, [filter])
 
-  const filteredOrders = useMemo(() => {
-    return orders.filter((order) => {
-      const searchMatch = order.userName.toLowerCase().includes(searchTerm.toLowerCase())
+  const toNumber = (value: string) => (value.trim() === '' ? undefined : Number(value))
 
-      const statusMatch =
-        statusFilter === 'all' ||
-        (statusFilter === 'paid' && order.status === 'PAID') ||
-        (statusFilter === 'shipped' && order.status === 'SHIPPED') ||
-        (statusFilter === 'delivered' && order.status === 'DELIVERED') ||
-        (statusFilter === 'cancelled' && order.status === 'CANCELLED')
-
-      return searchMatch && statusMatch
+  const handleSearch = () => {
+    setFilter({
+      status: statusFilter === 'all' ? undefined : statusFilter,
+      from: from || undefined,
+      to: to || undefined,
+      userId: toNumber(userId),
+      minAmount: toNumber(minAmount),
+      maxAmount: toNumber(maxAmount),
     })
-  }, [orders, searchTerm, statusFilter])
+  }
 
-  const totalPages = Math.ceil(filteredOrders.length / itemsPerPage)
-  const paginatedOrders = filteredOrders.slice(
-    (currentPage - 1) * itemsPerPage,
-    currentPage * itemsPerPage
-  )
+  const handleLoadMore = async () => {
+    if (!nextCursor) return
+
+    setIsLoadingMore(true)
+    try {
+      const data = await getOrders({ ...filter, cursor: nextCursor })
+      setOrders((prev) => [...prev, ...data.items])
+      setNextCursor(data.nextCursor)
+    } catch (error) {
+      console.error('注文データの取得に失敗:', error)
+    } finally {
+      setIsLoadingMore(false)
+    }
+  }
+
+  const handleExport = async (format: ExportFormat) => {
+    setIsExporting(true)
+    try {
+      const blob = await exportOrders(filter, format)
+      const url = URL.createObjectURL(blob)
+      const link = document.createElement('a')
+      link.href = url
+      link.download = format === 'CSV' ? 'orders.csv' : 'orders.ndjson'
+      link.click()
+      URL.revokeObjectURL(url)
+    } catch (error) {
+      console.error('注文のエクスポートに失敗:', error)
+    } finally {
+      setIsExporting(false)
+    }
+  }
 
   const formatDate = (date: string) =>
     new Date(date).toLocaleDateString('ja-JP', {
@@ -127,27 +180,17 @@ export default function AdminOrdersPage() {
       {/* ステータスカード */}
       <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-5 gap-4">
         {[
-          { label: '全注文', count: orders.length, color: 'text-gray-500' },
           {
-            label: '未処理',
-            count: orders.filter((o) => o.status === 'PAID').length,
-            color: 'text-green-600',
-          },
-          {
-            label: '発送中',
-            count: orders.filter((o) => o.status === 'SHIPPED').length,
-            color: 'text-yellow-600',
-          },
-          {
-            label: '完了',
-            count: orders.filter((o) => o.status === 'DELIVERED').length,
-            color: 'text-blue-600',
-          },
-          {
-            label: 'キャンセル',
-            count: orders.filter((o) => o.status === 'CANCELLED').length,
-            color: 'text-red-600',
+            label: '全注文',
+            count: statusCounts
+              ? ALL_STATUSES.reduce((sum, status) => sum + statusCounts[status], 0)
+              : '-',
+            color: 'text-gray-500',
           },
+          { label: '未処理', count: statusCounts?.PAID ?? '-', color: 'text-green-600' },
+          { label: '発送中', count: statusCounts?.SHIPPED ?? '-', color: 'text-yellow-600' },
+          { label: '完了', count: statusCounts?.DELIVERED ?? '-', color: 'text-blue-600' },
+          { label: 'キャンセル', count: statusCounts?.CANCELLED ?? '-', color: 'text-red-600' },
         ].map((item) => (
           <Card key={item.label}>
             <CardHeader className="flex flex-row items-center justify-between pb-2">
@@ -170,33 +213,70 @@ export default function AdminOrdersPage() {
           </CardTitle>
         </CardHeader>
         <CardContent>
-          <div className="flex flex-col lg:flex-row gap-4">
-            <div className="flex-1 relative">
-              <Search className="absolute left-3 top-1/2 -translate-y-1/2 text-gray-400 w-4 h-4" />
-              <Input
-                placeholder="ユーザー名"
-                value={searchTerm}
-                onChange={(e) => setSearchTerm(e.target.value)}
-                className="pl-10"
-              />
-            </div>
+          <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-4">
             <Select
               value={statusFilter}
-              onValueChange={(value) =>
-                setStatusFilter(value as 'all' | 'paid' | 'shipped' | 'delivered' | 'cancelled')
-              }
+              onValueChange={(value) => setStatusFilter(value as 'all' | OrderStatus)}
             >
-              <SelectTrigger className="w-48">
+              <SelectTrigger>
                 <SelectValue placeholder="ステータス" />
               </SelectTrigger>
               <SelectContent>
                 <SelectItem value="all">全ステータス</SelectItem>
-                <SelectItem value="paid">未処理</SelectItem>
-                <SelectItem value="shipped">発送中</SelectItem>
-                <SelectItem value="delivered">完了</SelectItem>
-                <SelectItem value="cancelled">キャンセル</SelectItem>
+                <SelectItem value="PAID">未処理</SelectItem>
+                <SelectItem value="SHIPPED">発送中</SelectItem>
+                <SelectItem value="DELIVERED">完了</SelectItem>
+                <SelectItem value="CANCELLED">キャンセル</SelectItem>
               </SelectContent>
             </Select>
+            <div className="flex items-center gap-2">
+              <Input type="date" value={from} onChange={(e) => setFrom(e.target.value)} />
+              <span className="text-gray-500">〜</span>
+              <Input type="date" value={to} onChange={(e) => setTo(e.target.value)} />
+            </div>
+            <Input
+              type="number"
+              placeholder="ユーザーID"
+              value={userId}
+              onChange={(e) => setUserId(e.target.value)}
+            />
+            <div className="flex items-center gap-2">
+              <Input
+                type="number"
+                placeholder="金額（下限）"
+                value={minAmount}
+                onChange={(e) => setMinAmount(e.target.value)}
+              />
+              <span className="text-gray-500">〜</span>
+              <Input
+                type="number"
+                placeholder="金額（上限）"
+                value={maxAmount}
+                onChange={(e) => setMaxAmount(e.target.value)}
+              />
+            </div>
+            <div className="flex gap-2 lg:col-span-2">
+              <Button onClick={handleSearch}>
+                <Search className="w-4 h-4 mr-2" />
+                検索
+              </Button>
+              <Button
+                variant="outline"
+                onClick={() => handleExport('CSV')}
+                disabled={isExporting}
+              >
+                <Download className="w-4 h-4 mr-2" />
+                CSV
+              </Button>
+              <Button
+                variant="outline"
+                onClick={() => handleExport('NDJSON')}
+                disabled={isExporting}
+              >
+                <Download className="w-4 h-4 mr-2" />
+                NDJSON
+              </Button>
+            </div>
           </div>
         </CardContent>
       </Card>
@@ -216,8 +296,14 @@ export default function AdminOrdersPage() {
               </TableRow>
             </TableHeader>
             <TableBody>
-              {paginatedOrders.length > 0 ? (
-                paginatedOrders.map((order) => (
+              {isLoading ? (
+                <TableRow>
+                  <TableCell colSpan={6} className="text-center text-gray-500 py-4">
+                    読み込み中...
+                  </TableCell>
+                </TableRow>
+              ) : orders.length > 0 ? (
+                orders.map((order) => (
                   <TableRow key={order.id}>
                     <TableCell>{order.id}</TableCell>
                     <TableCell>{order.userName}</TableCell>
@@ -249,26 +335,14 @@ export default function AdminOrdersPage() {
         </CardContent>
       </Card>
 
-      {/* ページネーション */}
-      <div className="flex justify-center gap-4">
-        <Button
-          onClick={() => setCurrentPage((prev) => Math.max(prev - 1, 1))}
-          disabled={currentPage === 1}
-          variant="outline"
-        >
-          前へ
-        </Button>
-        <div className="flex items-center">
-          {currentPage} / {totalPages || 1}
+      {/* もっと見る */}
+      {nextCursor && (
+        <div className="flex justify-center">
+          <Button variant="outline" onClick={handleLoadMore} disabled={isLoadingMore}>
+            {isLoadingMore ? '読み込み中...' : 'もっと見る'}
+          </Button>
         </div>
-        <Button
-          onClick={() => setCurrentPage((prev) => Math.min(prev + 1, totalPages))}
-          disabled={currentPage === totalPages}
-          variant="outline"
-        >
-          次へ
-        </Button>
-      </div>
+      )}
     </div>
   )
 }
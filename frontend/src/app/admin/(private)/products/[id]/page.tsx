@@ -23,7 +23,12 @@ import { Separator } from '@/components/ui/separator'
 import { Switch } from '@/components/ui/switch'
 import { Textarea } from '@/components/ui/textarea'
 import { getCategories } from '@/lib/api/admin/categories'
-import { deleteProduct, getProductById, updateProduct } from '@/lib/api/admin/products'
+import {
+  deleteProduct,
+  getProductById,
+  toImageRequests,
+  updateProduct,
+} from '@/lib/api/admin/products'
 import { buildImageUrl } from '@/lib/utils'
 import type { CategoryResponse } from '@/types/admin/category'
 import type { ProductRequest, ProductResponse } from '@/types/admin/product'
@@ -32,6 +37,16 @@ import Image from 'next/image'
 import { useParams, useRouter } from 'next/navigation'
 import { useEffect, useState } from 'react'
 
+// 登録済み画像はIDで送り返す（変更のない画像は再アップロードしない）
+const toImageItems = (product: ProductResponse): ImageItem[] =>
+  [...product.productImages]
+    .sort((a, b) => a.sortOrder - b.sortOrder)
+    .map((img) => ({
+      id: `existing-${img.id}`,
+      imageId: img.id,
+      base64: buildImageUrl(img.imageUrl),
+    }))
+
 export default function AdminProductDetailPage() {
   const params = useParams()
   const router = useRouter()
@@ -78,10 +93,11 @@ export default function AdminProductDetailPage() {
           isPublished: productData.published,
           categoryIds: productData.productCategories.map((cat) => cat.id),
           images: productData.productImages.map((img) => ({
-            base64: img.imageUrl,
+            id: img.id,
             sortOrder: img.sortOrder,
           })),
         })
+        setImages(toImageItems(productData))
       } catch (error) {
         console.error('商品の取得に失敗しました:', error)
         router.push('/admin/products')
@@ -96,10 +112,11 @@ export default function AdminProductDetailPage() {
   useEffect(() => {
     setFormData((prev) => ({
       ...prev,
-      images: images.map((img, index) => ({
-        sortOrder: index + 1,
-        base64: img.base64,
-      })),
+      images: images.map((img, index) =>
+        img.imageId !== undefined
+          ? { id: img.imageId, sortOrder: index + 1 }
+          : { base64: img.base64, sortOrder: index + 1 }
+      ),
     }))
   }, [images])
 
@@ -108,8 +125,12 @@ export default function AdminProductDetailPage() {
 
     setIsSaving(true)
     try {
-      const updatedProduct = await updateProduct(product.id, formData)
+      const updatedProduct = await updateProduct(product.id, {
+        ...formData,
+        images: await toImageRequests(images),
+      })
       setProduct(updatedProduct)
+      setImages(toImageItems(updatedProduct))
       setIsEditing(false)
     } catch (error) {
       console.error('商品の更新に失敗しました:', error)
@@ -142,10 +163,11 @@ export default function AdminProductDetailPage() {
         isPublished: product.published,
         categoryIds: product.productCategories.map((cat) => cat.id),
         images: product.productImages.map((img) => ({
-          base64: img.imageUrl,
+          id: img.id,
           sortOrder: img.sortOrder,
         })),
       })
+      setImages(toImageItems(product))
     }
     setIsEditing(false)
   }
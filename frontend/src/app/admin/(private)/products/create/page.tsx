@@ -12,7 +12,7 @@ import { Label } from '@/components/ui/label'
 import { Switch } from '@/components/ui/switch'
 import { Textarea } from '@/components/ui/textarea'
 import { getCategories } from '@/lib/api/admin/categories'
-import { createProduct } from '@/lib/api/admin/products'
+import { createProduct, toImageRequests } from '@/lib/api/admin/products'
 import type { CategoryResponse } from '@/types/admin/category'
 import type { ProductRequest } from '@/types/admin/product'
 import { Package, Plus, Save } from 'lucide-react'
@@ -103,6 +103,7 @@ export default function CreateProductPage() {
     try {
       const newProduct = await createProduct({
         ...formData,
+        images: await toImageRequests(images),
         name: formData.name.trim(),
         sku: formData.sku.trim(),
         description: formData.description.trim(),
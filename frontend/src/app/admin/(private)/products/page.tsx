@@ -310,7 +310,10 @@ export default function AdminProductsPage() {
                           <div className="w-12 h-12 rounded-lg overflow-hidden bg-gray-100">
                             {product.productImages.length > 0 ? (
                               <Image
-                                src={buildImageUrl(product.productImages[0]?.imageUrl)}
+                                src={buildImageUrl(
+                                  product.productImages[0]?.thumbnailUrl ??
+                                    product.productImages[0]?.imageUrl
+                                )}
                                 alt={product.name}
                                 width={48}
                                 height={48}
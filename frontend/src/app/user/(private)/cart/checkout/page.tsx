@@ -16,7 +16,7 @@ import type { CheckoutRequest } from '@/types/user/order'
 import { CreditCard, MapPin } from 'lucide-react'
 import Image from 'next/image'
 import { useRouter } from 'next/navigation'
-import { useEffect, useState } from 'react'
+import { useEffect, useRef, useState } from 'react'
 import { useCart } from '@/context/CartContext'
 
 export default function CheckoutPage() {
@@ -27,6 +27,8 @@ export default function CheckoutPage() {
   const [shippingAddress, setShippingAddress] = useState('')
   const [error, setError] = useState('')
   const { refreshCart } = useCart()
+  // 送信に失敗して再試行しても同じ注文として扱われるよう、内容が変わるまで同じキーを使う
+  const idempotencyKey = useRef(crypto.randomUUID())
 
   useEffect(() => {
     const fetchCart = async () => {
@@ -68,7 +70,7 @@ export default function CheckoutPage() {
         shippingAddress: shippingAddress.trim(),
       }
 
-      await createOrder(checkoutData)
+      await createOrder(checkoutData, idempotencyKey.current)
       refreshCart()
       router.push(`/user/orders/`)
     } catch (error) {
@@ -157,7 +159,10 @@ export default function CheckoutPage() {
                     <Input
                       id="shippingAddress"
                       value={shippingAddress}
-                      onChange={(e) => setShippingAddress(e.target.value)}
+                      onChange={(e) => {
+                        setShippingAddress(e.target.value)
+                        idempotencyKey.current = crypto.randomUUID()
+                      }}
                       placeholder="〒150-0001 東京都渋谷区神宮前1-1-1 サンプルマンション101"
                       className={error ? 'border-red-500' : ''}
                     />
@@ -179,25 +184,24 @@ export default function CheckoutPage() {
                 <CardContent className="space-y-4">
                   {cart.cartItems &&
                     cart.cartItems.map((item) => (
-                      <div key={item.id} className="flex items-center gap-3">
+                      <div key={item.productId} className="flex items-center gap-3">
                         <div className="w-12 h-12 rounded overflow-hidden bg-gray-100">
                           <Image
-                            src={buildImageUrl(item.product.productImages[0]?.imageUrl)}
-                            alt={item.product?.name || '商品'}
+                            src={buildImageUrl(item.imageUrl)}
+                            alt={item.name || '商品'}
                             width={48}
                             height={48}
                             className="w-full h-full object-cover"
                           />
-                          <p>{item.product.productImages[0]?.sortOrder}</p>
                         </div>
                         <div className="flex-1">
                           <p className="font-medium text-sm">
-                            {item.product?.name || '商品名不明'}
+                            {item.name || '商品名不明'}
                           </p>
                           <p className="text-xs text-gray-500">数量: {item.quantity}</p>
                         </div>
                         <span className="text-sm font-medium">
-                          ¥{formatPrice((item.product?.price || 0) * item.quantity)}
+                          ¥{formatPrice((item.price || 0) * item.quantity)}
                         </span>
                       </div>
                     ))}
@@ -12,7 +12,6 @@ import {
   AlertDialogTrigger,
 } from '@/components/ui/alert-dialog'
 import { BackButton } from '@/components/ui/back-button'
-import { Badge } from '@/components/ui/badge'
 import { Button } from '@/components/ui/button'
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card'
 import { Separator } from '@/components/ui/separator'
@@ -85,7 +84,7 @@ export default function CartPage() {
   }
 
   const calculateSubtotal = (item: CartItem) => {
-    return item.product.price * item.quantity
+    return item.price * item.quantity
   }
 
   if (isLoading) {
@@ -163,12 +162,12 @@ export default function CartPage() {
               </CardHeader>
               <CardContent className="space-y-4">
                 {cart.cartItems.map((item, index) => (
-                  <div key={item.id}>
+                  <div key={item.productId}>
                     <div className="flex items-center gap-4 p-4 bg-gray-50 rounded-lg">
                       <div className="w-20 h-20 rounded-lg overflow-hidden bg-white">
                         <Image
-                          src={buildImageUrl(item.product.productImages[0]?.imageUrl)}
-                          alt={item.product.name}
+                          src={buildImageUrl(item.imageUrl)}
+                          alt={item.name}
                           width={80}
                           height={80}
                           className="w-full h-full object-cover"
@@ -176,26 +175,15 @@ export default function CartPage() {
                       </div>
 
                       <div className="flex-1">
-                        <Link href={`/user/products/${item.product.id}`}>
+                        <Link href={`/user/products/${item.productId}`}>
                           <h3 className="font-semibold text-lg hover:text-blue-600 transition-colors">
-                            {item.product.name}
+                            {item.name}
                           </h3>
                         </Link>
-                        <p className="text-sm text-gray-500">SKU: {item.product.sku}</p>
-
-                        {/* カテゴリー表示 */}
-                        {item.product.productCategories.length > 0 && (
-                          <div className="flex flex-wrap gap-1 mt-1">
-                            {item.product.productCategories.map((category, idx) => (
-                              <Badge key={idx} variant="outline" className="text-xs">
-                                {category.name}
-                              </Badge>
-                            ))}
-                          </div>
-                        )}
+                        <p className="text-sm text-gray-500">SKU: {item.sku}</p>
 
                         <p className="text-lg font-bold text-gray-900 mt-1">
-                          ¥{formatPrice(item.product.price)}
+                          ¥{formatPrice(item.price)}
                         </p>
                       </div>
 
@@ -203,8 +191,8 @@ export default function CartPage() {
                         <Button
                           variant="outline"
                           size="sm"
-                          onClick={() => handleQuantityChange(item.product.id, item.quantity - 1)}
-                          disabled={updatingItems.has(item.product.id) || item.quantity <= 1}
+                          onClick={() => handleQuantityChange(item.productId, item.quantity - 1)}
+                          disabled={updatingItems.has(item.productId) || item.quantity <= 1}
                         >
                           <Minus className="w-4 h-4" />
                         </Button>
@@ -212,10 +200,10 @@ export default function CartPage() {
                         <Button
                           variant="outline"
                           size="sm"
-                          onClick={() => handleQuantityChange(item.product.id, item.quantity + 1)}
+                          onClick={() => handleQuantityChange(item.productId, item.quantity + 1)}
                           disabled={
-                            updatingItems.has(item.product.id) ||
-                            item.quantity >= item.product.stock
+                            updatingItems.has(item.productId) ||
+                            item.quantity >= item.stock
                           }
                         >
                           <Plus className="w-4 h-4" />
@@ -224,14 +212,14 @@ export default function CartPage() {
 
                       <div className="text-right">
                         <p className="text-lg font-bold">¥{formatPrice(calculateSubtotal(item))}</p>
-                        <p className="text-xs text-gray-500">在庫: {item.product.stock}個</p>
+                        <p className="text-xs text-gray-500">在庫: {item.stock}個</p>
                         <AlertDialog>
                           <AlertDialogTrigger asChild>
                             <Button
                               variant="ghost"
                               size="sm"
                               className="text-red-600 hover:text-red-700 mt-1"
-                              disabled={updatingItems.has(item.product.id)}
+                              disabled={updatingItems.has(item.productId)}
                             >
                               <Trash2 className="w-4 h-4 mr-1" />
                               削除
@@ -241,14 +229,14 @@ export default function CartPage() {
                             <AlertDialogHeader>
                               <AlertDialogTitle>商品を削除しますか？</AlertDialogTitle>
                               <AlertDialogDescription>
-                                「{item.product.name}
+                                「{item.name}
                                 」をカートから削除します。この操作は取り消せません。
                               </AlertDialogDescription>
                             </AlertDialogHeader>
                             <AlertDialogFooter>
                               <AlertDialogCancel>キャンセル</AlertDialogCancel>
                               <AlertDialogAction
-                                onClick={() => handleRemoveItem(item.product.id)}
+                                onClick={() => handleRemoveItem(item.productId)}
                                 className="bg-red-600 hover:bg-red-700"
                               >
                                 削除する
@@ -6,10 +6,10 @@ import { Button } from '@/components/ui/button'
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from '@/components/ui/card'
 import { Separator } from '@/components/ui/separator'
 import { getCart } from '@/lib/api/user/carts'
-import { getOrders } from '@/lib/api/user/orders'
+import { getOrderSummary, getOrders } from '@/lib/api/user/orders'
 import { getProfile } from '@/lib/api/user/profile'
 import type { CartResponse } from '@/types/user/cart'
-import type { OrderResponse } from '@/types/user/order'
+import type { OrderResponse, OrderSummaryResponse } from '@/types/user/order'
 import { buildImageUrl } from '@/lib/utils'
 import {
   ArrowRight,
@@ -33,6 +33,7 @@ import { useEffect, useState } from 'react'
 
 export default function UserDashboardPage() {
   const [orders, setOrders] = useState<OrderResponse[]>([])
+  const [summary, setSummary] = useState<OrderSummaryResponse | null>(null)
   const [cart, setCart] = useState<CartResponse | null>(null)
   const [isLoading, setIsLoading] = useState(true)
   const [userName, setUserName] = useState('')
@@ -41,13 +42,16 @@ export default function UserDashboardPage() {
     const fetchData = async () => {
       try {
         // 注文とカートのデータを並列で取得
-        const [ordersData, cartData, profileData] = await Promise.all([
-          getOrders(),
+        // 履歴は最新の数件だけ、件数・金額はサーバー側の集計を使う
+        const [ordersData, summaryData, cartData, profileData] = await Promise.all([
+          getOrders({ size: 3 }),
+          getOrderSummary(),
           getCart(),
           getProfile(),
         ])
         setUserName(profileData.name || 'ゲスト')
-        setOrders(ordersData)
+        setOrders(ordersData.items)
+        setSummary(summaryData)
         setCart(cartData)
       } catch (error) {
         console.error('データの取得に失敗しました:', error)
@@ -104,10 +108,10 @@ export default function UserDashboardPage() {
   // }
 
   // 統計データの計算
-  const totalOrders = orders.length
-  const totalSpent = orders.reduce((sum, order) => sum + order.totalAmount, 0)
-  const recentOrders = orders.slice(0, 3)
-  const deliveredOrders = orders.filter((order) => order.status === 'delivered').length
+  const totalOrders = summary?.orderCount ?? 0
+  const totalSpent = summary?.totalSpent ?? 0
+  const recentOrders = orders
+  const deliveredOrders = summary?.deliveredCount ?? 0
 
   if (isLoading) {
     return (
@@ -312,24 +316,24 @@ export default function UserDashboardPage() {
                   <div className="space-y-3">
                     {cart.cartItems.slice(0, 3).map((item) => (
                       <div
-                        key={item.id}
+                        key={item.productId}
                         className="flex items-center gap-3 p-3 bg-gray-50 rounded-lg"
                       >
                         <div className="w-12 h-12 rounded overflow-hidden bg-white">
                           <Image
-                            src={buildImageUrl(item.product.productImages[0].imageUrl)}
-                            alt={item.product.name}
+                            src={buildImageUrl(item.imageUrl)}
+                            alt={item.name}
                             width={48}
                             height={48}
                             className="w-full h-full object-cover"
                           />
                         </div>
                         <div className="flex-1">
-                          <p className="font-medium text-sm">{item.product.name}</p>
+                          <p className="font-medium text-sm">{item.name}</p>
                           <p className="text-xs text-gray-500">数量: {item.quantity}</p>
                         </div>
                         <span className="text-sm font-medium">
-                          ¥{formatPrice(item.product.price * item.quantity)}
+                          ¥{formatPrice(item.price * item.quantity)}
                         </span>
                       </div>
                     ))}
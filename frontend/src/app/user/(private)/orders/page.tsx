@@ -16,12 +16,15 @@ import { useEffect, useState } from 'react'
 export default function OrderHistoryPage() {
   const [orders, setOrders] = useState<OrderResponse[]>([])
   const [isLoading, setIsLoading] = useState(true)
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [isLoadingMore, setIsLoadingMore] = useState(false)
 
   useEffect(() => {
     const fetchOrders = async () => {
       try {
         const data = await getOrders()
-        setOrders(data)
+        setOrders(data.items)
+        setNextCursor(data.nextCursor)
       } catch (error) {
         console.error('注文履歴の取得に失敗しました:', error)
       } finally {
@@ -32,6 +35,21 @@ export default function OrderHistoryPage() {
     fetchOrders()
   }, [])
 
+  const handleLoadMore = async () => {
+    if (!nextCursor) return
+
+    setIsLoadingMore(true)
+    try {
+      const data = await getOrders({ cursor: nextCursor })
+      setOrders((prev) => [...prev, ...data.items])
+      setNextCursor(data.nextCursor)
+    } catch (error) {
+      console.error('注文履歴の取得に失敗しました:', error)
+    } finally {
+      setIsLoadingMore(false)
+    }
+  }
+
   const formatPrice = (price: number) => {
     return price.toLocaleString()
   }
@@ -157,7 +175,10 @@ export default function OrderHistoryPage() {
                           >
                             <div className="w-16 h-16 rounded overflow-hidden bg-white">
                               <Image
-                                src={buildImageUrl(item.product.productImages[0].imageUrl)}
+                                src={buildImageUrl(
+                          item.product.productImages[0].thumbnailUrl ??
+                            item.product.productImages[0].imageUrl
+                        )}
                                 alt={item.product.name}
                                 width={64}
                                 height={64}
@@ -254,6 +275,15 @@ export default function OrderHistoryPage() {
                 </CardContent>
               </Card>
             ))}
+
+            {/* もっと見る */}
+            {nextCursor && (
+              <div className="flex justify-center">
+                <Button variant="outline" onClick={handleLoadMore} disabled={isLoadingMore}>
+                  {isLoadingMore ? '読み込み中...' : 'もっと見る'}
+                </Button>
+              </div>
+            )}
           </div>
         )}
       </div>
@@ -158,7 +158,10 @@ export default function ProductDetailPage() {
           <div className="space-y-4">
             <div className="relative">
               <Image
-                src={buildImageUrl(product.productImages[selectedImageIndex]?.imageUrl)}
+                src={buildImageUrl(
+                  product.productImages[selectedImageIndex]?.detailUrl ??
+                    product.productImages[selectedImageIndex]?.imageUrl
+                )}
                 alt={product.name}
                 width={500}
                 height={500}
@@ -178,7 +181,7 @@ export default function ProductDetailPage() {
                     }`}
                   >
                     <Image
-                      src={buildImageUrl(image.imageUrl)}
+                      src={buildImageUrl(image.thumbnailUrl ?? image.imageUrl)}
                       alt={`${product.name} ${index + 1}`}
                       width={80}
                       height={80}
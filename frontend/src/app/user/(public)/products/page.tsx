@@ -12,9 +12,9 @@ import {
   SelectValue,
 } from '@/components/ui/select'
 import { useCart } from '@/context/CartContext'
-import { getProducts } from '@/lib/api/user/products'
+import { filterProducts, getProducts, searchProducts } from '@/lib/api/user/products'
 import { buildImageUrl } from '@/lib/utils'
-import type { ProductResponse } from '@/types/user/product'
+import type { ProductFacetResponse, ProductResponse, ProductSort } from '@/types/user/product'
 import { getCookie } from 'cookies-next'
 import {
   Check,
@@ -33,12 +33,25 @@ import Link from 'next/link'
 import { useRouter } from 'next/navigation'
 import { useEffect, useMemo, useState } from 'react'
 
+// 並び順セレクトの値 → APIのsortパラメータ
+const SORT_PARAMS: Record<string, ProductSort> = {
+  newest: 'NEWEST',
+  name: 'NAME',
+  'price-low': 'PRICE_ASC',
+  'price-high': 'PRICE_DESC',
+}
+
 export default function ProductListPage() {
   const router = useRouter()
   const [products, setProducts] = useState<ProductResponse[]>([])
   const [isLoading, setIsLoading] = useState(true)
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [isLoadingMore, setIsLoadingMore] = useState(false)
   const [searchTerm, setSearchTerm] = useState('')
+  const [searchResults, setSearchResults] = useState<ProductResponse[] | null>(null)
   const [categoryFilter, setCategoryFilter] = useState<string>('all')
+  const [filterResults, setFilterResults] = useState<ProductResponse[] | null>(null)
+  const [facets, setFacets] = useState<ProductFacetResponse | null>(null)
   const [sortBy, setSortBy] = useState<string>('name')
   const [viewMode, setViewMode] = useState<'grid' | 'list'>('grid')
   const [addingToCart, setAddingToCart] = useState<Set<number>>(new Set())
@@ -49,11 +62,15 @@ export default function ProductListPage() {
   useEffect(() => {
     const token = getCookie('user-token')
     setUserToken(typeof token === 'string' ? token : null)
+  }, [])
 
+  // 並び順はサーバー側で適用し、先頭ページから取り直す
+  useEffect(() => {
     const fetchProducts = async () => {
       try {
-        const data = await getProducts()
-        setProducts(data)
+        const data = await getProducts({ sort: SORT_PARAMS[sortBy] })
+        setProducts(data.items)
+        setNextCursor(data.nextCursor)
       } catch (error) {
         console.error('商品の取得に失敗しました:', error)
       } finally {
@@ -62,44 +79,73 @@ export default function ProductListPage() {
     }
 
     fetchProducts()
-  }, [])
+  }, [sortBy])
 
-  // フィルタリングとソート
-  const filteredAndSortedProducts = useMemo(() => {
-    const filtered = products.filter((product) => {
-      const matchesSearch =
-        product.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-        product.description.toLowerCase().includes(searchTerm.toLowerCase())
+  // カテゴリの絞り込みと件数はサーバー側のファセットに問い合わせる
+  useEffect(() => {
+    const fetchFiltered = async () => {
+      try {
+        const categoryIds = categoryFilter === 'all' ? [] : [Number(categoryFilter)]
+        const data = await filterProducts({ categoryIds, sort: SORT_PARAMS[sortBy], size: 100 })
+        setFacets(data.facets)
+        setFilterResults(categoryFilter === 'all' ? null : data.items)
+      } catch (error) {
+        console.error('商品の絞り込みに失敗しました:', error)
+      }
+    }
 
-      const matchesCategory =
-        categoryFilter === 'all' ||
-        product.productCategories.some((cat) => cat.name === categoryFilter)
+    fetchFiltered()
+  }, [categoryFilter, sortBy])
 
-      return matchesSearch && matchesCategory
-    })
+  // 検索語はサーバー側の全文検索に問い合わせる（入力が落ち着いてから）
+  useEffect(() => {
+    const q = searchTerm.trim()
+    if (!q) {
+      setSearchResults(null)
+      return
+    }
 
-    // ソート
-    filtered.sort((a, b) => {
-      switch (sortBy) {
-        case 'price-low':
-          return a.price - b.price
-        case 'price-high':
-          return b.price - a.price
-        case 'name':
-        default:
-          return a.name.localeCompare(b.name)
+    const timer = setTimeout(async () => {
+      try {
+        const data = await searchProducts({ q, size: 100 })
+        setSearchResults(data.items)
+      } catch (error) {
+        console.error('商品の検索に失敗しました:', error)
       }
-    })
+    }, 300)
 
-    return filtered
-  }, [products, searchTerm, categoryFilter, sortBy])
+    return () => clearTimeout(timer)
+  }, [searchTerm])
 
-  const categories = useMemo(() => {
-    const cats = products
-      .flatMap((p) => p.productCategories.map((cat) => cat.name))
-      .filter(Boolean) as string[]
-    return Array.from(new Set(cats))
-  }, [products])
+  const handleLoadMore = async () => {
+    if (!nextCursor) return
+
+    setIsLoadingMore(true)
+    try {
+      const data = await getProducts({ sort: SORT_PARAMS[sortBy], cursor: nextCursor })
+      setProducts((prev) => [...prev, ...data.items])
+      setNextCursor(data.nextCursor)
+    } catch (error) {
+      console.error('商品の取得に失敗しました:', error)
+    } finally {
+      setIsLoadingMore(false)
+    }
+  }
+
+  // フィルタリング（並び順・検索・カテゴリはサーバー側で適用済み、検索結果のみカテゴリをここで絞る）
+  const filteredAndSortedProducts = useMemo(() => {
+    if (searchResults === null) {
+      return filterResults ?? products
+    }
+    return searchResults.filter((product) => {
+      return (
+        categoryFilter === 'all' ||
+        product.productCategories.some((cat) => cat.id?.categoryId === Number(categoryFilter))
+      )
+    })
+  }, [products, searchResults, filterResults, categoryFilter])
+
+  const categories = facets?.categories ?? []
 
   const formatPrice = (price: number) => {
     return price.toLocaleString()
@@ -209,8 +255,8 @@ export default function ProductListPage() {
                   <SelectContent>
                     <SelectItem value="all">すべてのカテゴリ</SelectItem>
                     {categories.map((category) => (
-                      <SelectItem key={category} value={category}>
-                        {category}
+                      <SelectItem key={category.id} value={String(category.id)}>
+                        {category.name} ({category.count})
                       </SelectItem>
                     ))}
                   </SelectContent>
@@ -221,6 +267,7 @@ export default function ProductListPage() {
                     <SelectValue placeholder="並び順" />
                   </SelectTrigger>
                   <SelectContent>
+                    <SelectItem value="newest">新着順</SelectItem>
                     <SelectItem value="name">名前順</SelectItem>
                     <SelectItem value="price-low">価格の安い順</SelectItem>
                     <SelectItem value="price-high">価格の高い順</SelectItem>
@@ -273,7 +320,9 @@ export default function ProductListPage() {
               <div className="relative">
                 <div className="relative overflow-hidden">
                   <Image
-                    src={buildImageUrl(product.productImages[0]?.imageUrl)}
+                    src={buildImageUrl(
+                      product.productImages[0]?.cardUrl ?? product.productImages[0]?.imageUrl
+                    )}
                     alt={product.name}
                     width={400}
                     height={300}
@@ -370,6 +419,15 @@ export default function ProductListPage() {
           ))}
         </div>
 
+        {/* もっと見る */}
+        {nextCursor && searchResults === null && filterResults === null && (
+          <div className="flex justify-center mt-8">
+            <Button variant="outline" onClick={handleLoadMore} disabled={isLoadingMore}>
+              {isLoadingMore ? '読み込み中...' : 'もっと見る'}
+            </Button>
+          </div>
+        )}
+
         {/* 商品が見つからない場合 */}
         {filteredAndSortedProducts.length === 0 && (
           <div className="text-center py-12">
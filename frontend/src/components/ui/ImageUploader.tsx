@@ -25,7 +25,9 @@ import { X } from 'lucide-react'
 
 export type ImageItem = {
   id: string
-  file: File
+  // 登録済み画像のID（新しく選択した画像は undefined）
+  imageId?: number
+  file?: File
   base64: string
 }
 
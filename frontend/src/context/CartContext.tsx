@@ -2,12 +2,18 @@
 
 import {
   addCartItem,
+  applyCartBatch,
   getMyCartItemsQuantity,
   removeCartItem,
   updateCartItemQuantity,
 } from '@/lib/api/user/carts'
 
-import { CartResponse, addCartItemRequest, updateCartItemRequest } from '@/types/user/cart'
+import {
+  CartResponse,
+  addCartItemRequest,
+  cartBatchRequest,
+  updateCartItemRequest,
+} from '@/types/user/cart'
 import { getCookie } from 'cookies-next'
 import { ReactNode, createContext, useCallback, useContext, useEffect, useState } from 'react'
 
@@ -17,6 +23,7 @@ type CartContextType = {
   addItemToCart: (data: addCartItemRequest) => Promise<CartResponse>
   updateCartItem: (productId: number, data: updateCartItemRequest) => Promise<CartResponse>
   removeItemFromCart: (productId: number) => Promise<CartResponse>
+  applyBatch: (data: cartBatchRequest) => Promise<CartResponse>
   resetCart: () => void
 }
 
@@ -32,7 +39,8 @@ export const CartProvider = ({ children }: { children: ReactNode }) => {
 
   const addItemToCart = async (data: addCartItemRequest): Promise<CartResponse> => {
     const response = await addCartItem(data)
-    await refreshCart()
+    // 更新後のカートに合計が含まれるので、バッジのために数量を取り直さない
+    setTotalQuantity(response.totalQuantity)
     return response
   }
 
@@ -41,13 +49,19 @@ export const CartProvider = ({ children }: { children: ReactNode }) => {
     data: updateCartItemRequest
   ): Promise<CartResponse> => {
     const response = await updateCartItemQuantity(productId, data)
-    await refreshCart()
+    setTotalQuantity(response.totalQuantity)
     return response
   }
 
   const removeItemFromCart = async (productId: number): Promise<CartResponse> => {
     const response = await removeCartItem(productId)
-    await refreshCart()
+    setTotalQuantity(response.totalQuantity)
+    return response
+  }
+
+  const applyBatch = async (data: cartBatchRequest): Promise<CartResponse> => {
+    const response = await applyCartBatch(data)
+    setTotalQuantity(response.totalQuantity)
     return response
   }
 
@@ -76,6 +90,7 @@ export const CartProvider = ({ children }: { children: ReactNode }) => {
         addItemToCart,
         updateCartItem,
         removeItemFromCart,
+        applyBatch,
         resetCart,
       }}
     >
@@ -2,8 +2,13 @@
 
 import axios from '@/lib/axios'
 import { getCookie } from 'cookies-next'
+import { CursorPageResponse } from '@/types/common/page'
 import { OrderResponse } from '@/types/admin/order'
-import { UpdateOrderStatusRequest } from '@/types/admin/order/request'
+import {
+  ExportFormat,
+  OrderSearchRequest,
+  UpdateOrderStatusRequest,
+} from '@/types/admin/order/request'
 import { OrderStatus } from '@/types/common/order_status'
 
 const getAuthHeader = () => {
@@ -11,13 +16,29 @@ const getAuthHeader = () => {
   return token ? { Authorization: `Bearer ${token}` } : {}
 }
 
-export const getOrders = async (): Promise<OrderResponse[]> => {
-  const response = await axios.get<OrderResponse[]>('/admin/orders', {
+export const getOrders = async (
+  params: OrderSearchRequest = {}
+): Promise<CursorPageResponse<OrderResponse>> => {
+  const response = await axios.get<CursorPageResponse<OrderResponse>>('/admin/orders', {
+    params,
     headers: getAuthHeader(),
   })
   return response.data
 }
 
+// 一覧と同じ条件で全件を書き出したファイルを取得する（cursor・size は使われない）
+export const exportOrders = async (
+  params: OrderSearchRequest,
+  format: ExportFormat
+): Promise<Blob> => {
+  const response = await axios.get<Blob>('/admin/orders/export', {
+    params: { ...params, format },
+    headers: getAuthHeader(),
+    responseType: 'blob',
+  })
+  return response.data
+}
+
 export const getOrder = async (id: number): Promise<OrderResponse> => {
   const response = await axios.get<OrderResponse>(`/admin/orders/${id}`, {
     headers: getAuthHeader(),
@@ -35,8 +56,8 @@ export const updateOrderStatus = async (
   return response.data
 }
 
-export const getOrderCountByStatus = async (status: OrderStatus): Promise<OrderResponse> => {
-  const response = await axios.get<OrderResponse>(`/admin/orders/count/${status}`, {
+export const getOrderCountByStatus = async (status: OrderStatus): Promise<number> => {
+  const response = await axios.get<number>(`/admin/orders/count/${status}`, {
     headers: getAuthHeader(),
   })
   return response.data
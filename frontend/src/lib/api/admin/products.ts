@@ -1,13 +1,8 @@
-/**
- *
- * TODO:
- * - 商品画像はアップロード機能は未対応
- */
 // lib/api.ts
 
 import axios from '@/lib/axios'
 import { getCookie } from 'cookies-next'
-import { ProductResponse, ProductRequest } from '@/types/admin/product'
+import { Image, ProductResponse, ProductRequest, UploadedImageResponse } from '@/types/admin/product'
 
 const getAuthHeader = () => {
   const token = getCookie('admin-token')
@@ -35,6 +30,36 @@ export const createProduct = async (data: ProductRequest): Promise<ProductRespon
   return response.data
 }
 
+// 画像ファイルをマルチパートでアップロードする（商品の登録・更新では uploadId で参照する）
+export const uploadProductImages = async (files: File[]): Promise<UploadedImageResponse[]> => {
+  const formData = new FormData()
+  files.forEach((file) => formData.append('files', file))
+  const response = await axios.post<UploadedImageResponse[]>('/admin/products/images', formData, {
+    headers: { ...getAuthHeader(), 'Content-Type': 'multipart/form-data' },
+  })
+  return response.data
+}
+
+// 画像一覧をリクエスト用に変換する（新しく選択したファイルは先にアップロードしてIDで送る）
+export const toImageRequests = async (
+  items: { imageId?: number; file?: File; base64: string }[]
+): Promise<Image[]> => {
+  const files = items.filter((item) => item.imageId === undefined && item.file).map((item) => item.file!)
+  const uploaded = files.length > 0 ? await uploadProductImages(files) : []
+
+  let uploadIndex = 0
+  return items.map((item, index) => {
+    const sortOrder = index + 1
+    if (item.imageId !== undefined) {
+      return { id: item.imageId, sortOrder }
+    }
+    if (item.file) {
+      return { uploadId: uploaded[uploadIndex++].uploadId, sortOrder }
+    }
+    return { base64: item.base64, sortOrder }
+  })
+}
+
 export const updateProduct = async (id: number, data: ProductRequest): Promise<ProductResponse> => {
   const response = await axios.put<ProductResponse>(`/admin/products/${id}`, data, {
     headers: getAuthHeader(),
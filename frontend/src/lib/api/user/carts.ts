@@ -1,7 +1,12 @@
 // lib/api.ts
 
 import axios from '@/lib/axios'
-import { CartResponse, addCartItemRequest, updateCartItemRequest } from '@/types/user/cart'
+import {
+  CartResponse,
+  addCartItemRequest,
+  cartBatchRequest,
+  updateCartItemRequest,
+} from '@/types/user/cart'
 import { getCookie } from 'cookies-next'
 
 const getAuthHeader = () => {
@@ -46,3 +51,10 @@ export const removeCartItem = async (productId: number): Promise<CartResponse> =
   })
   return response.data
 }
+
+export const applyCartBatch = async (data: cartBatchRequest): Promise<CartResponse> => {
+  const response = await axios.post<CartResponse>('/user/carts/batch', data, {
+    headers: getAuthHeader(),
+  })
+  return response.data
+}
@@ -1,7 +1,13 @@
 // lib/api.ts
 
 import axios from '@/lib/axios'
-import { OrderResponse, CheckoutRequest } from '@/types/user/order'
+import { CursorPageResponse } from '@/types/common/page'
+import {
+  OrderResponse,
+  CheckoutRequest,
+  OrderListRequest,
+  OrderSummaryResponse,
+} from '@/types/user/order'
 import { getCookie } from 'cookies-next'
 
 const getAuthHeader = () => {
@@ -9,8 +15,18 @@ const getAuthHeader = () => {
   return token ? { Authorization: `Bearer ${token}` } : {}
 }
 
-export const getOrders = async (): Promise<OrderResponse[]> => {
-  const response = await axios.get<OrderResponse[]>('/user/orders', {
+export const getOrders = async (
+  params: OrderListRequest = {}
+): Promise<CursorPageResponse<OrderResponse>> => {
+  const response = await axios.get<CursorPageResponse<OrderResponse>>('/user/orders', {
+    params,
+    headers: getAuthHeader(),
+  })
+  return response.data
+}
+
+export const getOrderSummary = async (): Promise<OrderSummaryResponse> => {
+  const response = await axios.get<OrderSummaryResponse>('/user/orders/summary', {
     headers: getAuthHeader(),
   })
   return response.data
@@ -23,9 +39,13 @@ export const getOrderById = async (oderId: number): Promise<OrderResponse> => {
   return response.data
 }
 
-export const createOrder = async (data: CheckoutRequest): Promise<OrderResponse[]> => {
+// 同じ注文の再送には同じ idempotencyKey を渡す（サーバーは最初の結果を返し、注文を二重に作らない）
+export const createOrder = async (
+  data: CheckoutRequest,
+  idempotencyKey: string
+): Promise<OrderResponse[]> => {
   const response = await axios.post<OrderResponse[]>('/user/orders/checkout', data, {
-    headers: getAuthHeader(),
+    headers: { ...getAuthHeader(), 'Idempotency-Key': idempotencyKey },
   })
   return response.data
 }
@@ -1,10 +1,42 @@
 // lib/api.ts
 
 import axios from '@/lib/axios'
-import { ProductResponse } from '@/types/user/product'
+import { CursorPageResponse } from '@/types/common/page'
+import {
+  ProductFilterRequest,
+  ProductFilterResponse,
+  ProductListRequest,
+  ProductResponse,
+  ProductSearchRequest,
+  ProductSearchResponse,
+} from '@/types/user/product'
 
-export const getProducts = async (): Promise<ProductResponse[]> => {
-  const response = await axios.get<ProductResponse[]>('/user/products')
+export const getProducts = async (
+  params: ProductListRequest = {}
+): Promise<CursorPageResponse<ProductResponse>> => {
+  const response = await axios.get<CursorPageResponse<ProductResponse>>('/user/products', {
+    params,
+  })
+  return response.data
+}
+
+export const searchProducts = async (
+  params: ProductSearchRequest
+): Promise<ProductSearchResponse> => {
+  const response = await axios.get<ProductSearchResponse>('/user/products/search', {
+    params,
+  })
+  return response.data
+}
+
+// 配列パラメータは categoryIds=1&categoryIds=2 の形で送る（Springのバインド形式）
+export const filterProducts = async (
+  params: ProductFilterRequest = {}
+): Promise<ProductFilterResponse> => {
+  const response = await axios.get<ProductFilterResponse>('/user/products/filter', {
+    params,
+    paramsSerializer: { indexes: null },
+  })
   return response.data
 }
 
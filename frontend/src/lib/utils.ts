@@ -10,7 +10,7 @@ export function cn(...inputs: ClassValue[]) {
  * @param path - 必須。相対パス (例: /images/sample.jpg)
  * @returns 絶対URL (例: https://example.com/images/sample.jpg)
  */
-export const buildImageUrl = (path: string | undefined) => {
+export const buildImageUrl = (path: string | null | undefined) => {
   const baseUrl = process.env.NEXT_PUBLIC_API_BASE_URL
 
   if (!baseUrl) {
@@ -1,3 +1,19 @@
+import { OrderStatus } from '@/types/common/order_status'
+
 export type UpdateOrderStatusRequest = {
   status: string
 }
+
+// 注文一覧の検索条件（from・to は YYYY-MM-DD、両端を含む）
+export type OrderSearchRequest = {
+  cursor?: string
+  size?: number
+  status?: OrderStatus
+  from?: string
+  to?: string
+  userId?: number
+  minAmount?: number
+  maxAmount?: number
+}
+
+export type ExportFormat = 'CSV' | 'NDJSON'
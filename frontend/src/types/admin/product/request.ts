@@ -9,7 +9,10 @@ export type ProductRequest = {
   stock: number
 }
 
+// 登録済み画像は id、事前アップロードした画像は uploadId、それ以外は base64 を指定する
 export type Image = {
+  id?: number
+  uploadId?: string
   sortOrder: number
-  base64: string
+  base64?: string
 }
@@ -17,8 +17,20 @@ export type ProductCategory = {
   name: string
 }
 
+export type UploadedImageResponse = {
+  uploadId: string
+  imageUrl: string
+  contentHash: string
+}
+
 export type ProductImage = {
   id: number
   imageUrl: string
   sortOrder: number
+  // 縮小版（作成前や作成できない形式は null）
+  width: number | null
+  height: number | null
+  thumbnailUrl: string | null
+  cardUrl: string | null
+  detailUrl: string | null
 }
@@ -0,0 +1,6 @@
+// カーソル方式のページングレスポンス
+export type CursorPageResponse<T> = {
+  items: T[]
+  nextCursor: string | null
+  hasNext: boolean
+}
@@ -6,3 +6,15 @@ export type addCartItemRequest = {
 export type updateCartItemRequest = {
   quantity: number
 }
+
+export type CartOperationType = 'ADD' | 'SET' | 'REMOVE'
+
+export type CartOperation = {
+  type: CartOperationType
+  productId: number
+  quantity?: number
+}
+
+export type cartBatchRequest = {
+  operations: CartOperation[]
+}
@@ -7,32 +7,13 @@ export type CartResponse = {
 }
 
 export type CartItem = {
-  id: number
-  product: Product
+  // メモリ上のカート（app.cart.storage=memory）では、DBへ書き出す前の明細は null
+  id: number | null
   quantity: number
-}
-
-export type Product = {
-  createdAt: string
-  description: string
-  id: number
+  productId: number
+  sku: string
   name: string
   price: number
-  productCategories: ProductCategory[]
-  productImages: ProductImage[]
-  published: boolean
-  sku: string
   stock: number
-  updatedAt: string
-}
-
-export type ProductCategory = {
-  id?: number
-  name?: string
-}
-
-export type ProductImage = {
-  id?: number
-  imageUrl?: string
-  sortOrder?: number
+  imageUrl: string | null
 }
@@ -1,3 +1,8 @@
 export type CheckoutRequest = {
   shippingAddress: string
 }
+
+export type OrderListRequest = {
+  cursor?: string
+  size?: number
+}
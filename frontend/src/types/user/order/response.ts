@@ -38,4 +38,16 @@ export type ProductImage = {
   id: number
   imageUrl: string
   sortOrder: number
+  // 縮小版（作成前や作成できない形式は null）
+  width: number | null
+  height: number | null
+  thumbnailUrl: string | null
+  cardUrl: string | null
+  detailUrl: string | null
+}
+
+export type OrderSummaryResponse = {
+  orderCount: number
+  totalSpent: number
+  deliveredCount: number
 }
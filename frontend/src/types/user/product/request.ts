@@ -0,0 +1,32 @@
+export type ProductSort = 'NEWEST' | 'PRICE_ASC' | 'PRICE_DESC' | 'NAME'
+
+export type CategoryMatch = 'ALL' | 'ANY'
+
+export type PriceRange =
+  | 'UNDER_1000'
+  | 'FROM_1000_TO_3000'
+  | 'FROM_3000_TO_5000'
+  | 'FROM_5000_TO_10000'
+  | 'OVER_10000'
+
+export type ProductListRequest = {
+  cursor?: string
+  size?: number
+  sort?: ProductSort
+}
+
+export type ProductSearchRequest = {
+  q: string
+  page?: number
+  size?: number
+}
+
+export type ProductFilterRequest = {
+  categoryIds?: number[]
+  match?: CategoryMatch
+  inStock?: boolean
+  priceRanges?: PriceRange[]
+  sort?: ProductSort
+  page?: number
+  size?: number
+}
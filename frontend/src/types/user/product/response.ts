@@ -26,4 +26,33 @@ export type ProductImage = {
   id: number
   imageUrl: string
   sortOrder: number
+  // 縮小版（作成前や作成できない形式は null）
+  width: number | null
+  height: number | null
+  thumbnailUrl: string | null
+  cardUrl: string | null
+  detailUrl: string | null
+}
+
+export type ProductSearchResponse = {
+  items: ProductResponse[]
+  total: number
+  page: number
+  size: number
+  hasNext: boolean
+}
+
+export type ProductFacetResponse = {
+  categories: { id: number; name: string; count: number }[]
+  priceRanges: { range: string; count: number }[]
+  inStock: number
+}
+
+export type ProductFilterResponse = {
+  items: ProductResponse[]
+  total: number
+  page: number
+  size: number
+  hasNext: boolean
+  facets: ProductFacetResponse
 }